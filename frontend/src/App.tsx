@@ -51,6 +51,7 @@ function App() {
   const [isDarkMode, setIsDarkMode] = useState(false);
   const [view, setView] = useState<'canvas' | 'list'>('list');
   const [currentWorkflowId, setCurrentWorkflowId] = useState<string | null>(null);
+  const [currentWorkflowVersion, setCurrentWorkflowVersion] = useState<number | null>(null);
   const [currentRunId, setCurrentRunId] = useState<string | null>(null);
   const [isConsoleOpen, setIsConsoleOpen] = useState(false);
   const [runSteps, setRunSteps] = useState<StepRun[]>([]);
@@ -202,6 +203,7 @@ function App() {
           body: JSON.stringify({
             workflowId: currentWorkflowId,
             graph: workflow.graph,
+            baseVersion: currentWorkflowVersion,
           }),
         });
       } else {
@@ -220,7 +222,11 @@ function App() {
       if (response.ok) {
         const data = await response.json();
         setCurrentWorkflowId(data.id);
+        setCurrentWorkflowVersion(data.version);
         alert(`Workflow saved successfully! ID: ${data.id}`);
+      } else if (response.status === 409) {
+        const conflict = await response.json();
+        alert(`Workflow was changed elsewhere (now version ${conflict.currentVersion}, you edited version ${conflict.baseVersion}). Reload it before saving.`);
       } else {
         const text = await response.text();
         let errorMessage = 'Unknown error';
@@ -236,7 +242,7 @@ function App() {
       console.error('Error saving workflow:', error);
       alert('Error saving workflow. Backend may not be running.');
     }
-  }, [nodes, edges, currentWorkflowId]);
+  }, [nodes, edges, currentWorkflowId, currentWorkflowVersion]);
 
   const loadWorkflow = useCallback(async (workflow: Workflow) => {
     if (!authToken || !orgId) return;
@@ -257,6 +263,7 @@ function App() {
           setEdges([]);
         }
         setCurrentWorkflowId(workflow.id);
+        setCurrentWorkflowVersion(data.version);
         setView('canvas');
       } else {
         alert('Failed to load workflow');
@@ -271,6 +278,7 @@ function App() {
     setNodes([]);
     setEdges([]);
     setCurrentWorkflowId(null);
+    setCurrentWorkflowVersion(null);
     setView('canvas');
   }, []);
 
@@ -24,9 +24,25 @@ interface WorkflowsListProps {
 
 const WorkflowsList: React.FC<WorkflowsListProps> = ({ onSelectWorkflow, onCreateNew, authToken, orgId }) => {
   const [workflows, setWorkflows] = useState<Workflow[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState<string | null>(null);
 
+  // Summaries carry no graph; the full workflow is fetched when one is opened
+  const fetchPage = (cursor: string | null) => {
+    const params = new URLSearchParams({ workspaceId: orgId || '', limit: '50' });
+    if (cursor) {
+      params.set('cursor', cursor);
+    }
+    return fetch(`http://localhost:8080/api/workflows/summaries?${params}`, {
+      headers: {
+        'Authorization': `Bearer ${authToken}`,
+        'X-Org-Id': orgId || '',
+      },
+    });
+  };
+
   const fetchWorkflows = async () => {
     if (!authToken || !orgId) {
       setLoading(false);
@@ -37,15 +53,11 @@ const WorkflowsList: React.FC<WorkflowsListProps> = ({ onSelectWorkflow, onCreat
     try {
       setLoading(true);
       setError(null);
-      const response = await fetch(`http://localhost:8080/api/workflows?workspaceId=${orgId}`, {
-        headers: {
-          'Authorization': `Bearer ${authToken}`,
-          'X-Org-Id': orgId || '',
-        },
-      });
+      const response = await fetchPage(null);
       if (response.ok) {
         const data = await response.json();
-        setWorkflows(data);
+        setWorkflows(data.items);
+        setNextCursor(data.nextCursor);
       } else if (response.status === 401) {
         setError('Please login to view workflows');
       } else {
@@ -59,6 +71,26 @@ const WorkflowsList: React.FC<WorkflowsListProps> = ({ onSelectWorkflow, onCreat
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    try {
+      setLoadingMore(true);
+      const response = await fetchPage(nextCursor);
+      if (response.ok) {
+        const data = await response.json();
+        setWorkflows((current) => [...current, ...data.items]);
+        setNextCursor(data.nextCursor);
+      } else {
+        setError('Failed to load workflows');
+      }
+    } catch (err) {
+      setError('Error connecting to server');
+      console.error('Error fetching workflows:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     fetchWorkflows();
   }, [authToken, orgId]);
@@ -178,6 +210,13 @@ const WorkflowsList: React.FC<WorkflowsListProps> = ({ onSelectWorkflow, onCreat
           ))}
         </div>
       )}
+      {nextCursor && (
+        <div className="load-more">
+          <button className="refresh-button" onClick={loadMore} disabled={loadingMore}>
+            {loadingMore ? 'Loading...' : 'Load More'}
+          </button>
+        </div>
+      )}
     </div>
   );
 };
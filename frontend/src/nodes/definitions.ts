@@ -21,6 +21,29 @@ export interface NodeDefinition {
   fields: NodeField[];
 }
 
+// Retry policy of action nodes; empty fields use the runner's defaults
+const RETRY_FIELDS: NodeField[] = [
+  {
+    key: 'retries',
+    label: 'Retries',
+    type: 'number',
+    placeholder: '0',
+  },
+  {
+    key: 'retryBackoff',
+    label: 'Retry Backoff (seconds)',
+    type: 'number',
+    placeholder: '1',
+  },
+  {
+    key: 'retryOn',
+    label: 'Retry On',
+    type: 'select',
+    options: ['transient', 'any'],
+    placeholder: 'transient',
+  },
+];
+
 export const NODE_DEFINITIONS: Record<string, NodeDefinition> = {
   webhookTrigger: {
     id: 'webhookTrigger',
@@ -105,6 +128,26 @@ export const NODE_DEFINITIONS: Record<string, NodeDefinition> = {
         type: 'number',
         placeholder: '30',
       },
+      {
+        key: 'stream',
+        label: 'Stream Pages',
+        type: 'select',
+        options: ['off', 'on'],
+        placeholder: 'off',
+      },
+      {
+        key: 'recordsPath',
+        label: 'Records Path',
+        type: 'text',
+        placeholder: 'data.items',
+      },
+      {
+        key: 'nextPath',
+        label: 'Next Page Path',
+        type: 'text',
+        placeholder: 'Link header',
+      },
+      ...RETRY_FIELDS,
     ],
   },
   transform: {
@@ -120,6 +163,13 @@ export const NODE_DEFINITIONS: Record<string, NodeDefinition> = {
         placeholder: 'return { foo: input.bar }',
         required: true,
       },
+      {
+        key: 'stream',
+        label: 'Per Record (stream)',
+        type: 'select',
+        options: ['off', 'on'],
+        placeholder: 'off',
+      },
     ],
   },
   ifCondition: {
@@ -155,6 +205,20 @@ export const NODE_DEFINITIONS: Record<string, NodeDefinition> = {
         type: 'textarea',
         placeholder: 'INSERT INTO ...',
       },
+      {
+        key: 'batch',
+        label: 'Batch Writes',
+        type: 'select',
+        options: ['off', 'on'],
+        placeholder: 'off',
+      },
+      {
+        key: 'timeout',
+        label: 'Timeout (seconds)',
+        type: 'number',
+        placeholder: '300',
+      },
+      ...RETRY_FIELDS,
     ],
   },
   notification: {
@@ -182,6 +246,7 @@ export const NODE_DEFINITIONS: Record<string, NodeDefinition> = {
         type: 'textarea',
         placeholder: 'Execution finished!',
       },
+      ...RETRY_FIELDS,
     ],
   },
 };
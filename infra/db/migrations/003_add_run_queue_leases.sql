@@ -0,0 +1,15 @@
+-- Migration: Turn the runs table into a durable work queue
+-- Runner replicas claim runs with FOR UPDATE SKIP LOCKED and hold them under a renewable lease
+
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS graph_json JSONB;
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(255);
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+
+-- Only claimable rows are indexed, so the claim query stays cheap as finished runs accumulate
+CREATE INDEX IF NOT EXISTS idx_runs_claimable ON runs(started_at)
+    WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX IF NOT EXISTS idx_runs_lease_owner ON runs(lease_owner)
+    WHERE lease_owner IS NOT NULL;
+
+-- Note: runner workers claim runs across all orgs and must connect with a role that bypasses RLS
@@ -0,0 +1,10 @@
+-- Migration: Append-only event log per run for resumable run streams
+-- Each row is a stream message exactly as published; seq is dense and increasing per run
+
+CREATE TABLE IF NOT EXISTS run_events (
+    run_id UUID NOT NULL,
+    seq BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (run_id, seq)
+);
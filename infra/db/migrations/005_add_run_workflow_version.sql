@@ -0,0 +1,8 @@
+-- Migration: Runs reference the saved workflow version they execute
+-- The runner caches one compiled plan per (workflow_id, version) instead of copying the graph per run
+
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS workflow_version INTEGER;
+
+-- Plans are loaded by (workflow_id, version) on a cache miss
+CREATE INDEX IF NOT EXISTS idx_workflow_versions_workflow_version
+    ON workflow_versions(workflow_id, version);
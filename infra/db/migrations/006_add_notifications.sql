@@ -0,0 +1,20 @@
+-- Migration: Outbox of messages sent by notification nodes
+-- A step completes once its row is committed; runner replicas claim due rows with FOR UPDATE SKIP LOCKED
+-- and deliver them per channel, moving next_attempt_at forward as a lease while a row is in flight
+
+CREATE TABLE IF NOT EXISTS notifications (
+    id UUID PRIMARY KEY,
+    node_id VARCHAR(255),
+    channel VARCHAR(50) NOT NULL,
+    target VARCHAR(1000) NOT NULL,
+    message TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_notifications_due ON notifications(next_attempt_at)
+    WHERE status = 'PENDING';
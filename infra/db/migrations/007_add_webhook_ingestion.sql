@@ -0,0 +1,18 @@
+-- Migration: Webhook-triggered runs
+-- input_json carries the request that triggered a run; runner replicas keep an in-memory webhook routing
+-- table built from the current version of each workflow and reload a workflow when notified here
+
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS input_json JSONB;
+
+CREATE OR REPLACE FUNCTION notify_workflow_changed() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('workflow_changes', NEW.id::text);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Notifications are delivered on commit, so listeners see the new version row as well
+DROP TRIGGER IF EXISTS workflows_notify_changed ON workflows;
+CREATE TRIGGER workflows_notify_changed
+    AFTER INSERT OR UPDATE OF version, status ON workflows
+    FOR EACH ROW EXECUTE FUNCTION notify_workflow_changed();
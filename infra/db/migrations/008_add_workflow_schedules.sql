@@ -0,0 +1,11 @@
+-- Migration: Schedule trigger state
+-- The leading runner replica (holder of a Postgres advisory lock) moves last_fired_at forward in the
+-- transaction that inserts each scheduled run; a new leader resumes every schedule from it
+
+CREATE TABLE IF NOT EXISTS workflow_schedules (
+    id UUID PRIMARY KEY,
+    workflow_id UUID NOT NULL,
+    node_id VARCHAR(255) NOT NULL,
+    last_fired_at TIMESTAMP NOT NULL,
+    UNIQUE (workflow_id, node_id)
+);
@@ -0,0 +1,9 @@
+-- Migration: Run cancellation
+-- A running run is cancelled by flagging it here; the replica holding its lease polls for flagged runs
+-- it owns and stops them, so a cancel request may reach any replica
+
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS cancel_requested_at TIMESTAMP;
+
+-- Only runs with a pending cancellation are indexed, so the owners' polls stay cheap
+CREATE INDEX IF NOT EXISTS idx_runs_cancel_requested ON runs(lease_owner)
+    WHERE cancel_requested_at IS NOT NULL AND status = 'RUNNING';
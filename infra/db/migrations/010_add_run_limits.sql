@@ -0,0 +1,22 @@
+-- Migration: Per-org and per-workflow run limits
+-- Runner replicas admit pending runs org by org with deficit round-robin, weighted by org, and never
+-- beyond the running limits below. Rows override the configured defaults; a NULL column keeps the default
+
+CREATE TABLE IF NOT EXISTS org_run_limits (
+    org_id UUID PRIMARY KEY,
+    -- Runs of the org executing at once, across all replicas
+    max_running INTEGER,
+    -- Pending runs beyond this are rejected with 429
+    max_pending INTEGER,
+    -- Share of admissions relative to other orgs with pending runs
+    weight INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS workflow_run_limits (
+    workflow_id UUID PRIMARY KEY,
+    max_running INTEGER
+);
+
+-- Admission takes the oldest pending runs of one org at a time
+CREATE INDEX IF NOT EXISTS idx_runs_pending_org ON runs(org_id, started_at)
+    WHERE status = 'PENDING';
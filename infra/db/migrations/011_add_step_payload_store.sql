@@ -0,0 +1,18 @@
+-- Migration: Tiered storage of step input and output
+-- Payloads up to payloads.inline-max-bytes stay in input_json/output_json. Larger ones are addressed by
+-- the SHA-256 of their JSON: up to payloads.compress-max-bytes they are deflated into payload_blobs,
+-- beyond that they are spilled to the blob store. The step keeps only their location and size
+
+ALTER TABLE step_runs ADD COLUMN IF NOT EXISTS input_location VARCHAR(80);
+ALTER TABLE step_runs ADD COLUMN IF NOT EXISTS output_location VARCHAR(80);
+-- Bytes of the JSON, whichever tier holds it
+ALTER TABLE step_runs ADD COLUMN IF NOT EXISTS input_size BIGINT;
+ALTER TABLE step_runs ADD COLUMN IF NOT EXISTS output_size BIGINT;
+
+-- Shared by every step with the same payload, e.g. a step passing on its input unchanged
+CREATE TABLE IF NOT EXISTS payload_blobs (
+    hash VARCHAR(64) PRIMARY KEY,
+    data BYTEA NOT NULL,
+    size BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
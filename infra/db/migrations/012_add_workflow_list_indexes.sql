@@ -0,0 +1,9 @@
+-- Migration: Indexes for the workflow summary listing
+-- GET /api/workflows/summaries pages through a workspace by (sort key, id) and starts each page past the
+-- last row of the previous one, so every sort it offers is an index range scan in either direction
+
+CREATE INDEX IF NOT EXISTS idx_workflows_workspace_updated ON workflows(workspace_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_workflows_workspace_created ON workflows(workspace_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_workflows_workspace_name ON workflows(workspace_id, name, id);
+CREATE INDEX IF NOT EXISTS idx_workflows_workspace_status_updated ON workflows(workspace_id, status, updated_at, id);
+
@@ -0,0 +1,11 @@
+-- Migration: Store workflow versions as JSON Patches against full checkpoints
+-- A version whose graph_json is NULL holds in patch_json the RFC 6902 patch from the version before it,
+-- and is rebuilt by applying the patches after its checkpoint, base_version, to that version's graph.
+-- workflow-service writes a checkpoint every flowforge.workflow.versions.checkpoint-interval versions
+
+ALTER TABLE workflow_versions ADD COLUMN IF NOT EXISTS patch_json TEXT;
+ALTER TABLE workflow_versions ADD COLUMN IF NOT EXISTS base_version INTEGER;
+ALTER TABLE workflow_versions ALTER COLUMN graph_json DROP NOT NULL;
+
+-- Every version saved so far holds its full graph
+UPDATE workflow_versions SET base_version = version WHERE base_version IS NULL;
@@ -0,0 +1,16 @@
+-- Migration: One row per workflow version
+-- Concurrent saves used to read the same current version and both write the next one. workflow-service
+-- now advances workflows.version atomically; the constraint rejects any duplicate that gets past it
+
+-- Keep the last row written of each duplicated version
+DELETE FROM workflow_versions a
+    USING workflow_versions b
+    WHERE a.workflow_id = b.workflow_id
+      AND a.version = b.version
+      AND (a.created_at, a.id) < (b.created_at, b.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_workflow_versions_workflow_version
+    ON workflow_versions(workflow_id, version);
+
+-- Covered by the unique index
+DROP INDEX IF EXISTS idx_workflow_versions_workflow_version;
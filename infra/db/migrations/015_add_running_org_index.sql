@@ -0,0 +1,6 @@
+-- Migration: Running runs by org
+-- Replicas split admissions across orgs on queue counts refreshed every second, then admit an org's runs
+-- under an advisory lock of that org, against its running runs read here
+
+CREATE INDEX IF NOT EXISTS idx_runs_running_org ON runs(org_id, workflow_id)
+    WHERE status = 'RUNNING';
@@ -24,6 +24,10 @@ public class GatewayConfig {
                                 .stripPrefix(1)
                                 .filter(jwtFilter.apply(new JwtAuthenticationGatewayFilterFactory.Config())))
                         .uri("http://localhost:8081"))
+                .route("runner-webhooks", r -> r
+                        .path("/hooks/**")
+                        // No JWT filter for webhooks - they're called by external systems
+                        .uri("http://localhost:8081"))
                 .route("auth-service", r -> r
                         .path("/auth/**", "/api/auth/**")
                         // No JWT filter for auth endpoints - they're public
@@ -0,0 +1,74 @@
+package com.flowforge.runner.expression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of evaluating transform and condition expressions: parsing on every step, walking a
+ * pre-parsed tree, and running the compiled closures cached in the execution plan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionBenchmark {
+    @Param({
+            "return input.order.amount > 100 && input.order.currency == 'USD'",
+            "return { id: input.order.id, total: input.order.amount * (1 + input.tax.rate), "
+                    + "customer: input.customer.name, vip: input.customer.orders >= 10 ? 'yes' : 'no' }"
+    })
+    public String source;
+
+    private Map<String, Object> input;
+    private Ast.Node tree;
+    private CompiledExpression compiled;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("id", "ord-42");
+        order.put("amount", 250L);
+        order.put("currency", "USD");
+        order.put("lines", List.of(Map.of("sku", "A", "qty", 2L), Map.of("sku", "B", "qty", 1L)));
+        Map<String, Object> customer = new LinkedHashMap<>();
+        customer.put("name", "Ada");
+        customer.put("orders", 12L);
+        input = new LinkedHashMap<>();
+        input.put("order", order);
+        input.put("customer", customer);
+        input.put("tax", Map.of("rate", 0.2));
+        tree = Parser.parse(source);
+        compiled = Expressions.compile(source);
+    }
+
+    @Benchmark
+    public Object parseAndInterpret() {
+        return Interpreter.evaluate(Parser.parse(source), input);
+    }
+
+    @Benchmark
+    public Object interpret() {
+        return Interpreter.evaluate(tree, input);
+    }
+
+    @Benchmark
+    public Object compiled() {
+        return compiled.evaluate(input);
+    }
+}
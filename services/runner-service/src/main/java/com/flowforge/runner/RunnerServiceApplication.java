@@ -2,8 +2,10 @@ package com.flowforge.runner;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RunnerServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(RunnerServiceApplication.class, args);
@@ -1,16 +1,82 @@
 package com.flowforge.runner.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 @Configuration
 public class AppConfig {
     @Bean
     public ObjectMapper objectMapper() {
-        return new ObjectMapper();
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     }
-}
 
+    /**
+     * Steps are mostly I/O-bound (HTTP, JDBC), so this pool is sized well above the core count and kept
+     * separate from the run pool; per-run parallelism is bounded by the DAG scheduler, not by this pool.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService stepExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.step-threads:64}") int stepThreads) {
+        ExecutorService pool = Executors.newFixedThreadPool(stepThreads, new CustomizableThreadFactory("step-"));
+        return ExecutorServiceMetrics.monitor(meterRegistry, pool, "flowforge.steps");
+    }
 
+    /**
+     * Holds step and run deadlines and steps waiting to be retried. It only hands work back to the step
+     * pool when a backoff has passed or a deadline expired, so one thread serves every waiting step.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService stepTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("step-timer-"));
+        // Deadlines are mostly cancelled long before they expire
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
 
+    /**
+     * Runs response handling of the shared {@link HttpClient}; the client itself waits on sockets with
+     * a single selector thread, so this pool stays small.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService httpClientExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.http.threads:4}") int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("http-"));
+        return ExecutorServiceMetrics.monitor(meterRegistry, pool, "flowforge.http");
+    }
+
+    /**
+     * Shared by all HTTP Request nodes so connections are pooled per host and, with HTTP/2, requests to
+     * the same host are multiplexed over one connection.
+     */
+    @Bean
+    public HttpClient httpClient(
+            @Qualifier("httpClientExecutor") ExecutorService httpClientExecutor,
+            @Value("${flowforge.runner.http.version:HTTP_2}") HttpClient.Version version,
+            @Value("${flowforge.runner.http.connect-timeout-ms:5000}") long connectTimeoutMillis) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(httpClientExecutor)
+                .build();
+    }
+}
@@ -1,14 +1,41 @@
 package com.flowforge.runner.config;
 
+import com.flowforge.runner.events.RunStreamFanout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * Run streams are not routed through the simple broker: {@link RunStreamFanout} receives events from
+ * the cross-replica event bus and writes them straight to the outbound channel of each subscriber.
+ * The broker is kept for subscription bookkeeping and any other {@code /topic} destinations.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final RunStreamFanout runStreamFanout;
+    private final int sendTimeLimit;
+    private final int sendBufferSizeLimit;
+    private final int outboundThreads;
+
+    @Autowired
+    public WebSocketConfig(
+            RunStreamFanout runStreamFanout,
+            @Value("${flowforge.runner.websocket.send-time-limit-ms:10000}") int sendTimeLimit,
+            @Value("${flowforge.runner.websocket.send-buffer-size-limit:524288}") int sendBufferSizeLimit,
+            @Value("${flowforge.runner.websocket.outbound-threads:8}") int outboundThreads) {
+        this.runStreamFanout = runStreamFanout;
+        this.sendTimeLimit = sendTimeLimit;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.outboundThreads = outboundThreads;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
@@ -21,7 +48,17 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
-}
-
 
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(outboundThreads).maxPoolSize(outboundThreads);
+        registration.interceptors(runStreamFanout);
+    }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Sessions that cannot drain within these limits are closed instead of buffering without bound
+        registration.setSendTimeLimit(sendTimeLimit);
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+}
@@ -2,13 +2,19 @@ package com.flowforge.runner.controller;
 
 import com.flowforge.runner.dto.CreateRunRequest;
 import com.flowforge.runner.dto.RunResponse;
+import com.flowforge.runner.engine.RunRejectedException;
+import com.flowforge.runner.service.RunNotFoundException;
 import com.flowforge.runner.service.RunService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.UUID;
 
 @RestController
@@ -23,9 +29,18 @@ public class RunController {
     }
 
     @PostMapping
-    public ResponseEntity<RunResponse> createRun(@Valid @RequestBody CreateRunRequest request) {
-        RunResponse response = runService.createRun(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    public ResponseEntity<RunResponse> createRun(
+            @Valid @RequestBody CreateRunRequest request,
+            @RequestHeader(value = "X-Org-Id", required = false) String orgIdHeader) {
+        try {
+            UUID orgId = orgIdHeader == null || orgIdHeader.isBlank() ? null : UUID.fromString(orgIdHeader);
+            RunResponse response = runService.createRun(request, orgId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (RunRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{runId}")
@@ -33,11 +48,36 @@ public class RunController {
         try {
             RunResponse response = runService.getRun(runId);
             return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
+        } catch (RunNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
-}
 
+    @PostMapping("/{runId}/cancel")
+    public ResponseEntity<RunResponse> cancelRun(@PathVariable UUID runId) {
+        try {
+            RunResponse response = runService.cancelRun(runId);
+            return ResponseEntity.accepted().body(response);
+        } catch (RunNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
 
+    @GetMapping(value = "/{runId}/events", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getRunEvents(@PathVariable UUID runId,
+                                               @RequestParam(defaultValue = "1") long fromSeq) {
+        return ResponseEntity.ok(runService.getRunEvents(runId, fromSeq));
+    }
 
+    @GetMapping(value = "/{runId}/steps/{stepId}/{payload}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Resource> getStepPayload(@PathVariable UUID runId, @PathVariable UUID stepId,
+                                                   @PathVariable String payload) {
+        if (!payload.equals("input") && !payload.equals("output")) {
+            return ResponseEntity.notFound().build();
+        }
+        InputStream json = runService.getStepPayload(runId, stepId, payload.equals("input"));
+        return json == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(new InputStreamResource(json));
+    }
+}
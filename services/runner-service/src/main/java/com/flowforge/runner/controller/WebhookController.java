@@ -0,0 +1,130 @@
+package com.flowforge.runner.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowforge.runner.engine.RunRejectedException;
+import com.flowforge.runner.webhooks.WebhookIngestor;
+import com.flowforge.runner.webhooks.WebhookRoute;
+import com.flowforge.runner.webhooks.WebhookRoutes;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Receives webhook calls and answers 202 with the run id once the run is durably queued. The
+ * request is handed to the run's trigger as {@code {"method", "path", "headers", "query", "body"}}.
+ */
+@RestController
+@RequestMapping("/hooks")
+public class WebhookController {
+    // Credentials of the caller are not kept in run input
+    private static final Set<String> DROPPED_HEADERS = Set.of("authorization", "cookie", "proxy-authorization");
+
+    private final WebhookRoutes routes;
+    private final WebhookIngestor ingestor;
+    private final ObjectMapper objectMapper;
+    private final int maxBodyBytes;
+
+    @Autowired
+    public WebhookController(
+            WebhookRoutes routes,
+            WebhookIngestor ingestor,
+            ObjectMapper objectMapper,
+            @Value("${flowforge.runner.webhooks.max-body-bytes:1048576}") int maxBodyBytes) {
+        this.routes = routes;
+        this.ingestor = ingestor;
+        this.objectMapper = objectMapper;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @RequestMapping(value = "/**", method = {RequestMethod.GET, RequestMethod.POST})
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> receive(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length() + "/hooks".length());
+        WebhookRoute route = routes.resolve(request.getMethod(), path);
+        if (route == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        // Rejected before reading when declared too large; a chunked body is read only up to the limit
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+        String input;
+        try {
+            byte[] body = new ServletServerHttpRequest(request).getBody().readNBytes(maxBodyBytes + 1);
+            if (body.length > maxBodyBytes) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+            }
+            input = toInput(request, route, body);
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return ingestor.enqueue(route, input).handle((runId, error) -> {
+            if (error == null) {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("runId", runId);
+                return ResponseEntity.accepted().body(response);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            return cause instanceof RunRejectedException
+                    ? ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build()
+                    : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+    }
+
+    private String toInput(HttpServletRequest request, WebhookRoute route, byte[] body) throws IOException {
+        Map<String, Object> headers = new LinkedHashMap<>();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            String key = name.toLowerCase(Locale.ROOT);
+            if (!DROPPED_HEADERS.contains(key)) {
+                headers.putIfAbsent(key, request.getHeader(name));
+            }
+        }
+        Map<String, Object> input = new LinkedHashMap<>();
+        input.put("method", route.getMethod());
+        input.put("path", route.getPath());
+        input.put("headers", headers);
+        input.put("query", query(request.getQueryString()));
+        input.put("body", body(request.getContentType(), body));
+        return objectMapper.writeValueAsString(input);
+    }
+
+    private Object body(String contentType, byte[] body) throws IOException {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json")) {
+            return objectMapper.readTree(body);
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> query(String queryString) {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (queryString == null || queryString.isEmpty()) {
+            return query;
+        }
+        for (String pair : queryString.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            query.putIfAbsent(name, value);
+        }
+        return query;
+    }
+}
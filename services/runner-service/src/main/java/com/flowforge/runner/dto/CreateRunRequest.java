@@ -10,8 +10,14 @@ public class CreateRunRequest {
 
     private UUID triggeredBy;
 
+    // Saved version to run; when absent the graph is taken from the request
+    private Integer version;
+
     private Map<String, Object> graph;
 
+    // Input of the trigger nodes
+    private Map<String, Object> input;
+
     public UUID getWorkflowId() {
         return workflowId;
     }
@@ -28,6 +34,14 @@ public class CreateRunRequest {
         this.triggeredBy = triggeredBy;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     public Map<String, Object> getGraph() {
         return graph;
     }
@@ -35,7 +49,12 @@ public class CreateRunRequest {
     public void setGraph(Map<String, Object> graph) {
         this.graph = graph;
     }
-}
-
 
+    public Map<String, Object> getInput() {
+        return input;
+    }
 
+    public void setInput(Map<String, Object> input) {
+        this.input = input;
+    }
+}
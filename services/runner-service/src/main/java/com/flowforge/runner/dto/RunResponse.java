@@ -9,11 +9,13 @@ import java.util.UUID;
 public class RunResponse {
     private UUID id;
     private UUID workflowId;
+    private Integer workflowVersion;
     private Run.RunStatus status;
     private LocalDateTime startedAt;
     private LocalDateTime finishedAt;
     private UUID triggeredBy;
     private String errorMessage;
+    private LocalDateTime cancelRequestedAt;
     private List<StepRun> steps;
 
     public RunResponse() {}
@@ -21,11 +23,13 @@ public class RunResponse {
     public RunResponse(Run run, List<StepRun> steps) {
         this.id = run.getId();
         this.workflowId = run.getWorkflowId();
+        this.workflowVersion = run.getWorkflowVersion();
         this.status = run.getStatus();
         this.startedAt = run.getStartedAt();
         this.finishedAt = run.getFinishedAt();
         this.triggeredBy = run.getTriggeredBy();
         this.errorMessage = run.getErrorMessage();
+        this.cancelRequestedAt = run.getCancelRequestedAt();
         this.steps = steps;
     }
 
@@ -45,6 +49,14 @@ public class RunResponse {
         this.workflowId = workflowId;
     }
 
+    public Integer getWorkflowVersion() {
+        return workflowVersion;
+    }
+
+    public void setWorkflowVersion(Integer workflowVersion) {
+        this.workflowVersion = workflowVersion;
+    }
+
     public Run.RunStatus getStatus() {
         return status;
     }
@@ -85,6 +97,14 @@ public class RunResponse {
         this.errorMessage = errorMessage;
     }
 
+    public LocalDateTime getCancelRequestedAt() {
+        return cancelRequestedAt;
+    }
+
+    public void setCancelRequestedAt(LocalDateTime cancelRequestedAt) {
+        this.cancelRequestedAt = cancelRequestedAt;
+    }
+
     public List<StepRun> getSteps() {
         return steps;
     }
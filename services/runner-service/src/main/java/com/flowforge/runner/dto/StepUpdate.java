@@ -1,5 +1,6 @@
 package com.flowforge.runner.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.flowforge.runner.model.StepRun;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -11,6 +12,11 @@ public class StepUpdate {
     private StepRun.StepStatus status;
     private String inputJson;
     private String outputJson;
+    // Set instead of the JSON when the payload is stored out of line
+    private String inputRef;
+    private String outputRef;
+    private Long inputSize;
+    private Long outputSize;
     private LocalDateTime startedAt;
     private LocalDateTime finishedAt;
     private String error;
@@ -25,6 +31,10 @@ public class StepUpdate {
         this.status = stepRun.getStatus();
         this.inputJson = stepRun.getInputJson();
         this.outputJson = stepRun.getOutputJson();
+        this.inputRef = stepRun.getInputRef();
+        this.outputRef = stepRun.getOutputRef();
+        this.inputSize = inputRef == null ? null : stepRun.getInputSize();
+        this.outputSize = outputRef == null ? null : stepRun.getOutputSize();
         this.startedAt = stepRun.getStartedAt();
         this.finishedAt = stepRun.getFinishedAt();
         this.error = stepRun.getError();
@@ -79,6 +89,42 @@ public class StepUpdate {
         this.outputJson = outputJson;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getInputRef() {
+        return inputRef;
+    }
+
+    public void setInputRef(String inputRef) {
+        this.inputRef = inputRef;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getOutputRef() {
+        return outputRef;
+    }
+
+    public void setOutputRef(String outputRef) {
+        this.outputRef = outputRef;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getInputSize() {
+        return inputSize;
+    }
+
+    public void setInputSize(Long inputSize) {
+        this.inputSize = inputSize;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getOutputSize() {
+        return outputSize;
+    }
+
+    public void setOutputSize(Long outputSize) {
+        this.outputSize = outputSize;
+    }
+
     public LocalDateTime getStartedAt() {
         return startedAt;
     }
@@ -111,6 +157,3 @@ public class StepUpdate {
         this.retryCount = retryCount;
     }
 }
-
-
-
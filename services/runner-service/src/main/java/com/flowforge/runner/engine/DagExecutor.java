@@ -0,0 +1,51 @@
+package com.flowforge.runner.engine;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+@Component
+public class DagExecutor {
+    private final Executor stepExecutor;
+    private final ScheduledExecutorService stepTimer;
+    private final int maxParallelSteps;
+    private final long runTimeoutMillis;
+
+    @Autowired
+    public DagExecutor(
+            @Qualifier("stepExecutor") Executor stepExecutor,
+            @Qualifier("stepTimer") ScheduledExecutorService stepTimer,
+            @Value("${flowforge.runner.max-parallel-steps:8}") int maxParallelSteps,
+            @Value("${flowforge.runner.run-timeout-ms:3600000}") long runTimeoutMillis) {
+        this.stepExecutor = stepExecutor;
+        this.stepTimer = stepTimer;
+        this.maxParallelSteps = maxParallelSteps;
+        this.runTimeoutMillis = runTimeoutMillis;
+    }
+
+    /**
+     * Executes the plan, running independent branches concurrently. The run's completion future
+     * completes when every node has completed, or exceptionally with a {@link StepExecutionException}.
+     */
+    public RunExecution execute(ExecutionPlan plan, Map<String, Object> triggerInput, StepListener listener) {
+        return execute(plan, triggerInput, Map.of(), listener);
+    }
+
+    /**
+     * Resumes a run: nodes present in {@code completedOutputs} are treated as already done and their
+     * recorded outputs are fed to downstream nodes instead of executing them again. The run deadline
+     * counts from here, not from the run's first attempt.
+     */
+    public RunExecution execute(ExecutionPlan plan,
+                                Map<String, Object> triggerInput,
+                                Map<String, Map<String, Object>> completedOutputs,
+                                StepListener listener) {
+        return new DagRun(plan, triggerInput, completedOutputs, listener, stepExecutor, stepTimer,
+                maxParallelSteps, runTimeoutMillis).start();
+    }
+}
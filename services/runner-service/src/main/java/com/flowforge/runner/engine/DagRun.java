@@ -0,0 +1,657 @@
+package com.flowforge.runner.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Scheduling state of a single workflow run. A step becomes ready once all of its predecessors have
+ * finished and at least one of them activated it; a step none of its predecessors activated is
+ * skipped, and so are its successors in turn. Ready steps are dispatched to the step executor with at
+ * most {@code maxParallelSteps} in flight; a step waiting on asynchronous I/O counts as in flight but
+ * does not hold a step thread. A failed step its retry policy allows to be attempted again waits out
+ * its backoff on the timer, still in flight but without a thread. The first failure stops new
+ * dispatches, abandons pending retries and fails the run once in-flight steps drain.
+ * <p>
+ * Each attempt is bounded by its step's timeout and the run by its deadline, both kept on the timer.
+ * An attempt that times out is cancelled and fails with a {@link TimeoutException}, which its retry
+ * policy may retry; a run that reaches its deadline is cancelled as a whole. The timeout of a step
+ * consuming a stream restarts with every chunk it takes.
+ * <p>
+ * A streaming step releases its successor as soon as its attempt returned a {@link RecordStream}, and
+ * stays open, outside the parallelism bound, until the stream ends; only then is it recorded as
+ * completed. An open stream is cancelled when the run fails and when its consumer finishes without
+ * reading it to the end. A recovered streaming step whose successor did not complete is run again,
+ * since its records cannot be read a second time.
+ */
+class DagRun implements RunExecution {
+    private final ExecutionPlan plan;
+    private final Map<String, Object> triggerInput;
+    private final StepListener listener;
+    private final Executor stepExecutor;
+    private final ScheduledExecutorService timer;
+    private final int maxParallelSteps;
+    private final long runTimeoutMillis;
+
+    private final AtomicReferenceArray<Map<String, Object>> outputs;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    // Guarded by this; every step is queued at most once, so the ready queue never wraps
+    private final int[] remainingPredecessors;
+    private final int[] activations;
+    private final boolean[] active;
+    private final int[] ready;
+    private final ScheduledFuture<?>[] retries;
+    private final Throwable[] retryErrors;
+    private final Attempt[] attempts;
+    private final RecordStream[] streams;
+    private int readyHead;
+    private int readyTail;
+    private int inFlight;
+    private int openStreams;
+    private int finished;
+    private Throwable failure;
+    private RuntimeException cancelled;
+
+    DagRun(ExecutionPlan plan,
+           Map<String, Object> triggerInput,
+           Map<String, Map<String, Object>> completedOutputs,
+           StepListener listener,
+           Executor stepExecutor,
+           ScheduledExecutorService timer,
+           int maxParallelSteps,
+           long runTimeoutMillis) {
+        this.plan = plan;
+        this.triggerInput = triggerInput;
+        this.listener = listener;
+        this.stepExecutor = stepExecutor;
+        this.timer = timer;
+        this.maxParallelSteps = Math.max(1, maxParallelSteps);
+        this.runTimeoutMillis = runTimeoutMillis;
+        this.outputs = new AtomicReferenceArray<>(plan.size());
+        this.remainingPredecessors = new int[plan.size()];
+        this.activations = new int[plan.size()];
+        this.active = new boolean[plan.size()];
+        this.ready = new int[plan.size()];
+        this.retries = new ScheduledFuture<?>[plan.size()];
+        this.retryErrors = new Throwable[plan.size()];
+        this.attempts = new Attempt[plan.size()];
+        this.streams = new RecordStream[plan.size()];
+        completedOutputs.forEach((nodeId, output) -> {
+            int index = plan.indexOf(nodeId);
+            if (index >= 0) {
+                outputs.set(index, output);
+            }
+        });
+        // In reverse order, so a chain of streaming steps runs again as a whole
+        for (int i = plan.size() - 1; i >= 0; i--) {
+            if (outputs.get(i) != null && plan.getStep(i).isStreaming()) {
+                for (int next : plan.getStep(i).successors()) {
+                    if (outputs.get(next) == null) {
+                        outputs.set(i, null);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    DagRun start() {
+        if (runTimeoutMillis > 0) {
+            try {
+                ScheduledFuture<?> deadline = timer.schedule(
+                        () -> onStepPool(() -> cancel(new RunTimeoutException(
+                                "Run exceeded its deadline of " + runTimeoutMillis + " ms"))),
+                        runTimeoutMillis, TimeUnit.MILLISECONDS);
+                completion.whenComplete((result, error) -> deadline.cancel(false));
+            } catch (RejectedExecutionException e) {
+                completion.completeExceptionally(e);
+                return this;
+            }
+        }
+        List<ExecutionPlan.Step> skipped = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < plan.size(); i++) {
+                remainingPredecessors[i] = plan.getStep(i).predecessors().length;
+            }
+            // Steps are in topological order, so recovered steps are replayed before their successors
+            for (int i = 0; i < plan.size(); i++) {
+                Map<String, Object> output = outputs.get(i);
+                if (output != null) {
+                    finish(i, plan.getStep(i).activatesSuccessors(output), skipped);
+                } else if (plan.getStep(i).predecessors().length == 0) {
+                    ready[readyTail++] = i;
+                }
+            }
+        }
+        notifySkipped(skipped);
+        if (!completeIfDone()) {
+            dispatch();
+        }
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    @Override
+    public void cancel(RuntimeException reason) {
+        List<Attempt> running = new ArrayList<>();
+        List<Integer> abandoned;
+        List<RecordStream> open;
+        synchronized (this) {
+            if (completion.isDone()) {
+                return;
+            }
+            if (failure == null) {
+                failure = reason;
+            }
+            cancelled = reason;
+            for (Attempt attempt : attempts) {
+                if (attempt != null) {
+                    running.add(attempt);
+                }
+            }
+            abandoned = cancelRetries();
+            open = openStreams();
+        }
+        for (Attempt attempt : running) {
+            attempt.abort(reason);
+        }
+        for (RecordStream stream : open) {
+            stream.cancel(reason);
+        }
+        for (int index : abandoned) {
+            abandon(index, reason);
+        }
+        completeIfDone();
+    }
+
+    private void dispatch() {
+        while (true) {
+            int index;
+            synchronized (this) {
+                if (failure != null || inFlight >= maxParallelSteps || readyHead == readyTail) {
+                    return;
+                }
+                index = ready[readyHead++];
+                inFlight++;
+            }
+            try {
+                stepExecutor.execute(() -> runStep(index));
+            } catch (RuntimeException e) {
+                onStepFinished(index, e, false);
+            }
+        }
+    }
+
+    private void runStep(int index) {
+        ExecutionPlan.Step step = plan.getStep(index);
+        Map<String, Object> input = resolveInput(step);
+        try {
+            listener.onStepStarted(step.getNode(), input);
+        } catch (Throwable e) {
+            // The step could not be recorded, so its node is not run and the failure is not retried
+            notifyFailed(step, e);
+            onStepFinished(index, e, false);
+            return;
+        }
+        attempt(index, input, 1);
+    }
+
+    private void attempt(int index, Map<String, Object> input, int number) {
+        ExecutionPlan.Step step = plan.getStep(index);
+        Attempt attempt = new Attempt(index, input, number);
+        RuntimeException cancelledBy;
+        RecordStream records;
+        synchronized (this) {
+            cancelledBy = cancelled;
+            if (cancelledBy == null) {
+                attempts[index] = attempt;
+            }
+            records = step.getStreamSource() < 0 ? null : streams[step.getStreamSource()];
+        }
+        if (cancelledBy != null) {
+            attempt.complete(null, cancelledBy);
+            return;
+        }
+        long timeout = step.getTimeoutMillis();
+        if (timeout > 0) {
+            try {
+                scheduleTimeout(attempt, step, timeout);
+            } catch (RejectedExecutionException e) {
+                attempt.complete(null, e);
+                return;
+            }
+            if (records != null) {
+                records.onChunk(() -> {
+                    if (!attempt.done.get()) {
+                        try {
+                            scheduleTimeout(attempt, step, timeout);
+                        } catch (RejectedExecutionException ignored) {
+                            // Shutting down; the attempt keeps its current deadline
+                        }
+                    }
+                });
+            }
+        }
+        CompletableFuture<Map<String, Object>> result;
+        attempt.cancellation.enter();
+        try {
+            result = step.executeAsync(input);
+        } catch (Throwable e) {
+            result = CompletableFuture.failedFuture(e);
+        } finally {
+            attempt.cancellation.exit();
+        }
+        attempt.result = result;
+        if (attempt.aborted) {
+            // Aborted before the result was published; releases what an asynchronous executor holds
+            result.cancel(true);
+        }
+        if (result.isDone()) {
+            result.whenComplete(attempt::complete);
+            return;
+        }
+        // Asynchronous steps complete on their executor's threads; listeners run back on the step pool
+        result.whenComplete((output, error) -> onStepPool(() -> attempt.complete(output, error)));
+    }
+
+    /**
+     * (Re)starts the timeout of an attempt. A stream consumer's is restarted by every chunk it takes.
+     */
+    private void scheduleTimeout(Attempt attempt, ExecutionPlan.Step step, long timeout) {
+        String message = step.getStreamSource() < 0
+                ? "Step " + step.getNode().getId() + " timed out after " + timeout + " ms"
+                : "Step " + step.getNode().getId() + " received no records for " + timeout + " ms";
+        ScheduledFuture<?> previous = attempt.deadline;
+        attempt.deadline = timer.schedule(() -> attempt.abort(new TimeoutException(message)),
+                timeout, TimeUnit.MILLISECONDS);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void completeStep(int index, Map<String, Object> input, int attempt, Map<String, Object> output, Throwable error) {
+        ExecutionPlan.Step step = plan.getStep(index);
+        // Only failures of the node itself are retried, not those of recording its output
+        boolean nodeFailed = error != null;
+        boolean activates = false;
+        if (error == null) {
+            try {
+                outputs.set(index, output == null ? Map.of() : output);
+                activates = step.activatesSuccessors(outputs.get(index));
+                if (step.isStreaming()) {
+                    openStream(index, RecordStream.of(outputs.get(index)), activates);
+                    return;
+                }
+                listener.onStepCompleted(step.getNode(), outputs.get(index));
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            if (nodeFailed && step.shouldRetry(attempt, error) && scheduleRetry(index, input, attempt, error)) {
+                return;
+            }
+            notifyFailed(step, error);
+        }
+        onStepFinished(index, error, activates);
+    }
+
+    /**
+     * Records a step's failure. The step fails whether or not that succeeds, so a listener error is
+     * only attached to the step's; otherwise it would keep the step in flight and the run unfinished.
+     */
+    private void notifyFailed(ExecutionPlan.Step step, Throwable error) {
+        try {
+            listener.onStepFailed(step.getNode(), error);
+        } catch (Throwable e) {
+            if (e != error) {
+                error.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Schedules the next attempt of a failed step after its backoff, unless the run has already failed.
+     * The step stays in flight meanwhile.
+     */
+    private boolean scheduleRetry(int index, Map<String, Object> input, int attempt, Throwable error) {
+        ExecutionPlan.Step step = plan.getStep(index);
+        long delay = step.retryDelayMillis(attempt);
+        synchronized (this) {
+            if (failure != null) {
+                return false;
+            }
+        }
+        // Announced before scheduling, so the retry cannot complete ahead of its announcement
+        try {
+            listener.onStepRetrying(step.getNode(), error, attempt, delay);
+        } catch (Throwable e) {
+            if (e != error) {
+                error.addSuppressed(e);
+            }
+            return false;
+        }
+        synchronized (this) {
+            if (failure != null) {
+                return false;
+            }
+            retryErrors[index] = error;
+            try {
+                retries[index] = timer.schedule(() -> retry(index, input, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                retryErrors[index] = null;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void retry(int index, Map<String, Object> input, int attempt) {
+        Throwable abandoned;
+        synchronized (this) {
+            retries[index] = null;
+            abandoned = failure == null ? null : retryErrors[index];
+        }
+        if (abandoned != null) {
+            abandon(index, abandoned);
+            return;
+        }
+        try {
+            stepExecutor.execute(() -> attempt(index, input, attempt));
+        } catch (RejectedExecutionException e) {
+            completeStep(index, input, attempt, null, e);
+        }
+    }
+
+    /**
+     * Fails a step that was waiting to be retried when the run failed.
+     */
+    private void abandon(int index, Throwable error) {
+        notifyFailed(plan.getStep(index), error);
+        onStepFinished(index, error, false);
+    }
+
+    private Map<String, Object> resolveInput(ExecutionPlan.Step step) {
+        int[] predecessors = step.predecessors();
+        if (predecessors.length == 0) {
+            return triggerInput;
+        }
+        if (predecessors.length == 1) {
+            return outputs.get(predecessors[0]);
+        }
+        // Joins receive the output of each upstream node that activated them, keyed by node id
+        Map<String, Object> merged = new LinkedHashMap<>();
+        synchronized (this) {
+            for (int predecessor : predecessors) {
+                if (active[predecessor]) {
+                    merged.put(plan.getStep(predecessor).getNode().getId(), outputs.get(predecessor));
+                }
+            }
+        }
+        return merged;
+    }
+
+    private void onStepFinished(int index, Throwable error, boolean activates) {
+        List<ExecutionPlan.Step> skipped = new ArrayList<>();
+        List<Integer> abandoned = List.of();
+        List<RecordStream> cancelled = new ArrayList<>();
+        Throwable reason = error;
+        synchronized (this) {
+            inFlight--;
+            if (error != null) {
+                if (failure == null) {
+                    failure = new StepExecutionException(plan.getStep(index).getNode().getId(), error);
+                    abandoned = cancelRetries();
+                    cancelled = openStreams();
+                    reason = failure;
+                }
+            } else {
+                finish(index, activates, skipped);
+                for (int predecessor : plan.getStep(index).predecessors()) {
+                    if (streams[predecessor] != null) {
+                        cancelled.add(streams[predecessor]);
+                    }
+                }
+                reason = new IllegalStateException("Node " + plan.getStep(index).getNode().getId()
+                        + " finished without reading all records");
+            }
+        }
+        for (RecordStream stream : cancelled) {
+            // Does nothing to a stream that has just ended
+            stream.cancel(reason);
+        }
+        notifySkipped(skipped);
+        for (int abandonedIndex : abandoned) {
+            abandon(abandonedIndex, retryErrors[abandonedIndex]);
+        }
+        if (!completeIfDone()) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Releases the successors of a streaming step whose attempt returned its stream. The step leaves
+     * the steps in flight, so its consumer can be dispatched even at the parallelism bound, and stays
+     * open until the stream ends.
+     */
+    private void openStream(int index, RecordStream stream, boolean activates) {
+        List<ExecutionPlan.Step> skipped = new ArrayList<>();
+        Throwable stopped;
+        synchronized (this) {
+            inFlight--;
+            openStreams++;
+            streams[index] = stream;
+            stopped = failure;
+            finish(index, activates, skipped);
+        }
+        if (stopped != null) {
+            stream.cancel(stopped);
+        }
+        stream.completion().whenComplete((ignored, error) -> onStepPool(() -> closeStream(index, error)));
+        notifySkipped(skipped);
+        if (!completeIfDone()) {
+            dispatch();
+        }
+    }
+
+    private void closeStream(int index, Throwable error) {
+        ExecutionPlan.Step step = plan.getStep(index);
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error == null) {
+            try {
+                listener.onStepCompleted(step.getNode(), outputs.get(index));
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            notifyFailed(step, error);
+        }
+        List<Integer> abandoned = List.of();
+        List<RecordStream> cancelled = List.of();
+        Throwable reason = null;
+        synchronized (this) {
+            openStreams--;
+            streams[index] = null;
+            if (error != null && failure == null) {
+                failure = new StepExecutionException(step.getNode().getId(), error);
+                abandoned = cancelRetries();
+                cancelled = openStreams();
+                reason = failure;
+            }
+        }
+        for (RecordStream stream : cancelled) {
+            stream.cancel(reason);
+        }
+        for (int abandonedIndex : abandoned) {
+            abandon(abandonedIndex, retryErrors[abandonedIndex]);
+        }
+        if (!completeIfDone()) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Streams of steps still open. Must hold the lock.
+     */
+    private List<RecordStream> openStreams() {
+        List<RecordStream> open = new ArrayList<>();
+        for (RecordStream stream : streams) {
+            if (stream != null) {
+                open.add(stream);
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Cancels the timers of steps waiting to be retried and returns their indexes. Must hold the lock.
+     */
+    private List<Integer> cancelRetries() {
+        List<Integer> abandoned = new ArrayList<>();
+        for (int i = 0; i < retries.length; i++) {
+            // A retry that could not be cancelled has started and sees the failure itself
+            if (retries[i] != null && retries[i].cancel(false)) {
+                retries[i] = null;
+                abandoned.add(i);
+            }
+        }
+        return abandoned;
+    }
+
+    /**
+     * Marks a step finished and releases its successors, skipping those left without any activation.
+     * Must hold the lock.
+     */
+    private void finish(int index, boolean activates, List<ExecutionPlan.Step> skipped) {
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.add(index);
+        active[index] = activates;
+        while (!pending.isEmpty()) {
+            int current = pending.poll();
+            finished++;
+            for (int next : plan.getStep(current).successors()) {
+                if (active[current]) {
+                    activations[next]++;
+                }
+                if (--remainingPredecessors[next] > 0 || outputs.get(next) != null) {
+                    continue;
+                }
+                if (activations[next] > 0) {
+                    ready[readyTail++] = next;
+                } else {
+                    skipped.add(plan.getStep(next));
+                    pending.add(next);
+                }
+            }
+        }
+    }
+
+    private void notifySkipped(List<ExecutionPlan.Step> skipped) {
+        for (ExecutionPlan.Step step : skipped) {
+            listener.onStepSkipped(step.getNode());
+        }
+    }
+
+    private void onStepPool(Runnable task) {
+        try {
+            stepExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private boolean completeIfDone() {
+        Throwable error;
+        synchronized (this) {
+            if (inFlight > 0 || openStreams > 0 || (failure == null && finished < plan.size())) {
+                return false;
+            }
+            error = failure;
+        }
+        if (error != null) {
+            completion.completeExceptionally(error);
+        } else {
+            completion.complete(null);
+        }
+        return true;
+    }
+
+    /**
+     * An attempt of a step in flight. It completes once: with its result, or when aborted by its timeout
+     * or by cancellation of the run, whichever comes first.
+     */
+    private final class Attempt {
+        private final int index;
+        private final Map<String, Object> input;
+        private final int number;
+        private final StepCancellation cancellation = new StepCancellation();
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile CompletableFuture<Map<String, Object>> result;
+        private volatile ScheduledFuture<?> deadline;
+        private volatile boolean aborted;
+
+        Attempt(int index, Map<String, Object> input, int number) {
+            this.index = index;
+            this.input = input;
+            this.number = number;
+        }
+
+        void complete(Map<String, Object> output, Throwable error) {
+            if (done.compareAndSet(false, true)) {
+                release();
+                completeStep(index, input, number, output, error);
+            }
+        }
+
+        void abort(Throwable reason) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            aborted = true;
+            release();
+            cancellation.cancel();
+            CompletableFuture<Map<String, Object>> pending = result;
+            if (pending != null) {
+                pending.cancel(true);
+            }
+            // Aborts come from the timer or a request thread; listeners run on the step pool
+            onStepPool(() -> completeStep(index, input, number, null, reason));
+        }
+
+        private void release() {
+            ScheduledFuture<?> timeout = deadline;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            synchronized (DagRun.this) {
+                if (attempts[index] == this) {
+                    attempts[index] = null;
+                }
+            }
+        }
+    }
+}
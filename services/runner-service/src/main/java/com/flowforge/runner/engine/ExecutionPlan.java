@@ -0,0 +1,205 @@
+package com.flowforge.runner.engine;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A validated workflow graph compiled for execution: steps are numbered in topological order, edges
+ * are index arrays and every node already has its executor and prepared configuration. Plans are
+ * immutable and shared by all runs of a workflow version.
+ */
+public final class ExecutionPlan {
+    private final Step[] steps;
+    private final Map<String, Integer> indexById;
+
+    private ExecutionPlan(Step[] steps, Map<String, Integer> indexById) {
+        this.steps = steps;
+        this.indexById = indexById;
+    }
+
+    /**
+     * Compiles the graph. A node's {@code timeout} property (seconds) bounds each attempt of its step;
+     * nodes without one get {@code defaultStepTimeoutMillis}, where 0 means no bound. A node streaming
+     * records must have exactly one successor, which consumes them. Records can be read only once, so
+     * their consumer is never retried, and its timeout bounds the time between chunks rather than the
+     * whole stream.
+     */
+    public static ExecutionPlan compile(WorkflowGraph graph, NodeExecutorRegistry registry,
+                                        RetryPolicy defaultRetryPolicy, long defaultStepTimeoutMillis) {
+        List<String> order = graph.getTopologicalOrder();
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            indexById.put(order.get(i), i);
+        }
+        Step[] steps = new Step[order.size()];
+        for (int i = 0; i < steps.length; i++) {
+            GraphNode node = graph.getNode(order.get(i));
+            NodeExecutor<?> executor = registry.getExecutor(node.getType());
+            int[] predecessors = indexes(graph.getPredecessors(node.getId()), indexById);
+            // Predecessors come first in topological order, so their steps are compiled
+            int streamSource = -1;
+            for (int predecessor : predecessors) {
+                if (steps[predecessor].isStreaming()) {
+                    streamSource = predecessor;
+                }
+            }
+            Object config;
+            RetryPolicy retryPolicy;
+            long timeoutMillis;
+            boolean streaming;
+            try {
+                config = executor.prepare(node);
+                retryPolicy = RetryPolicy.of(node, defaultRetryPolicy);
+                if (streamSource >= 0) {
+                    String retries = node.getProperty("retries");
+                    if (retries != null && !retries.isBlank() && retryPolicy.retries()) {
+                        throw new IllegalArgumentException("a node consuming streamed records cannot be retried");
+                    }
+                    retryPolicy = RetryPolicy.NONE;
+                }
+                timeoutMillis = timeoutMillis(node, defaultStepTimeoutMillis);
+                streaming = executor.streamsRecords(node);
+                if (streaming && graph.getSuccessors(node.getId()).size() != 1) {
+                    throw new IllegalArgumentException("a node streaming records needs exactly one successor to consume them");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid configuration of node " + node.getId() + ": " + e.getMessage(), e);
+            }
+            steps[i] = new Step(i, node, executor, config, retryPolicy, timeoutMillis, streaming, streamSource,
+                    indexes(graph.getSuccessors(node.getId()), indexById), predecessors);
+        }
+        return new ExecutionPlan(steps, Map.copyOf(indexById));
+    }
+
+    private static long timeoutMillis(GraphNode node, long defaultMillis) {
+        String timeout = node.getProperty("timeout");
+        if (timeout == null || timeout.isBlank()) {
+            return defaultMillis;
+        }
+        try {
+            double seconds = Double.parseDouble(timeout.trim());
+            if (seconds <= 0) {
+                throw new IllegalArgumentException("timeout must be positive: " + timeout);
+            }
+            return (long) Math.ceil(seconds * 1000);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid timeout: " + timeout);
+        }
+    }
+
+    private static int[] indexes(List<String> ids, Map<String, Integer> indexById) {
+        int[] result = new int[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indexById.get(ids.get(i));
+        }
+        return result;
+    }
+
+    public int size() {
+        return steps.length;
+    }
+
+    public Step getStep(int index) {
+        return steps[index];
+    }
+
+    /**
+     * Returns the index of the node's step, or -1 if the plan has no such node.
+     */
+    public int indexOf(String nodeId) {
+        Integer index = indexById.get(nodeId);
+        return index == null ? -1 : index;
+    }
+
+    public static final class Step {
+        private final int index;
+        private final GraphNode node;
+        private final NodeExecutor<?> executor;
+        private final Object config;
+        private final RetryPolicy retryPolicy;
+        private final long timeoutMillis;
+        private final boolean streaming;
+        private final int streamSource;
+        private final int[] successors;
+        private final int[] predecessors;
+
+        private Step(int index, GraphNode node, NodeExecutor<?> executor, Object config, RetryPolicy retryPolicy,
+                     long timeoutMillis, boolean streaming, int streamSource, int[] successors, int[] predecessors) {
+            this.index = index;
+            this.node = node;
+            this.executor = executor;
+            this.config = config;
+            this.retryPolicy = retryPolicy;
+            this.timeoutMillis = timeoutMillis;
+            this.streaming = streaming;
+            this.streamSource = streamSource;
+            this.successors = successors;
+            this.predecessors = predecessors;
+        }
+
+        @SuppressWarnings("unchecked")
+        public CompletableFuture<Map<String, Object>> executeAsync(Map<String, Object> input) {
+            // The config was produced by this executor's own prepare
+            return ((NodeExecutor<Object>) executor).executeAsync(node, config, input);
+        }
+
+        public boolean activatesSuccessors(Map<String, Object> output) {
+            return executor.activatesSuccessors(output);
+        }
+
+        /**
+         * Whether the step is attempted again after its attempt number {@code attempt} failed.
+         */
+        public boolean shouldRetry(int attempt, Throwable error) {
+            return retryPolicy.shouldRetry(attempt, error, executor);
+        }
+
+        public long retryDelayMillis(int attempt) {
+            return retryPolicy.delayMillis(attempt);
+        }
+
+        /**
+         * Bound on each attempt of the step, or 0 for none. For a step consuming a stream, bound on the
+         * time between two chunks.
+         */
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        /**
+         * Whether the step's output is a {@link RecordStream} its successor consumes while it runs.
+         */
+        public boolean isStreaming() {
+            return streaming;
+        }
+
+        /**
+         * Index of the streaming step whose records this step consumes, or -1.
+         */
+        public int getStreamSource() {
+            return streamSource;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public GraphNode getNode() {
+            return node;
+        }
+
+        public Object getConfig() {
+            return config;
+        }
+
+        int[] successors() {
+            return successors;
+        }
+
+        int[] predecessors() {
+            return predecessors;
+        }
+    }
+}
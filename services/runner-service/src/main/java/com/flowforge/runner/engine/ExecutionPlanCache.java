@@ -0,0 +1,114 @@
+package com.flowforge.runner.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Compiles workflow graphs into {@link ExecutionPlan}s and keeps the plans of saved workflow versions
+ * in a size-bounded LRU cache. Saved versions never change, so cached plans are never stale.
+ */
+@Component
+public class ExecutionPlanCache {
+    private final NodeExecutorRegistry registry;
+    private final RetryPolicy defaultRetryPolicy;
+    private final long defaultStepTimeoutMillis;
+    private final Map<Key, ExecutionPlan> plans;
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public ExecutionPlanCache(
+            NodeExecutorRegistry registry,
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.plan-cache.max-entries:1000}") int maxEntries,
+            @Value("${flowforge.runner.retry.max-attempts:1}") int retryMaxAttempts,
+            @Value("${flowforge.runner.retry.backoff-ms:1000}") long retryBackoffMillis,
+            @Value("${flowforge.runner.retry.max-backoff-ms:60000}") long retryMaxBackoffMillis,
+            @Value("${flowforge.runner.retry.retry-on:transient}") String retryOn,
+            @Value("${flowforge.runner.step-timeout-ms:300000}") long defaultStepTimeoutMillis) {
+        this.registry = registry;
+        this.defaultRetryPolicy = new RetryPolicy(
+                retryMaxAttempts, retryBackoffMillis, retryMaxBackoffMillis, "any".equalsIgnoreCase(retryOn));
+        this.defaultStepTimeoutMillis = defaultStepTimeoutMillis;
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ExecutionPlan> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("flowforge.plans.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("flowforge.plans.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("flowforge.plans.cached", this, cache -> cache.size()).register(meterRegistry);
+    }
+
+    /**
+     * Returns the plan of a workflow version, compiling the graph returned by {@code graphLoader} on a
+     * miss. Concurrent misses for the same version may both compile; either result is equivalent.
+     */
+    public ExecutionPlan get(UUID workflowId, int version, Supplier<Map<String, Object>> graphLoader) {
+        Key key = new Key(workflowId, version);
+        ExecutionPlan plan;
+        synchronized (plans) {
+            plan = plans.get(key);
+        }
+        if (plan != null) {
+            hits.increment();
+            return plan;
+        }
+        misses.increment();
+        plan = compile(graphLoader.get());
+        synchronized (plans) {
+            plans.put(key, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Compiles a graph without caching it, for runs of unsaved graphs.
+     */
+    public ExecutionPlan compile(Map<String, Object> graph) {
+        return ExecutionPlan.compile(WorkflowGraph.parse(graph), registry, defaultRetryPolicy, defaultStepTimeoutMillis);
+    }
+
+    private int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    private static final class Key {
+        private final UUID workflowId;
+        private final int version;
+
+        Key(UUID workflowId, int version) {
+            this.workflowId = workflowId;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return version == key.version && workflowId.equals(key.workflowId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(workflowId, version);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.flowforge.runner.engine;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class GraphNode {
+    private final String id;
+    private final String type;
+    private final String label;
+    private final Map<String, Object> properties;
+
+    public GraphNode(String id, String type, String label, Map<String, Object> properties) {
+        this.id = id;
+        this.type = type;
+        this.label = label;
+        this.properties = properties == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    public String getProperty(String key) {
+        Object value = properties.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Whether a switch property is set to {@code on} or {@code true}.
+     */
+    public boolean isEnabled(String key) {
+        String value = getProperty(key);
+        return value != null && (value.trim().equalsIgnoreCase("on") || value.trim().equalsIgnoreCase("true"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.flowforge.runner.engine;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Executes a single node type. Implementations are Spring beans picked up by {@link NodeExecutorRegistry}.
+ *
+ * @param <C> the node configuration as prepared once per {@link ExecutionPlan}
+ */
+public interface NodeExecutor<C> {
+    String getNodeType();
+
+    /**
+     * Resolves and validates the node's properties when a plan is compiled, so runs of a cached plan
+     * skip that work. Throws {@link IllegalArgumentException} for an invalid configuration.
+     */
+    default C prepare(GraphNode node) {
+        return null;
+    }
+
+    /**
+     * Runs the node on {@code input}: the output of its predecessor, or of each predecessor keyed by
+     * node id. Outputs are passed between nodes by reference and persisted as they were when the step
+     * finished, so neither the input nor a returned output may be modified afterwards.
+     */
+    Map<String, Object> execute(GraphNode node, C config, Map<String, Object> input) throws Exception;
+
+    /**
+     * Starts the node and returns its output once done. The scheduler calls this instead of
+     * {@link #execute}; executors that wait on I/O override it so the step holds no thread while
+     * waiting. The default runs {@link #execute} on the calling step thread.
+     */
+    default CompletableFuture<Map<String, Object>> executeAsync(GraphNode node, C config, Map<String, Object> input) {
+        try {
+            return CompletableFuture.completedFuture(execute(node, config, input));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Whether the node, as configured, returns its records as a {@link RecordStream} under
+     * {@link RecordStream#KEY} instead of a complete output.
+     */
+    default boolean streamsRecords(GraphNode node) {
+        return false;
+    }
+
+    /**
+     * Whether downstream nodes run after this output. Branching nodes return {@code false} for the
+     * branch not taken; successors reachable only through such nodes are skipped.
+     */
+    default boolean activatesSuccessors(Map<String, Object> output) {
+        return true;
+    }
+
+    /**
+     * Whether an error of this node may go away when the node is attempted again. Consulted by retry
+     * policies with {@code retryOn: transient}; the default is {@link RetryPolicy#isTransient}.
+     */
+    default boolean isRetryable(Throwable error) {
+        return RetryPolicy.isTransient(error);
+    }
+}
@@ -0,0 +1,38 @@
+package com.flowforge.runner.engine;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class NodeExecutorRegistry {
+    // Node types without a dedicated executor yet pass their input through unchanged
+    private static final NodeExecutor<Void> PASS_THROUGH = new NodeExecutor<>() {
+        @Override
+        public String getNodeType() {
+            return "passThrough";
+        }
+
+        @Override
+        public Map<String, Object> execute(GraphNode node, Void config, Map<String, Object> input) {
+            Map<String, Object> output = new LinkedHashMap<>();
+            output.put("data", input);
+            return output;
+        }
+    };
+
+    private final Map<String, NodeExecutor<?>> executors = new HashMap<>();
+
+    @Autowired
+    public NodeExecutorRegistry(ObjectProvider<NodeExecutor<?>> executors) {
+        executors.orderedStream().forEach(executor -> this.executors.put(executor.getNodeType(), executor));
+    }
+
+    public NodeExecutor<?> getExecutor(String nodeType) {
+        return executors.getOrDefault(nodeType, PASS_THROUGH);
+    }
+}
@@ -0,0 +1,232 @@
+package com.flowforge.runner.engine;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Records a node emits in chunks instead of holding them in one output, for datasets of any size. A
+ * streaming node returns the stream under {@link #KEY} in its output; its one successor starts right
+ * away and consumes it while the node keeps producing, and the node's step finishes when the stream
+ * ends. Streams are pulled: a producer fetches the chunk after next only once the consumer took the
+ * next one, so a slow consumer holds it back and each stage keeps at most two chunks in memory.
+ * <p>
+ * A stream has one consumer, which reads it with {@link #map} or {@link #forEach}. Persisted, it
+ * reads as the number of records and chunks it carried.
+ */
+public abstract class RecordStream {
+    public static final String KEY = "records";
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    // Written by the one consumer between chunks, read when the step is recorded
+    private volatile long records;
+    private volatile long chunks;
+    private CompletableFuture<List<Map<String, Object>>> ahead;
+    private volatile Runnable chunkListener;
+
+    /**
+     * Fetches the next chunk, or completes with null after the last one. Not called again before the
+     * previous fetch completed.
+     */
+    protected abstract CompletableFuture<List<Map<String, Object>>> fetch();
+
+    /**
+     * Releases what the producer holds when the stream is cancelled before its end, e.g. a request in
+     * flight.
+     */
+    protected void close(Throwable reason) {
+    }
+
+    /**
+     * Returns the stream in a node's output or input, or throws {@link IllegalStateException} if it has none.
+     */
+    public static RecordStream of(Map<String, Object> output) {
+        Object records = output == null ? null : output.get(KEY);
+        if (records instanceof RecordStream stream) {
+            return stream;
+        }
+        throw new IllegalStateException("No record stream under " + KEY);
+    }
+
+    /**
+     * A stream of the records {@code mapper} makes of this stream's, dropping those it maps to null.
+     * Cancelling it cancels this stream.
+     */
+    public final RecordStream map(Function<Map<String, Object>, Map<String, Object>> mapper) {
+        claim();
+        RecordStream upstream = this;
+        return new RecordStream() {
+            @Override
+            protected CompletableFuture<List<Map<String, Object>>> fetch() {
+                return upstream.next().thenApply(chunk -> {
+                    if (chunk == null) {
+                        return null;
+                    }
+                    List<Map<String, Object>> mapped = new ArrayList<>(chunk.size());
+                    for (Map<String, Object> record : chunk) {
+                        Map<String, Object> result = mapper.apply(record);
+                        if (result != null) {
+                            mapped.add(result);
+                        }
+                    }
+                    return mapped;
+                });
+            }
+
+            @Override
+            protected void close(Throwable reason) {
+                upstream.cancel(reason);
+            }
+        };
+    }
+
+    /**
+     * Hands every chunk to {@code action} and asks for the next one once the future it returns
+     * completes. The result completes after the last chunk was handled, or with the first failure of
+     * the stream or of {@code action}; cancelling it stops the stream.
+     */
+    public final CompletableFuture<Void> forEach(Function<List<Map<String, Object>>, CompletableFuture<?>> action) {
+        claim();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        result.whenComplete((ignored, error) -> {
+            if (error != null) {
+                cancel(error);
+            }
+        });
+        pull(action, result);
+        return result;
+    }
+
+    private void pull(Function<List<Map<String, Object>>, CompletableFuture<?>> action, CompletableFuture<Void> result) {
+        // Chunks that are already there are handled in a loop rather than by nested callbacks
+        while (!result.isDone()) {
+            CompletableFuture<Boolean> handled = next().thenCompose(chunk -> chunk == null
+                    ? CompletableFuture.completedFuture(false)
+                    : action.apply(chunk).thenApply(ignored -> true));
+            if (!handled.isDone()) {
+                handled.whenComplete((more, error) -> {
+                    if (settle(result, more, error)) {
+                        pull(action, result);
+                    }
+                });
+                return;
+            }
+            Boolean more = false;
+            Throwable error = null;
+            try {
+                more = handled.join();
+            } catch (CompletionException | CancellationException e) {
+                error = e;
+            }
+            if (!settle(result, more, error)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean settle(CompletableFuture<Void> result, Boolean more, Throwable error) {
+        if (error != null) {
+            result.completeExceptionally(unwrap(error));
+            return false;
+        }
+        if (!more) {
+            result.complete(null);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stops the stream before its end; its step fails with {@code reason}. Does nothing once it ended.
+     */
+    public final void cancel(Throwable reason) {
+        if (completion.completeExceptionally(reason)) {
+            close(reason);
+        }
+    }
+
+    /**
+     * Completes when the consumer has taken the last chunk, or exceptionally when the stream failed or
+     * was cancelled.
+     */
+    public final CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    /**
+     * Runs {@code listener} each time the consumer takes a chunk, e.g. to time the consumer out only
+     * while no records come.
+     */
+    final void onChunk(Runnable listener) {
+        this.chunkListener = listener;
+    }
+
+    private void claim() {
+        if (!claimed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Records are already consumed by another node");
+        }
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> next() {
+        if (completion.isDone()) {
+            // Cancelled, or read past the end
+            return completion.thenApply(ignored -> null);
+        }
+        CompletableFuture<List<Map<String, Object>>> chunk = ahead == null ? safeFetch() : ahead;
+        ahead = null;
+        return chunk.handle((records, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                cancel(cause);
+                throw new CompletionException(cause);
+            }
+            if (records == null) {
+                completion.complete(null);
+                return null;
+            }
+            this.records += records.size();
+            this.chunks++;
+            Runnable listener = chunkListener;
+            if (listener != null) {
+                listener.run();
+            }
+            // The producer works on the chunk after this one while the consumer handles this one
+            if (!completion.isDone()) {
+                ahead = safeFetch();
+            }
+            return records;
+        });
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> safeFetch() {
+        try {
+            return fetch();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Records and chunks the consumer has taken so far.
+     */
+    @JsonValue
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("streamed", records);
+        summary.put("chunks", chunks);
+        return summary;
+    }
+}
@@ -0,0 +1,142 @@
+package com.flowforge.runner.engine;
+
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * When a failed step is attempted again. A node configures its policy with the properties
+ * {@code retries} (attempts after the first), {@code retryBackoff} and {@code retryMaxBackoff} (in
+ * seconds) and {@code retryOn}: {@code transient} retries only errors its executor considers
+ * transient, {@code any} retries every error. Properties a node leaves out come from the defaults.
+ */
+public final class RetryPolicy {
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, false);
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final boolean retryAny;
+
+    public RetryPolicy(int maxAttempts, long backoffMillis, long maxBackoffMillis, boolean retryAny) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+        this.maxBackoffMillis = Math.max(this.backoffMillis, maxBackoffMillis);
+        this.retryAny = retryAny;
+    }
+
+    /**
+     * The policy of a node, validated when its plan is compiled.
+     */
+    public static RetryPolicy of(GraphNode node, RetryPolicy defaults) {
+        String retries = node.getProperty("retries");
+        String backoff = node.getProperty("retryBackoff");
+        String maxBackoff = node.getProperty("retryMaxBackoff");
+        String retryOn = node.getProperty("retryOn");
+        if (isBlank(retries) && isBlank(backoff) && isBlank(maxBackoff) && isBlank(retryOn)) {
+            return defaults;
+        }
+        int maxAttempts = defaults.maxAttempts;
+        if (!isBlank(retries)) {
+            try {
+                int count = Integer.parseInt(retries.trim());
+                if (count < 0) {
+                    throw new IllegalArgumentException("retries must not be negative: " + retries);
+                }
+                maxAttempts = count + 1;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid retries: " + retries);
+            }
+        }
+        boolean any = defaults.retryAny;
+        if (!isBlank(retryOn)) {
+            switch (retryOn.trim().toLowerCase(Locale.ROOT)) {
+                case "transient" -> any = false;
+                case "any" -> any = true;
+                default -> throw new IllegalArgumentException("retryOn must be transient or any: " + retryOn);
+            }
+        }
+        return new RetryPolicy(maxAttempts,
+                isBlank(backoff) ? defaults.backoffMillis : seconds("retryBackoff", backoff),
+                isBlank(maxBackoff) ? defaults.maxBackoffMillis : seconds("retryMaxBackoff", maxBackoff),
+                any);
+    }
+
+    /**
+     * Whether the policy allows more than one attempt.
+     */
+    public boolean retries() {
+        return maxAttempts > 1;
+    }
+
+    /**
+     * Whether a step whose attempt number {@code attempt} (starting at 1) failed with {@code error}
+     * is attempted again.
+     */
+    public boolean shouldRetry(int attempt, Throwable error, NodeExecutor<?> executor) {
+        return attempt < maxAttempts && (retryAny || executor.isRetryable(error));
+    }
+
+    public long delayMillis(int attempt) {
+        return fullJitter(backoffMillis, maxBackoffMillis, attempt);
+    }
+
+    /**
+     * Full jitter: a random delay between 0 and the exponential backoff, capped at
+     * {@code maxBackoffMillis}, for the attempt (starting at 1) that failed.
+     */
+    public static long fullJitter(long backoffMillis, long maxBackoffMillis, int attempt) {
+        long exponential = backoffMillis << Math.min(attempt - 1, 20);
+        long bound = Math.min(maxBackoffMillis, exponential);
+        return ThreadLocalRandom.current().nextLong(Math.max(0, bound) + 1);
+    }
+
+    /**
+     * Errors that may succeed when tried again: I/O failures and timeouts, exhausted pools, and
+     * database errors of lost connections, serialization conflicts and deadlocks, or lack of resources.
+     */
+    public static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException
+                    || cause instanceof TimeoutException
+                    || cause instanceof RejectedExecutionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                if (state.startsWith("08") || state.startsWith("40") || state.startsWith("53") || state.startsWith("57P")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long seconds(String name, String value) {
+        try {
+            double seconds = Double.parseDouble(value.trim());
+            if (seconds < 0) {
+                throw new IllegalArgumentException(name + " must not be negative: " + value);
+            }
+            return (long) (seconds * 1000);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,7 @@
+package com.flowforge.runner.engine;
+
+public class RunCancelledException extends RuntimeException {
+    public RunCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.flowforge.runner.engine;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A run started by the {@link DagExecutor}.
+ */
+public interface RunExecution {
+    /**
+     * Completes when every node has completed, or exceptionally with a {@link StepExecutionException},
+     * a {@link RunTimeoutException} or the reason the run was cancelled with.
+     */
+    CompletableFuture<Void> completion();
+
+    /**
+     * Stops dispatching steps, abandons pending retries and cancels the attempts in flight, which fail
+     * with {@code reason}. The run completes with {@code reason} once those attempts have drained,
+     * unless it had already failed. Cancelling a finished run does nothing.
+     */
+    void cancel(RuntimeException reason);
+}
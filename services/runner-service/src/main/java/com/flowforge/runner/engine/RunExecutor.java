@@ -0,0 +1,86 @@
+package com.flowforge.runner.engine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool that drives whole runs. Runs wait in a fixed-size queue; once both the workers and the
+ * queue are full, new runs are rejected with {@link RunRejectedException} instead of piling up.
+ * Time spent queued and time spent executing are recorded as separate timers.
+ */
+@Component
+public class RunExecutor {
+    private final ThreadPoolExecutor pool;
+    private final Timer queueWaitTimer;
+    private final Timer executionTimer;
+
+    @Autowired
+    public RunExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.run-threads:16}") int runThreads,
+            @Value("${flowforge.runner.run-queue-capacity:500}") int queueCapacity) {
+        this.pool = new ThreadPoolExecutor(
+                runThreads, runThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("run-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queueWaitTimer = Timer.builder("flowforge.runs.queue.wait")
+                .description("Time a run spent queued before a worker picked it up")
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("flowforge.runs.execution")
+                .description("Time a worker spent executing a run")
+                .register(meterRegistry);
+        Gauge.builder("flowforge.runs.queued", pool, p -> p.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("flowforge.runs.active", pool, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    public void submit(Runnable run) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            pool.execute(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    run.run();
+                } finally {
+                    executionTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new RunRejectedException("Run queue is full (" + pool.getQueue().size() + " queued)");
+        }
+    }
+
+    /**
+     * Number of runs that can be submitted right now without being rejected.
+     */
+    public int availableCapacity() {
+        return Math.max(0, pool.getMaximumPoolSize() - pool.getActiveCount()) + pool.getQueue().remainingCapacity();
+    }
+
+    /**
+     * Number of runs that would start executing right away, without waiting in the queue.
+     */
+    public int idleWorkers() {
+        return Math.max(0, pool.getMaximumPoolSize() - pool.getActiveCount() - pool.getQueue().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
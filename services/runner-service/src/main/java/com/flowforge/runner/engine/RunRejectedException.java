@@ -0,0 +1,7 @@
+package com.flowforge.runner.engine;
+
+public class RunRejectedException extends RuntimeException {
+    public RunRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.flowforge.runner.engine;
+
+public class RunTimeoutException extends RuntimeException {
+    public RunTimeoutException(String message) {
+        super(message);
+    }
+}
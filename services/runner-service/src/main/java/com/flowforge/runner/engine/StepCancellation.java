@@ -0,0 +1,87 @@
+package com.flowforge.runner.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancellation of the step attempt executing on the current thread, for executors that block in calls a
+ * thread interrupt does not abort, such as a JDBC statement waiting on the database. When an attempt
+ * times out or its run is cancelled, the scheduler runs the hooks the attempt registered and interrupts
+ * the thread executing it. Asynchronous executors see cancellation of the future they returned instead.
+ */
+public final class StepCancellation {
+    private static final ThreadLocal<StepCancellation> CURRENT = new ThreadLocal<>();
+
+    // Guarded by this
+    private final List<Runnable> hooks = new ArrayList<>();
+    private Thread thread;
+    private boolean cancelled;
+
+    /**
+     * Runs {@code hook} if the attempt executing on the calling thread is cancelled before the returned
+     * registration is closed, or right away if it already is. Outside of an attempt it is never run.
+     */
+    public static Registration onCancel(Runnable hook) {
+        StepCancellation current = CURRENT.get();
+        return current == null ? () -> {} : current.register(hook);
+    }
+
+    private Registration register(Runnable hook) {
+        synchronized (this) {
+            if (!cancelled) {
+                hooks.add(hook);
+                return () -> {
+                    synchronized (this) {
+                        hooks.remove(hook);
+                    }
+                };
+            }
+        }
+        hook.run();
+        return () -> {};
+    }
+
+    void enter() {
+        synchronized (this) {
+            thread = Thread.currentThread();
+        }
+        CURRENT.set(this);
+    }
+
+    void exit() {
+        CURRENT.remove();
+        synchronized (this) {
+            thread = null;
+        }
+        // An interrupt meant for this attempt must not reach the next task of the pool thread
+        Thread.interrupted();
+    }
+
+    void cancel() {
+        List<Runnable> pending;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            pending = new ArrayList<>(hooks);
+            hooks.clear();
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+        for (Runnable hook : pending) {
+            try {
+                hook.run();
+            } catch (RuntimeException ignored) {
+                // Cancellation is best effort; the attempt has been failed already
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
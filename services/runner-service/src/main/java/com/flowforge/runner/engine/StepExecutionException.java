@@ -0,0 +1,14 @@
+package com.flowforge.runner.engine;
+
+public class StepExecutionException extends RuntimeException {
+    private final String nodeId;
+
+    public StepExecutionException(String nodeId, Throwable cause) {
+        super("Step " + nodeId + " failed: " + cause.getMessage(), cause);
+        this.nodeId = nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,26 @@
+package com.flowforge.runner.engine;
+
+import java.util.Map;
+
+/**
+ * Receives step lifecycle callbacks from {@link DagExecutor}. Callbacks for independent branches
+ * arrive concurrently from step threads, so implementations must be thread-safe.
+ */
+public interface StepListener {
+    void onStepStarted(GraphNode node, Map<String, Object> input);
+
+    void onStepCompleted(GraphNode node, Map<String, Object> output);
+
+    void onStepFailed(GraphNode node, Throwable error);
+
+    /**
+     * Called when an attempt of a step failed and the step will be attempted again after
+     * {@code delayMillis}; {@code retryCount} counts the retries so far, including this one.
+     */
+    void onStepRetrying(GraphNode node, Throwable error, int retryCount, long delayMillis);
+
+    /**
+     * Called for a node that will not run because no predecessor activated it.
+     */
+    void onStepSkipped(GraphNode node);
+}
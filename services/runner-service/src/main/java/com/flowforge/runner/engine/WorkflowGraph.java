@@ -0,0 +1,151 @@
+package com.flowforge.runner.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of a workflow graph as stored by the canvas:
+ * {@code {"nodes": [{"id", "data": {"type", "label", "properties"}}], "edges": [{"source", "target"}]}}.
+ */
+public final class WorkflowGraph {
+    private final Map<String, GraphNode> nodes;
+    private final Map<String, List<String>> successors;
+    private final Map<String, List<String>> predecessors;
+    private final List<String> topologicalOrder;
+
+    private WorkflowGraph(Map<String, GraphNode> nodes,
+                          Map<String, List<String>> successors,
+                          Map<String, List<String>> predecessors,
+                          List<String> topologicalOrder) {
+        this.nodes = nodes;
+        this.successors = successors;
+        this.predecessors = predecessors;
+        this.topologicalOrder = topologicalOrder;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static WorkflowGraph parse(Map<String, Object> graph) {
+        if (graph == null) {
+            throw new IllegalArgumentException("Workflow graph is required");
+        }
+        Map<String, GraphNode> nodes = new LinkedHashMap<>();
+        for (Map<String, Object> raw : asList(graph.get("nodes"))) {
+            Object id = raw.get("id");
+            if (id == null) {
+                throw new IllegalArgumentException("Workflow node is missing an id");
+            }
+            Map<String, Object> data = raw.get("data") instanceof Map
+                    ? (Map<String, Object>) raw.get("data")
+                    : Collections.emptyMap();
+            Object type = data.containsKey("type") ? data.get("type") : raw.get("type");
+            Object label = data.get("label");
+            Map<String, Object> properties = data.get("properties") instanceof Map
+                    ? (Map<String, Object>) data.get("properties")
+                    : Collections.emptyMap();
+            GraphNode node = new GraphNode(id.toString(),
+                    type == null ? null : type.toString(),
+                    label == null ? null : label.toString(),
+                    properties);
+            if (nodes.put(node.getId(), node) != null) {
+                throw new IllegalArgumentException("Duplicate workflow node id: " + node.getId());
+            }
+        }
+
+        Map<String, List<String>> successors = new LinkedHashMap<>();
+        Map<String, List<String>> predecessors = new LinkedHashMap<>();
+        for (String id : nodes.keySet()) {
+            successors.put(id, new ArrayList<>());
+            predecessors.put(id, new ArrayList<>());
+        }
+        for (Map<String, Object> edge : asList(graph.get("edges"))) {
+            String source = String.valueOf(edge.get("source"));
+            String target = String.valueOf(edge.get("target"));
+            if (!nodes.containsKey(source) || !nodes.containsKey(target)) {
+                throw new IllegalArgumentException("Edge references unknown node: " + source + " -> " + target);
+            }
+            if (!successors.get(source).contains(target)) {
+                successors.get(source).add(target);
+                predecessors.get(target).add(source);
+            }
+        }
+
+        List<String> order = topologicalSort(nodes.keySet(), successors, predecessors);
+        successors.replaceAll((id, list) -> List.copyOf(list));
+        predecessors.replaceAll((id, list) -> List.copyOf(list));
+        return new WorkflowGraph(Collections.unmodifiableMap(nodes),
+                Collections.unmodifiableMap(successors),
+                Collections.unmodifiableMap(predecessors),
+                List.copyOf(order));
+    }
+
+    private static List<String> topologicalSort(Iterable<String> ids,
+                                                Map<String, List<String>> successors,
+                                                Map<String, List<String>> predecessors) {
+        Map<String, Integer> inDegree = new LinkedHashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (String id : ids) {
+            int degree = predecessors.get(id).size();
+            inDegree.put(id, degree);
+            if (degree == 0) {
+                ready.add(id);
+            }
+        }
+        List<String> order = new ArrayList<>(inDegree.size());
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            order.add(id);
+            for (String next : successors.get(id)) {
+                if (inDegree.merge(next, -1, Integer::sum) == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+        if (order.size() != inDegree.size()) {
+            throw new IllegalArgumentException("Workflow graph contains cycles. Cycles are not allowed.");
+        }
+        return order;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> asList(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("Expected a list but got " + value.getClass().getSimpleName());
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Object item : (List<Object>) value) {
+            if (!(item instanceof Map)) {
+                throw new IllegalArgumentException("Expected an object but got " + item);
+            }
+            result.add((Map<String, Object>) item);
+        }
+        return result;
+    }
+
+    public GraphNode getNode(String id) {
+        return nodes.get(id);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public List<String> getSuccessors(String id) {
+        return successors.get(id);
+    }
+
+    public List<String> getPredecessors(String id) {
+        return predecessors.get(id);
+    }
+
+    public List<String> getTopologicalOrder() {
+        return topologicalOrder;
+    }
+}
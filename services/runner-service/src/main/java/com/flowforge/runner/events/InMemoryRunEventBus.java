@@ -0,0 +1,25 @@
+package com.flowforge.runner.events;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-instance bus for local development and tests: events only reach subscribers connected to
+ * this replica.
+ */
+@Component
+@ConditionalOnProperty(name = "flowforge.runner.events.bus", havingValue = "in-memory")
+public class InMemoryRunEventBus implements RunEventBus {
+    private final RunStreamFanout fanout;
+
+    @Autowired
+    public InMemoryRunEventBus(RunStreamFanout fanout) {
+        this.fanout = fanout;
+    }
+
+    @Override
+    public void publish(RunEvent event) {
+        fanout.deliver(event);
+    }
+}
@@ -0,0 +1,191 @@
+package com.flowforge.runner.events;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans run events out across replicas with Postgres {@code LISTEN/NOTIFY}. Publishing only enqueues;
+ * a sender thread drains the queue and notifies a whole batch in one round-trip. A listener thread
+ * holds one connection in {@code LISTEN} mode and hands every notification to the local fan-out.
+ */
+@Component
+@ConditionalOnProperty(name = "flowforge.runner.events.bus", havingValue = "postgres", matchIfMissing = true)
+public class PostgresRunEventBus implements RunEventBus {
+    private static final Logger log = LoggerFactory.getLogger(PostgresRunEventBus.class);
+
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    private static final int MAX_NOTIFY_BYTES = 7999;
+    private static final int MAX_BATCH = 100;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final RunStreamFanout fanout;
+    private final String channel;
+    private final BlockingQueue<RunEvent> outbox;
+
+    private volatile boolean running = true;
+    private Thread sender;
+    private Thread listener;
+
+    @Autowired
+    public PostgresRunEventBus(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            RunStreamFanout fanout,
+            @Value("${flowforge.runner.events.channel:run_events}") String channel,
+            @Value("${flowforge.runner.events.outbox-capacity:10000}") int outboxCapacity) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.fanout = fanout;
+        this.channel = channel;
+        this.outbox = new ArrayBlockingQueue<>(outboxCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        sender = new Thread(this::sendLoop, "run-events-notify");
+        sender.setDaemon(true);
+        sender.start();
+        listener = new Thread(this::listenLoop, "run-events-listen");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void publish(RunEvent event) {
+        if (!outbox.offer(event)) {
+            log.warn("Run event outbox full, dropping event for run {}", event.getRunId());
+        }
+    }
+
+    private void sendLoop() {
+        List<RunEvent> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                RunEvent first = outbox.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outbox.drainTo(batch, MAX_BATCH - 1);
+                sendNotifications(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish {} run events: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendNotifications(List<RunEvent> batch) {
+        List<String> payloads = new ArrayList<>(batch.size());
+        for (RunEvent event : batch) {
+            String encoded = encode(event);
+            if (encoded.getBytes(StandardCharsets.UTF_8).length > MAX_NOTIFY_BYTES) {
+                log.warn("Run event for run {} exceeds the NOTIFY payload limit, dropping", event.getRunId());
+                continue;
+            }
+            payloads.add(encoded);
+        }
+        if (payloads.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            Array array = connection.createArrayOf("text", payloads.toArray());
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT pg_notify(?, payload) FROM unnest(?) WITH ORDINALITY AS t(payload, n) ORDER BY n")) {
+                statement.setString(1, channel);
+                statement.setArray(2, array);
+                statement.executeQuery().close();
+            } finally {
+                array.free();
+            }
+            return null;
+        });
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        RunEvent event = decode(notification.getParameter());
+                        if (event != null) {
+                            fanout.deliver(event);
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Run event listener lost its connection, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String encode(RunEvent event) {
+        return event.getRunId() + "\n" + event.getSeq() + "\n" + event.getKey() + "\n" + event.getPayload();
+    }
+
+    private static RunEvent decode(String encoded) {
+        int first = encoded.indexOf('\n');
+        int second = first < 0 ? -1 : encoded.indexOf('\n', first + 1);
+        int third = second < 0 ? -1 : encoded.indexOf('\n', second + 1);
+        if (third < 0) {
+            return null;
+        }
+        return new RunEvent(UUID.fromString(encoded.substring(0, first)),
+                Long.parseLong(encoded.substring(first + 1, second)),
+                encoded.substring(second + 1, third),
+                encoded.substring(third + 1));
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (sender != null) {
+            sender.interrupt();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.flowforge.runner.events;
+
+import java.util.UUID;
+
+/**
+ * A run stream message serialized once by the publisher and passed around as-is. {@code seq} is the
+ * event's position in the run's event log. {@code key} identifies what the event describes (a step
+ * id); a newer event with the same key supersedes an undelivered older one.
+ */
+public class RunEvent {
+    private final UUID runId;
+    private final long seq;
+    private final String key;
+    private final String payload;
+
+    public RunEvent(UUID runId, long seq, String key, String payload) {
+        this.runId = runId;
+        this.seq = seq;
+        this.key = key;
+        this.payload = payload;
+    }
+
+    public UUID getRunId() {
+        return runId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,10 @@
+package com.flowforge.runner.events;
+
+/**
+ * Carries run events between runner replicas. Every event published on any replica is handed to
+ * {@link RunStreamFanout#deliver(RunEvent)} on every replica, including the publishing one.
+ * Implementations must not block the publishing thread on I/O.
+ */
+public interface RunEventBus {
+    void publish(RunEvent event);
+}
@@ -0,0 +1,215 @@
+package com.flowforge.runner.events;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only, sequenced event log per run. The replica executing a run assigns sequence numbers and
+ * persists its events to {@code run_events} in batches. Every replica keeps the latest events of
+ * recently active runs in a ring buffer as they are delivered, so most replays never touch the
+ * database.
+ * <p>
+ * Sequence counters are seeded from the highest persisted sequence, so a run reclaimed by another
+ * replica continues where the previous owner stopped.
+ */
+@Component
+public class RunEventLog {
+    private static final Logger log = LoggerFactory.getLogger(RunEventLog.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO run_events (run_id, seq, payload, created_at) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int ringSize;
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by themselves; both only keep the most recently used runs
+    private final Map<UUID, long[]> sequences;
+    private final Map<UUID, Ring> rings;
+
+    // Guarded by this
+    private List<RunEvent> unpersisted = new ArrayList<>();
+    private final Object flushLock = new Object();
+
+    @Autowired
+    public RunEventLog(
+            JdbcTemplate jdbcTemplate,
+            @Value("${flowforge.runner.events.log.ring-size:128}") int ringSize,
+            @Value("${flowforge.runner.events.log.max-runs:256}") int maxRuns,
+            @Value("${flowforge.runner.events.log.flush-interval-ms:100}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ringSize = ringSize;
+        this.sequences = lruMap(maxRuns);
+        this.rings = lruMap(maxRuns);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("run-events-log-"));
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Assigns the next sequence number of the run and queues the event for persistence. Callers must
+     * not append to the same run concurrently and should publish in append order.
+     */
+    public RunEvent append(UUID runId, String key, String payload) {
+        long[] sequence;
+        synchronized (sequences) {
+            sequence = sequences.get(runId);
+        }
+        if (sequence == null) {
+            sequence = new long[]{lastPersistedSeq(runId)};
+            synchronized (sequences) {
+                sequences.put(runId, sequence);
+            }
+        }
+        long seq = ++sequence[0];
+        // The sequence number leads the payload so clients can resume without parsing the whole event
+        RunEvent event = new RunEvent(runId, seq, key, "{\"seq\":" + seq + "," + payload.substring(1));
+        synchronized (this) {
+            unpersisted.add(event);
+        }
+        return event;
+    }
+
+    /**
+     * Remembers an event delivered to this replica for fast replay.
+     */
+    public void record(RunEvent event) {
+        Ring ring;
+        synchronized (rings) {
+            ring = rings.computeIfAbsent(event.getRunId(), id -> new Ring(ringSize));
+        }
+        ring.add(event);
+    }
+
+    /**
+     * Returns the events of a run with a sequence number of {@code fromSeq} or higher, in order.
+     */
+    public List<RunEvent> replay(UUID runId, long fromSeq) {
+        Ring ring;
+        synchronized (rings) {
+            ring = rings.get(runId);
+        }
+        List<RunEvent> buffered = ring == null ? List.of() : ring.since(fromSeq);
+        // Sequence numbers start at 1, so a buffer starting there holds the whole log
+        if (!buffered.isEmpty() && buffered.get(0).getSeq() <= Math.max(fromSeq, 1)) {
+            return buffered;
+        }
+        long untilSeq = buffered.isEmpty() ? Long.MAX_VALUE : buffered.get(0).getSeq();
+        flushQuietly();
+        List<RunEvent> events = new ArrayList<>(jdbcTemplate.query(
+                "SELECT seq, payload FROM run_events WHERE run_id = ? AND seq >= ? AND seq < ? ORDER BY seq",
+                (rs, rowNum) -> new RunEvent(runId, rs.getLong("seq"), null, rs.getString("payload")),
+                runId, fromSeq, untilSeq));
+        events.addAll(buffered);
+        return events;
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            List<RunEvent> batch;
+            synchronized (this) {
+                if (unpersisted.isEmpty()) {
+                    return;
+                }
+                batch = unpersisted;
+                unpersisted = new ArrayList<>();
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (RunEvent event : batch) {
+                rows.add(new Object[]{event.getRunId(), event.getSeq(), event.getPayload(), now});
+            }
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    batch.addAll(unpersisted);
+                    unpersisted = batch;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to persist run events, will retry: {}", e.getMessage());
+        }
+    }
+
+    private long lastPersistedSeq(UUID runId) {
+        // Events of this run appended earlier on this replica may still be buffered
+        flush();
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM run_events WHERE run_id = ?", Long.class, runId);
+        return max == null ? 0 : max;
+    }
+
+    private static <V> Map<UUID, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    /**
+     * The latest events of one run, ordered by sequence number.
+     */
+    private static final class Ring {
+        private final RunEvent[] events;
+        private int start;
+        private int size;
+
+        Ring(int capacity) {
+            this.events = new RunEvent[capacity];
+        }
+
+        synchronized void add(RunEvent event) {
+            if (size > 0 && event.getSeq() <= events[(start + size - 1) % events.length].getSeq()) {
+                return;
+            }
+            if (size < events.length) {
+                events[(start + size++) % events.length] = event;
+            } else {
+                events[start] = event;
+                start = (start + 1) % events.length;
+            }
+        }
+
+        synchronized List<RunEvent> since(long fromSeq) {
+            List<RunEvent> result = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                RunEvent event = events[(start + i) % events.length];
+                if (event.getSeq() >= fromSeq) {
+                    result.add(event);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.flowforge.runner.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flowforge.runner.dto.StepUpdate;
+import com.flowforge.runner.model.StepRun;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes run stream updates exactly once, appends them to the {@link RunEventLog} and hands them
+ * to the {@link RunEventBus}.
+ * <p>
+ * Updates for the same step that arrive within {@code conflation-window-ms} are conflated so only
+ * the latest state is streamed. Input and output larger than {@code payload-ref-chars} are replaced
+ * by a URL to fetch them from, as are those the payload store keeps out of line. In {@code delta} mode the first event of a step carries its full
+ * state and later events carry the identity fields plus every field that differs from that first
+ * event, so a later delta supersedes every earlier delta of the step but never its base event.
+ * Subscribers that join mid-run load the current state from {@code GET /api/runs/{runId}} first.
+ */
+@Component
+public class RunEventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(RunEventPublisher.class);
+
+    private static final Set<String> IDENTITY_FIELDS = Set.of("runId", "stepId", "nodeId");
+    private static final int MAX_ERROR_CHARS = 1000;
+
+    public enum StreamMode {
+        FULL, DELTA
+    }
+
+    private final RunEventBus eventBus;
+    private final RunEventLog eventLog;
+    private final ObjectMapper objectMapper;
+    private final int maxEventChars;
+    private final StreamMode streamMode;
+    private final int payloadRefChars;
+    private final long conflationWindowMillis;
+    private final ScheduledExecutorService conflator;
+
+    // Latest update per step not yet streamed
+    private final Map<UUID, StepUpdate> pending = new ConcurrentHashMap<>();
+    // First streamed state per unfinished step, used as the base of deltas
+    private final Map<UUID, ObjectNode> baselines = new ConcurrentHashMap<>();
+    // Held while sequencing and publishing so events reach the bus in sequence order
+    private final Object appendLock = new Object();
+
+    @Autowired
+    public RunEventPublisher(
+            RunEventBus eventBus,
+            RunEventLog eventLog,
+            ObjectMapper objectMapper,
+            @Value("${flowforge.runner.events.max-event-chars:7000}") int maxEventChars,
+            @Value("${flowforge.runner.events.stream-mode:full}") String streamMode,
+            @Value("${flowforge.runner.events.payload-ref-chars:2048}") int payloadRefChars,
+            @Value("${flowforge.runner.events.conflation-window-ms:50}") long conflationWindowMillis) {
+        this.eventBus = eventBus;
+        this.eventLog = eventLog;
+        this.objectMapper = objectMapper;
+        this.maxEventChars = maxEventChars;
+        this.streamMode = StreamMode.valueOf(streamMode.trim().toUpperCase());
+        this.payloadRefChars = payloadRefChars;
+        this.conflationWindowMillis = conflationWindowMillis;
+        this.conflator = conflationWindowMillis > 0
+                ? Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("run-events-conflate-"))
+                : null;
+    }
+
+    public void publish(StepUpdate update) {
+        if (conflator == null) {
+            emit(update);
+            return;
+        }
+        UUID stepId = update.getStepId();
+        // Only the update that opens a window schedules the flush; later ones just replace it
+        if (pending.put(stepId, update) == null) {
+            conflator.schedule(() -> flush(stepId), conflationWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(UUID stepId) {
+        StepUpdate update = pending.remove(stepId);
+        if (update != null) {
+            emit(update);
+        }
+    }
+
+    private void emit(StepUpdate update) {
+        try {
+            ObjectNode state = objectMapper.valueToTree(update);
+            referencePayloads(state, payloadRefChars);
+            ObjectNode message = streamMode == StreamMode.DELTA ? delta(update, state) : state;
+
+            String payload = objectMapper.writeValueAsString(message);
+            if (payload.length() > maxEventChars) {
+                referencePayloads(message, 0);
+                JsonNode error = message.get("error");
+                if (error != null && error.isTextual() && error.asText().length() > MAX_ERROR_CHARS) {
+                    message.put("error", error.asText().substring(0, MAX_ERROR_CHARS));
+                }
+                payload = objectMapper.writeValueAsString(message);
+            }
+            // Base events get their own key so conflating deltas downstream never replaces them
+            String key = message.path("delta").asBoolean(true)
+                    ? String.valueOf(update.getStepId())
+                    : update.getStepId() + "/base";
+            synchronized (appendLock) {
+                eventBus.publish(eventLog.append(update.getRunId(), key, payload));
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to stream step update for run {}: {}", update.getRunId(), e.getMessage());
+        }
+    }
+
+    private ObjectNode delta(StepUpdate update, ObjectNode state) {
+        boolean finished = update.getStatus() == StepRun.StepStatus.COMPLETED
+                || update.getStatus() == StepRun.StepStatus.FAILED
+                || update.getStatus() == StepRun.StepStatus.SKIPPED;
+        ObjectNode baseline = finished
+                ? baselines.remove(update.getStepId())
+                : baselines.putIfAbsent(update.getStepId(), state);
+        if (baseline == null) {
+            return state.deepCopy().put("delta", false);
+        }
+
+        ObjectNode message = objectMapper.createObjectNode();
+        for (String field : IDENTITY_FIELDS) {
+            message.set(field, state.get(field));
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = state.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().equals(baseline.get(field.getKey()))) {
+                message.set(field.getKey(), field.getValue());
+            }
+        }
+        Iterator<String> names = baseline.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!state.has(name) && !baseline.get(name).isNull()) {
+                message.putNull(name);
+            }
+        }
+        return message.put("delta", true);
+    }
+
+    private static void referencePayloads(ObjectNode message, int maxInlineChars) {
+        referencePayload(message, "inputJson", "input", maxInlineChars);
+        referencePayload(message, "outputJson", "output", maxInlineChars);
+    }
+
+    private static void referencePayload(ObjectNode message, String field, String name, int maxInlineChars) {
+        JsonNode value = message.get(field);
+        if (value == null || !value.isTextual() || value.asText().length() <= maxInlineChars) {
+            return;
+        }
+        message.remove(field);
+        message.put(name + "Ref", "/api/runs/" + message.path("runId").asText()
+                + "/steps/" + message.path("stepId").asText() + "/" + name);
+        message.put(name + "Size", value.asText().length());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (conflator != null) {
+            conflator.shutdown();
+        }
+    }
+}
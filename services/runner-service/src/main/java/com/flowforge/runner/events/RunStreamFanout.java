@@ -0,0 +1,289 @@
+package com.flowforge.runner.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers run events to the STOMP subscribers of {@code /topic/runs/{runId}/stream} connected to
+ * this replica. Each event is encoded to bytes once and the same buffer goes to every subscriber.
+ * <p>
+ * Each subscriber has at most one message in flight on the outbound channel, which keeps its events
+ * in order across the channel's thread pool. While a message is in flight, newer events replace
+ * undelivered events with the same key and the oldest are dropped past {@code max-pending}, so a
+ * slow browser tab only ever sees fewer intermediate states and never holds back the publisher or
+ * other subscribers.
+ * <p>
+ * A subscription with a {@code fromSeq} header first receives the run's logged events from that
+ * sequence number on, then live events, without gaps or duplicates.
+ */
+@Component
+public class RunStreamFanout implements ExecutorChannelInterceptor {
+    private static final String DESTINATION_PREFIX = "/topic/runs/";
+    private static final String DESTINATION_SUFFIX = "/stream";
+    private static final String SUBSCRIBER_HEADER = "flowforgeStreamSubscriber";
+    private static final String FROM_SEQ_HEADER = "fromSeq";
+
+    private final MessageChannel clientOutboundChannel;
+    private final RunEventLog eventLog;
+    private final int maxPending;
+    private final Counter conflatedCounter;
+    private final Counter droppedCounter;
+
+    private final Map<UUID, List<Subscriber>> subscribersByRun = new ConcurrentHashMap<>();
+    private final Map<String, Subscriber> subscribersByKey = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RunStreamFanout(
+            @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            RunEventLog eventLog,
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.events.subscriber-max-pending:256}") int maxPending) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.eventLog = eventLog;
+        this.maxPending = maxPending;
+        this.conflatedCounter = Counter.builder("flowforge.stream.conflated")
+                .description("Run events superseded by a newer event before reaching a slow subscriber")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("flowforge.stream.dropped")
+                .description("Run events dropped because a subscriber's backlog was full")
+                .register(meterRegistry);
+    }
+
+    public void deliver(RunEvent event) {
+        eventLog.record(event);
+        List<Subscriber> subscribers = subscribersByRun.get(event.getRunId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        byte[] payload = event.getPayload().getBytes(StandardCharsets.UTF_8);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event.getSeq(), event.getKey(), payload);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        UUID runId = parseRunId(accessor.getDestination());
+        if (runId == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        Long fromSeq = parseSeq(accessor.getFirstNativeHeader(FROM_SEQ_HEADER));
+        Subscriber subscriber = new Subscriber(runId, accessor.getSessionId(), accessor.getSubscriptionId(),
+                accessor.getDestination(), fromSeq != null);
+        subscribersByKey.put(subscriber.key, subscriber);
+        subscribersByRun.computeIfAbsent(runId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        if (fromSeq != null) {
+            // Registered first so no live event can fall between the replayed log and the live stream
+            List<RunEvent> events;
+            try {
+                events = eventLog.replay(runId, fromSeq);
+            } catch (RuntimeException e) {
+                events = List.of();
+            }
+            subscriber.replay(events);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        remove(subscribersByKey.get(key(accessor.getSessionId(), accessor.getSubscriptionId())));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = sessionId(event);
+        Iterator<Subscriber> iterator = subscribersByKey.values().iterator();
+        while (iterator.hasNext()) {
+            Subscriber subscriber = iterator.next();
+            if (subscriber.sessionId.equals(sessionId)) {
+                remove(subscriber);
+            }
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Object key = message.getHeaders().get(SUBSCRIBER_HEADER);
+        if (key != null) {
+            Subscriber subscriber = subscribersByKey.get(key.toString());
+            if (subscriber != null) {
+                subscriber.acknowledge();
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscriber == null) {
+            return;
+        }
+        subscribersByKey.remove(subscriber.key);
+        subscribersByRun.computeIfPresent(subscriber.runId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static String sessionId(AbstractSubProtocolEvent event) {
+        return SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+    }
+
+    private static String key(String sessionId, String subscriptionId) {
+        return sessionId + "/" + subscriptionId;
+    }
+
+    private static Long parseSeq(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static UUID parseRunId(String destination) {
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX) || !destination.endsWith(DESTINATION_SUFFIX)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(destination.substring(DESTINATION_PREFIX.length(),
+                    destination.length() - DESTINATION_SUFFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private class Subscriber {
+        private final UUID runId;
+        private final String sessionId;
+        private final String subscriptionId;
+        private final String destination;
+        private final String key;
+
+        // Guarded by this
+        private final ArrayDeque<byte[]> replay = new ArrayDeque<>();
+        private final LinkedHashMap<String, Pending> backlog = new LinkedHashMap<>();
+        private long replayedThrough;
+        private boolean inFlight;
+
+        Subscriber(UUID runId, String sessionId, String subscriptionId, String destination, boolean catchingUp) {
+            this.runId = runId;
+            this.sessionId = sessionId;
+            this.subscriptionId = subscriptionId;
+            this.destination = destination;
+            this.key = key(sessionId, subscriptionId);
+            // Live events wait in the backlog until the replay has been queued
+            this.inFlight = catchingUp;
+        }
+
+        void replay(List<RunEvent> events) {
+            synchronized (this) {
+                for (RunEvent event : events) {
+                    replay.add(event.getPayload().getBytes(StandardCharsets.UTF_8));
+                    replayedThrough = event.getSeq();
+                }
+                backlog.values().removeIf(pending -> pending.seq <= replayedThrough);
+            }
+            acknowledge();
+        }
+
+        void offer(long seq, String eventKey, byte[] payload) {
+            synchronized (this) {
+                if (seq <= replayedThrough) {
+                    return;
+                }
+                if (inFlight) {
+                    // Re-inserting moves the key to the back so the backlog stays in arrival order
+                    if (backlog.remove(eventKey) != null) {
+                        conflatedCounter.increment();
+                    }
+                    backlog.put(eventKey, new Pending(seq, payload));
+                    if (backlog.size() > maxPending) {
+                        Iterator<String> oldest = backlog.keySet().iterator();
+                        oldest.next();
+                        oldest.remove();
+                        droppedCounter.increment();
+                    }
+                    return;
+                }
+                inFlight = true;
+            }
+            send(payload);
+        }
+
+        void acknowledge() {
+            byte[] next = null;
+            synchronized (this) {
+                Iterator<Pending> iterator = backlog.values().iterator();
+                if (!replay.isEmpty()) {
+                    next = replay.poll();
+                } else if (iterator.hasNext()) {
+                    next = iterator.next().payload;
+                    iterator.remove();
+                } else {
+                    inFlight = false;
+                }
+            }
+            if (next != null) {
+                send(next);
+            }
+        }
+
+        private void send(byte[] payload) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(destination);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setHeader(SUBSCRIBER_HEADER, key);
+            accessor.setLeaveMutable(true);
+            try {
+                clientOutboundChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+            } catch (RuntimeException e) {
+                droppedCounter.increment();
+                acknowledge();
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final long seq;
+        private final byte[] payload;
+
+        Pending(long seq, byte[] payload) {
+            this.seq = seq;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.flowforge.runner.expression;
+
+import java.util.List;
+
+/**
+ * Syntax tree produced by {@link Parser}. Nodes are immutable; {@link Compiler} turns a tree into
+ * closures and {@link Interpreter} walks it directly.
+ */
+final class Ast {
+    private Ast() {}
+
+    abstract static class Node {
+        final int position;
+
+        Node(int position) {
+            this.position = position;
+        }
+    }
+
+    static final class Literal extends Node {
+        final Object value;
+
+        Literal(Object value, int position) {
+            super(position);
+            this.value = value;
+        }
+    }
+
+    static final class Input extends Node {
+        Input(int position) {
+            super(position);
+        }
+    }
+
+    static final class Member extends Node {
+        final Node target;
+        final String name;
+
+        Member(Node target, String name, int position) {
+            super(position);
+            this.target = target;
+            this.name = name;
+        }
+    }
+
+    static final class Index extends Node {
+        final Node target;
+        final Node index;
+
+        Index(Node target, Node index, int position) {
+            super(position);
+            this.target = target;
+            this.index = index;
+        }
+    }
+
+    static final class Unary extends Node {
+        final String operator;
+        final Node operand;
+
+        Unary(String operator, Node operand, int position) {
+            super(position);
+            this.operator = operator;
+            this.operand = operand;
+        }
+    }
+
+    static final class Binary extends Node {
+        final String operator;
+        final Node left;
+        final Node right;
+
+        Binary(String operator, Node left, Node right, int position) {
+            super(position);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    static final class Conditional extends Node {
+        final Node test;
+        final Node whenTrue;
+        final Node whenFalse;
+
+        Conditional(Node test, Node whenTrue, Node whenFalse, int position) {
+            super(position);
+            this.test = test;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+    }
+
+    static final class ObjectLiteral extends Node {
+        final List<String> keys;
+        final List<Node> values;
+
+        ObjectLiteral(List<String> keys, List<Node> values, int position) {
+            super(position);
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    static final class ArrayLiteral extends Node {
+        final List<Node> elements;
+
+        ArrayLiteral(List<Node> elements, int position) {
+            super(position);
+            this.elements = elements;
+        }
+    }
+}
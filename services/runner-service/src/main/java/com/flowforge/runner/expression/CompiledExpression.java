@@ -0,0 +1,16 @@
+package com.flowforge.runner.expression;
+
+import java.util.Map;
+
+/**
+ * An expression compiled to a tree of closures. Instances are immutable and safe to share between
+ * threads; evaluation reads the input in place and never copies it.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+    Object evaluate(Map<String, Object> input);
+
+    default boolean test(Map<String, Object> input) {
+        return Values.isTruthy(evaluate(input));
+    }
+}
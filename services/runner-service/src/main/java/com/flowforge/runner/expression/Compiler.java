@@ -0,0 +1,203 @@
+package com.flowforge.runner.expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a syntax tree into closures. Operators are resolved once here rather than on every
+ * evaluation, subtrees without input references are folded into constants and member chains
+ * rooted at {@code input} become a single path lookup.
+ */
+final class Compiler {
+    private Compiler() {}
+
+    static CompiledExpression compile(Ast.Node node) {
+        CompiledExpression compiled = compileNode(node);
+        if (isConstant(node)) {
+            Object value = compiled.evaluate(Map.of());
+            return input -> value;
+        }
+        return compiled;
+    }
+
+    private static CompiledExpression compileNode(Ast.Node node) {
+        if (node instanceof Ast.Literal literal) {
+            Object value = literal.value;
+            return input -> value;
+        }
+        if (node instanceof Ast.Input) {
+            return input -> input;
+        }
+        if (node instanceof Ast.Member member) {
+            List<String> path = inputPath(member);
+            if (path != null) {
+                return pathLookup(path.toArray(new String[0]));
+            }
+            CompiledExpression target = compile(member.target);
+            String name = member.name;
+            return input -> Values.member(target.evaluate(input), name);
+        }
+        if (node instanceof Ast.Index index) {
+            CompiledExpression target = compile(index.target);
+            CompiledExpression key = compile(index.index);
+            return input -> Values.index(target.evaluate(input), key.evaluate(input));
+        }
+        if (node instanceof Ast.Unary unary) {
+            CompiledExpression operand = compile(unary.operand);
+            switch (unary.operator) {
+                case "!":
+                    return input -> !Values.isTruthy(operand.evaluate(input));
+                case "-":
+                    return input -> Values.negate(operand.evaluate(input));
+                default:
+                    return input -> Values.toNumber(operand.evaluate(input));
+            }
+        }
+        if (node instanceof Ast.Binary binary) {
+            return compileBinary(binary);
+        }
+        if (node instanceof Ast.Conditional conditional) {
+            CompiledExpression test = compile(conditional.test);
+            CompiledExpression whenTrue = compile(conditional.whenTrue);
+            CompiledExpression whenFalse = compile(conditional.whenFalse);
+            return input -> test.test(input) ? whenTrue.evaluate(input) : whenFalse.evaluate(input);
+        }
+        if (node instanceof Ast.ObjectLiteral object) {
+            String[] keys = object.keys.toArray(new String[0]);
+            CompiledExpression[] values = compileAll(object.values);
+            return input -> {
+                Map<String, Object> result = new LinkedHashMap<>(keys.length * 2);
+                for (int i = 0; i < keys.length; i++) {
+                    result.put(keys[i], values[i].evaluate(input));
+                }
+                return result;
+            };
+        }
+        if (node instanceof Ast.ArrayLiteral array) {
+            CompiledExpression[] elements = compileAll(array.elements);
+            return input -> {
+                List<Object> result = new ArrayList<>(elements.length);
+                for (CompiledExpression element : elements) {
+                    result.add(element.evaluate(input));
+                }
+                return result;
+            };
+        }
+        throw new ExpressionException("Unsupported expression", node.position);
+    }
+
+    private static CompiledExpression compileBinary(Ast.Binary binary) {
+        CompiledExpression left = compile(binary.left);
+        CompiledExpression right = compile(binary.right);
+        switch (binary.operator) {
+            case "&&":
+                return input -> {
+                    Object value = left.evaluate(input);
+                    return Values.isTruthy(value) ? right.evaluate(input) : value;
+                };
+            case "||":
+                return input -> {
+                    Object value = left.evaluate(input);
+                    return Values.isTruthy(value) ? value : right.evaluate(input);
+                };
+            case "+":
+                return input -> Values.add(left.evaluate(input), right.evaluate(input));
+            case "-":
+                return input -> Values.subtract(left.evaluate(input), right.evaluate(input));
+            case "*":
+                return input -> Values.multiply(left.evaluate(input), right.evaluate(input));
+            case "/":
+                return input -> Values.divide(left.evaluate(input), right.evaluate(input));
+            case "%":
+                return input -> Values.remainder(left.evaluate(input), right.evaluate(input));
+            case "==":
+            case "===":
+                return input -> Values.equal(left.evaluate(input), right.evaluate(input));
+            case "!=":
+            case "!==":
+                return input -> !Values.equal(left.evaluate(input), right.evaluate(input));
+            case "<":
+                return input -> {
+                    Integer c = Values.compare(left.evaluate(input), right.evaluate(input));
+                    return c != null && c < 0;
+                };
+            case "<=":
+                return input -> {
+                    Integer c = Values.compare(left.evaluate(input), right.evaluate(input));
+                    return c != null && c <= 0;
+                };
+            case ">":
+                return input -> {
+                    Integer c = Values.compare(left.evaluate(input), right.evaluate(input));
+                    return c != null && c > 0;
+                };
+            case ">=":
+                return input -> {
+                    Integer c = Values.compare(left.evaluate(input), right.evaluate(input));
+                    return c != null && c >= 0;
+                };
+            default:
+                throw new ExpressionException("Unknown operator '" + binary.operator + "'", binary.position);
+        }
+    }
+
+    private static CompiledExpression pathLookup(String[] path) {
+        if (path.length == 1) {
+            String name = path[0];
+            return input -> input == null ? null : input.get(name);
+        }
+        return input -> {
+            Object value = input;
+            for (String name : path) {
+                if (value instanceof Map<?, ?> map) {
+                    value = map.get(name);
+                } else {
+                    return Values.member(value, name);
+                }
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Returns the member names of a chain like {@code input.a.b}, or {@code null} if the chain does
+     * not start at {@code input}.
+     */
+    private static List<String> inputPath(Ast.Member member) {
+        List<String> path = new ArrayList<>();
+        Ast.Node node = member;
+        while (node instanceof Ast.Member m) {
+            path.add(0, m.name);
+            node = m.target;
+        }
+        return node instanceof Ast.Input ? path : null;
+    }
+
+    private static CompiledExpression[] compileAll(List<Ast.Node> nodes) {
+        CompiledExpression[] compiled = new CompiledExpression[nodes.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = compile(nodes.get(i));
+        }
+        return compiled;
+    }
+
+    // Object and array literals are excluded because each evaluation must return a fresh instance
+    private static boolean isConstant(Ast.Node node) {
+        if (node instanceof Ast.Literal) {
+            return true;
+        }
+        if (node instanceof Ast.Unary unary) {
+            return isConstant(unary.operand);
+        }
+        if (node instanceof Ast.Binary binary) {
+            return isConstant(binary.left) && isConstant(binary.right);
+        }
+        if (node instanceof Ast.Conditional conditional) {
+            return isConstant(conditional.test) && isConstant(conditional.whenTrue)
+                    && isConstant(conditional.whenFalse);
+        }
+        return false;
+    }
+}
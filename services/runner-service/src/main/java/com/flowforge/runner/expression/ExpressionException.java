@@ -0,0 +1,18 @@
+package com.flowforge.runner.expression;
+
+/**
+ * An expression that cannot be parsed or compiled. Extends {@link IllegalArgumentException} so an
+ * invalid node configuration is rejected when the execution plan is compiled.
+ */
+public class ExpressionException extends IllegalArgumentException {
+    private final int position;
+
+    public ExpressionException(String message, int position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,21 @@
+package com.flowforge.runner.expression;
+
+/**
+ * Entry point of the expression language used by transform and condition nodes: a JavaScript-like
+ * subset with literals, object and array literals, member and index access on {@code input},
+ * arithmetic, comparison, logical and conditional operators.
+ */
+public final class Expressions {
+    private Expressions() {}
+
+    /**
+     * Parses and compiles an expression. Throws {@link ExpressionException} if it is not valid.
+     */
+    public static CompiledExpression compile(String source) {
+        return Compiler.compile(Parser.parse(source));
+    }
+
+    public static boolean isTruthy(Object value) {
+        return Values.isTruthy(value);
+    }
+}
@@ -0,0 +1,109 @@
+package com.flowforge.runner.expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a syntax tree by walking it on every call. The runner always uses {@link Compiler};
+ * this is the reference the compiled form is benchmarked against.
+ */
+final class Interpreter {
+    private Interpreter() {}
+
+    static Object evaluate(Ast.Node node, Map<String, Object> input) {
+        if (node instanceof Ast.Literal literal) {
+            return literal.value;
+        }
+        if (node instanceof Ast.Input) {
+            return input;
+        }
+        if (node instanceof Ast.Member member) {
+            return Values.member(evaluate(member.target, input), member.name);
+        }
+        if (node instanceof Ast.Index index) {
+            return Values.index(evaluate(index.target, input), evaluate(index.index, input));
+        }
+        if (node instanceof Ast.Unary unary) {
+            Object operand = evaluate(unary.operand, input);
+            switch (unary.operator) {
+                case "!":
+                    return !Values.isTruthy(operand);
+                case "-":
+                    return Values.negate(operand);
+                default:
+                    return Values.toNumber(operand);
+            }
+        }
+        if (node instanceof Ast.Binary binary) {
+            return evaluateBinary(binary, input);
+        }
+        if (node instanceof Ast.Conditional conditional) {
+            return Values.isTruthy(evaluate(conditional.test, input))
+                    ? evaluate(conditional.whenTrue, input)
+                    : evaluate(conditional.whenFalse, input);
+        }
+        if (node instanceof Ast.ObjectLiteral object) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (int i = 0; i < object.keys.size(); i++) {
+                result.put(object.keys.get(i), evaluate(object.values.get(i), input));
+            }
+            return result;
+        }
+        if (node instanceof Ast.ArrayLiteral array) {
+            List<Object> result = new ArrayList<>(array.elements.size());
+            for (Ast.Node element : array.elements) {
+                result.add(evaluate(element, input));
+            }
+            return result;
+        }
+        throw new ExpressionException("Unsupported expression", node.position);
+    }
+
+    private static Object evaluateBinary(Ast.Binary binary, Map<String, Object> input) {
+        Object left = evaluate(binary.left, input);
+        switch (binary.operator) {
+            case "&&":
+                return Values.isTruthy(left) ? evaluate(binary.right, input) : left;
+            case "||":
+                return Values.isTruthy(left) ? left : evaluate(binary.right, input);
+            default:
+                break;
+        }
+        Object right = evaluate(binary.right, input);
+        Integer comparison;
+        switch (binary.operator) {
+            case "+":
+                return Values.add(left, right);
+            case "-":
+                return Values.subtract(left, right);
+            case "*":
+                return Values.multiply(left, right);
+            case "/":
+                return Values.divide(left, right);
+            case "%":
+                return Values.remainder(left, right);
+            case "==":
+            case "===":
+                return Values.equal(left, right);
+            case "!=":
+            case "!==":
+                return !Values.equal(left, right);
+            case "<":
+                comparison = Values.compare(left, right);
+                return comparison != null && comparison < 0;
+            case "<=":
+                comparison = Values.compare(left, right);
+                return comparison != null && comparison <= 0;
+            case ">":
+                comparison = Values.compare(left, right);
+                return comparison != null && comparison > 0;
+            case ">=":
+                comparison = Values.compare(left, right);
+                return comparison != null && comparison >= 0;
+            default:
+                throw new ExpressionException("Unknown operator '" + binary.operator + "'", binary.position);
+        }
+    }
+}
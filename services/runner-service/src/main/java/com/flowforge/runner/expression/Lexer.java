@@ -0,0 +1,128 @@
+package com.flowforge.runner.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class Lexer {
+    // Longest operators first so "===" is not read as "==" followed by "="
+    private static final String[] OPERATORS = {
+            "===", "!==", "==", "!=", "<=", ">=", "&&", "||",
+            "<", ">", "+", "-", "*", "/", "%", "!", "?", ":", ".", ",", "(", ")", "[", "]", "{", "}", ";"
+    };
+
+    private final String source;
+    private int position;
+
+    private Lexer(String source) {
+        this.source = source;
+    }
+
+    static List<Token> tokenize(String source) {
+        return new Lexer(source).tokenize();
+    }
+
+    private List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>();
+        while (true) {
+            skipWhitespace();
+            if (position >= source.length()) {
+                tokens.add(new Token(Token.Type.END, "", null, position));
+                return tokens;
+            }
+            char c = source.charAt(position);
+            if (Character.isDigit(c) || (c == '.' && position + 1 < source.length()
+                    && Character.isDigit(source.charAt(position + 1)))) {
+                tokens.add(number());
+            } else if (c == '"' || c == '\'') {
+                tokens.add(string(c));
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = position;
+                while (position < source.length() && Character.isJavaIdentifierPart(source.charAt(position))) {
+                    position++;
+                }
+                String name = source.substring(start, position);
+                tokens.add(new Token(Token.Type.IDENTIFIER, name, null, start));
+            } else {
+                tokens.add(operator());
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < source.length()) {
+            char c = source.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (source.startsWith("//", position)) {
+                while (position < source.length() && source.charAt(position) != '\n') {
+                    position++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private Token number() {
+        int start = position;
+        boolean decimal = false;
+        while (position < source.length()) {
+            char c = source.charAt(position);
+            if (Character.isDigit(c)) {
+                position++;
+            } else if (c == '.' && !decimal) {
+                decimal = true;
+                position++;
+            } else if ((c == 'e' || c == 'E') && position + 1 < source.length()) {
+                decimal = true;
+                position++;
+                if (source.charAt(position) == '+' || source.charAt(position) == '-') {
+                    position++;
+                }
+            } else {
+                break;
+            }
+        }
+        String text = source.substring(start, position);
+        try {
+            Object value = decimal ? (Object) Double.parseDouble(text) : (Object) Long.parseLong(text);
+            return new Token(Token.Type.NUMBER, text, value, start);
+        } catch (NumberFormatException e) {
+            throw new ExpressionException("Invalid number '" + text + "'", start);
+        }
+    }
+
+    private Token string(char quote) {
+        int start = position++;
+        StringBuilder value = new StringBuilder();
+        while (position < source.length()) {
+            char c = source.charAt(position++);
+            if (c == quote) {
+                return new Token(Token.Type.STRING, source.substring(start, position), value.toString(), start);
+            }
+            if (c == '\\' && position < source.length()) {
+                char escaped = source.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    default -> value.append(escaped);
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        throw new ExpressionException("Unterminated string", start);
+    }
+
+    private Token operator() {
+        for (String operator : OPERATORS) {
+            if (source.startsWith(operator, position)) {
+                Token token = new Token(Token.Type.OPERATOR, operator, null, position);
+                position += operator.length();
+                return token;
+            }
+        }
+        throw new ExpressionException("Unexpected character '" + source.charAt(position) + "'", position);
+    }
+}
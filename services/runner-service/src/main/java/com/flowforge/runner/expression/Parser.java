@@ -0,0 +1,214 @@
+package com.flowforge.runner.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive-descent parser for the JavaScript-like expression subset used by transform and
+ * condition nodes. An optional leading {@code return} and trailing {@code ;} are accepted so the
+ * canvas placeholders ({@code return input.amount > 100}) parse as written.
+ */
+final class Parser {
+    private final List<Token> tokens;
+    private int current;
+
+    private Parser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    static Ast.Node parse(String source) {
+        if (source == null || source.isBlank()) {
+            throw new ExpressionException("Expression is empty", 0);
+        }
+        return new Parser(Lexer.tokenize(source)).parseProgram();
+    }
+
+    private Ast.Node parseProgram() {
+        if (peek().isKeyword("return")) {
+            current++;
+        }
+        Ast.Node expression = expression();
+        while (peek().is(";")) {
+            current++;
+        }
+        if (peek().type != Token.Type.END) {
+            throw unexpected(peek());
+        }
+        return expression;
+    }
+
+    private Ast.Node expression() {
+        Ast.Node test = binary(0);
+        if (peek().is("?")) {
+            Token question = next();
+            Ast.Node whenTrue = expression();
+            expect(":");
+            Ast.Node whenFalse = expression();
+            return new Ast.Conditional(test, whenTrue, whenFalse, question.position);
+        }
+        return test;
+    }
+
+    // Binary operators from loosest to tightest binding
+    private static final String[][] PRECEDENCE = {
+            {"||"},
+            {"&&"},
+            {"==", "!=", "===", "!=="},
+            {"<", "<=", ">", ">="},
+            {"+", "-"},
+            {"*", "/", "%"},
+    };
+
+    private Ast.Node binary(int level) {
+        if (level == PRECEDENCE.length) {
+            return unary();
+        }
+        Ast.Node left = binary(level + 1);
+        while (true) {
+            String operator = matchOperator(PRECEDENCE[level]);
+            if (operator == null) {
+                return left;
+            }
+            Token token = next();
+            left = new Ast.Binary(operator, left, binary(level + 1), token.position);
+        }
+    }
+
+    private String matchOperator(String[] operators) {
+        Token token = peek();
+        for (String operator : operators) {
+            if (token.is(operator)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    private Ast.Node unary() {
+        Token token = peek();
+        if (token.is("!") || token.is("-") || token.is("+")) {
+            current++;
+            return new Ast.Unary(token.text, unary(), token.position);
+        }
+        return postfix(primary());
+    }
+
+    private Ast.Node postfix(Ast.Node target) {
+        while (true) {
+            Token token = peek();
+            if (token.is(".")) {
+                current++;
+                Token name = next();
+                if (name.type != Token.Type.IDENTIFIER) {
+                    throw unexpected(name);
+                }
+                target = new Ast.Member(target, name.text, name.position);
+            } else if (token.is("[")) {
+                current++;
+                Ast.Node index = expression();
+                expect("]");
+                target = new Ast.Index(target, index, token.position);
+            } else {
+                return target;
+            }
+        }
+    }
+
+    private Ast.Node primary() {
+        Token token = next();
+        switch (token.type) {
+            case NUMBER:
+            case STRING:
+                return new Ast.Literal(token.value, token.position);
+            case IDENTIFIER:
+                switch (token.text) {
+                    case "input":
+                        return new Ast.Input(token.position);
+                    case "true":
+                        return new Ast.Literal(Boolean.TRUE, token.position);
+                    case "false":
+                        return new Ast.Literal(Boolean.FALSE, token.position);
+                    case "null":
+                    case "undefined":
+                        return new Ast.Literal(null, token.position);
+                    default:
+                        throw new ExpressionException("Unknown identifier '" + token.text + "'", token.position);
+                }
+            case OPERATOR:
+                if (token.is("(")) {
+                    Ast.Node inner = expression();
+                    expect(")");
+                    return inner;
+                }
+                if (token.is("{")) {
+                    return objectLiteral(token);
+                }
+                if (token.is("[")) {
+                    return arrayLiteral(token);
+                }
+                throw unexpected(token);
+            default:
+                throw unexpected(token);
+        }
+    }
+
+    private Ast.Node objectLiteral(Token open) {
+        List<String> keys = new ArrayList<>();
+        List<Ast.Node> values = new ArrayList<>();
+        while (!peek().is("}")) {
+            Token key = next();
+            if (key.type == Token.Type.IDENTIFIER) {
+                keys.add(key.text);
+            } else if (key.type == Token.Type.STRING) {
+                keys.add((String) key.value);
+            } else {
+                throw unexpected(key);
+            }
+            expect(":");
+            values.add(expression());
+            if (!peek().is("}")) {
+                expect(",");
+            }
+        }
+        current++;
+        return new Ast.ObjectLiteral(List.copyOf(keys), List.copyOf(values), open.position);
+    }
+
+    private Ast.Node arrayLiteral(Token open) {
+        List<Ast.Node> elements = new ArrayList<>();
+        while (!peek().is("]")) {
+            elements.add(expression());
+            if (!peek().is("]")) {
+                expect(",");
+            }
+        }
+        current++;
+        return new Ast.ArrayLiteral(List.copyOf(elements), open.position);
+    }
+
+    private Token peek() {
+        return tokens.get(current);
+    }
+
+    private Token next() {
+        Token token = tokens.get(current);
+        if (token.type != Token.Type.END) {
+            current++;
+        }
+        return token;
+    }
+
+    private void expect(String operator) {
+        Token token = next();
+        if (!token.is(operator)) {
+            throw new ExpressionException("Expected '" + operator + "' but found "
+                    + (token.type == Token.Type.END ? "end of expression" : "'" + token.text + "'"), token.position);
+        }
+    }
+
+    private static ExpressionException unexpected(Token token) {
+        return new ExpressionException(token.type == Token.Type.END
+                ? "Unexpected end of expression"
+                : "Unexpected '" + token.text + "'", token.position);
+    }
+}
@@ -0,0 +1,27 @@
+package com.flowforge.runner.expression;
+
+final class Token {
+    enum Type {
+        NUMBER, STRING, IDENTIFIER, OPERATOR, END
+    }
+
+    final Type type;
+    final String text;
+    final Object value;
+    final int position;
+
+    Token(Type type, String text, Object value, int position) {
+        this.type = type;
+        this.text = text;
+        this.value = value;
+        this.position = position;
+    }
+
+    boolean is(String operator) {
+        return type == Type.OPERATOR && text.equals(operator);
+    }
+
+    boolean isKeyword(String keyword) {
+        return type == Type.IDENTIFIER && text.equals(keyword);
+    }
+}
@@ -0,0 +1,203 @@
+package com.flowforge.runner.expression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Operator semantics shared by the compiled and interpreted evaluators. Values are the plain Java
+ * types Jackson produces for JSON ({@link Map}, {@link List}, {@link String}, {@link Number},
+ * {@link Boolean}, {@code null}). Arithmetic stays integral while both operands are integral and
+ * the result fits in a {@code long}; reading a member of {@code null} yields {@code null}.
+ */
+final class Values {
+    private Values() {}
+
+    static boolean isTruthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        if (value instanceof Number n) {
+            double d = n.doubleValue();
+            return d != 0 && !Double.isNaN(d);
+        }
+        if (value instanceof String s) {
+            return !s.isEmpty();
+        }
+        return true;
+    }
+
+    static Object member(Object target, String name) {
+        if (target instanceof Map<?, ?> map) {
+            return map.get(name);
+        }
+        if ("length".equals(name)) {
+            if (target instanceof String s) {
+                return (long) s.length();
+            }
+            if (target instanceof List<?> list) {
+                return (long) list.size();
+            }
+        }
+        return null;
+    }
+
+    static Object index(Object target, Object index) {
+        if (target instanceof List<?> list && index instanceof Number n) {
+            int i = n.intValue();
+            return i >= 0 && i < list.size() ? list.get(i) : null;
+        }
+        if (target instanceof String s && index instanceof Number n) {
+            int i = n.intValue();
+            return i >= 0 && i < s.length() ? String.valueOf(s.charAt(i)) : null;
+        }
+        return index == null ? null : member(target, index instanceof Number n && isIntegral(n)
+                ? String.valueOf(n.longValue())
+                : String.valueOf(index));
+    }
+
+    static Object add(Object left, Object right) {
+        if (left instanceof String || right instanceof String) {
+            return toText(left) + toText(right);
+        }
+        Number a = toNumber(left);
+        Number b = toNumber(right);
+        if (isIntegral(a) && isIntegral(b)) {
+            try {
+                return Math.addExact(a.longValue(), b.longValue());
+            } catch (ArithmeticException overflow) {
+                // Falls through to floating point like JavaScript
+            }
+        }
+        return a.doubleValue() + b.doubleValue();
+    }
+
+    static Object subtract(Object left, Object right) {
+        Number a = toNumber(left);
+        Number b = toNumber(right);
+        if (isIntegral(a) && isIntegral(b)) {
+            try {
+                return Math.subtractExact(a.longValue(), b.longValue());
+            } catch (ArithmeticException overflow) {
+                // Falls through to floating point
+            }
+        }
+        return a.doubleValue() - b.doubleValue();
+    }
+
+    static Object multiply(Object left, Object right) {
+        Number a = toNumber(left);
+        Number b = toNumber(right);
+        if (isIntegral(a) && isIntegral(b)) {
+            try {
+                return Math.multiplyExact(a.longValue(), b.longValue());
+            } catch (ArithmeticException overflow) {
+                // Falls through to floating point
+            }
+        }
+        return a.doubleValue() * b.doubleValue();
+    }
+
+    static Object divide(Object left, Object right) {
+        Number a = toNumber(left);
+        Number b = toNumber(right);
+        if (isIntegral(a) && isIntegral(b) && b.longValue() != 0 && a.longValue() % b.longValue() == 0) {
+            return a.longValue() / b.longValue();
+        }
+        return a.doubleValue() / b.doubleValue();
+    }
+
+    static Object remainder(Object left, Object right) {
+        Number a = toNumber(left);
+        Number b = toNumber(right);
+        if (isIntegral(a) && isIntegral(b) && b.longValue() != 0) {
+            return a.longValue() % b.longValue();
+        }
+        return a.doubleValue() % b.doubleValue();
+    }
+
+    static Object negate(Object value) {
+        Number n = toNumber(value);
+        if (isIntegral(n) && n.longValue() != Long.MIN_VALUE) {
+            return -n.longValue();
+        }
+        return -n.doubleValue();
+    }
+
+    static boolean equal(Object left, Object right) {
+        if (left instanceof Number a && right instanceof Number b) {
+            return isIntegral(a) && isIntegral(b)
+                    ? a.longValue() == b.longValue()
+                    : a.doubleValue() == b.doubleValue();
+        }
+        return Objects.equals(left, right);
+    }
+
+    /**
+     * Returns a negative, zero or positive number, or {@code null} if the values are not comparable
+     * (which makes every relational operator false, as in JavaScript).
+     */
+    static Integer compare(Object left, Object right) {
+        if (left instanceof String a && right instanceof String b) {
+            return a.compareTo(b);
+        }
+        if (left == null || right == null) {
+            return null;
+        }
+        Number a = toNumber(left);
+        Number b = toNumber(right);
+        if (isIntegral(a) && isIntegral(b)) {
+            return Long.compare(a.longValue(), b.longValue());
+        }
+        double x = a.doubleValue();
+        double y = b.doubleValue();
+        return Double.isNaN(x) || Double.isNaN(y) ? null : Double.compare(x, y);
+    }
+
+    static Number toNumber(Object value) {
+        if (value instanceof Number n) {
+            return n;
+        }
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Boolean b) {
+            return b ? 1L : 0L;
+        }
+        if (value instanceof String s) {
+            String trimmed = s.trim();
+            if (trimmed.isEmpty()) {
+                return 0L;
+            }
+            try {
+                return Long.parseLong(trimmed);
+            } catch (NumberFormatException notIntegral) {
+                try {
+                    return Double.parseDouble(trimmed);
+                } catch (NumberFormatException notNumeric) {
+                    return Double.NaN;
+                }
+            }
+        }
+        return Double.NaN;
+    }
+
+    static String toText(Object value) {
+        if (value instanceof Double d && d == Math.rint(d) && !Double.isInfinite(d)) {
+            return String.valueOf(d.longValue());
+        }
+        return String.valueOf(value);
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte
+                || (n instanceof BigInteger big && big.bitLength() < 64)
+                || (n instanceof BigDecimal decimal && decimal.stripTrailingZeros().scale() <= 0
+                    && decimal.abs().compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0);
+    }
+}
@@ -0,0 +1,56 @@
+package com.flowforge.runner.model;
+
+import jakarta.persistence.*;
+import java.util.UUID;
+
+/**
+ * Run limits of an org, overriding the configured defaults. Read by {@code RunLimits}; mapped here so
+ * the table is part of the schema.
+ */
+@Entity
+@Table(name = "org_run_limits")
+public class OrgRunLimit {
+    @Id
+    @Column(name = "org_id")
+    private UUID orgId;
+
+    @Column(name = "max_running")
+    private Integer maxRunning;
+
+    @Column(name = "max_pending")
+    private Integer maxPending;
+
+    private Integer weight;
+
+    public UUID getOrgId() {
+        return orgId;
+    }
+
+    public void setOrgId(UUID orgId) {
+        this.orgId = orgId;
+    }
+
+    public Integer getMaxRunning() {
+        return maxRunning;
+    }
+
+    public void setMaxRunning(Integer maxRunning) {
+        this.maxRunning = maxRunning;
+    }
+
+    public Integer getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(Integer maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Integer weight) {
+        this.weight = weight;
+    }
+}
@@ -14,6 +14,10 @@ public class Run {
     @Column(name = "workflow_id", nullable = false)
     private UUID workflowId;
 
+    // Tenant the run is scheduled and limited under; that of its workflow
+    @Column(name = "org_id")
+    private UUID orgId;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private RunStatus status;
@@ -30,6 +34,30 @@ public class Run {
     @Column(name = "error_message", columnDefinition = "TEXT")
     private String errorMessage;
 
+    // Runs of a saved version execute its cached plan; graph_json is only kept for unsaved graphs
+    @Column(name = "workflow_version")
+    private Integer workflowVersion;
+
+    @Column(name = "graph_json", columnDefinition = "jsonb")
+    private String graphJson;
+
+    // Handed to the trigger nodes, e.g. the webhook request that started the run
+    @Column(name = "input_json", columnDefinition = "jsonb")
+    private String inputJson;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Set while a cancel request waits for the replica that owns the run
+    @Column(name = "cancel_requested_at")
+    private LocalDateTime cancelRequestedAt;
+
     @PrePersist
     protected void onCreate() {
         if (startedAt == null) {
@@ -38,6 +66,9 @@ public class Run {
         if (status == null) {
             status = RunStatus.PENDING;
         }
+        if (attempts == null) {
+            attempts = 0;
+        }
     }
 
     public UUID getId() {
@@ -56,6 +87,14 @@ public class Run {
         this.workflowId = workflowId;
     }
 
+    public UUID getOrgId() {
+        return orgId;
+    }
+
+    public void setOrgId(UUID orgId) {
+        this.orgId = orgId;
+    }
+
     public RunStatus getStatus() {
         return status;
     }
@@ -96,6 +135,62 @@ public class Run {
         this.errorMessage = errorMessage;
     }
 
+    public Integer getWorkflowVersion() {
+        return workflowVersion;
+    }
+
+    public void setWorkflowVersion(Integer workflowVersion) {
+        this.workflowVersion = workflowVersion;
+    }
+
+    public String getGraphJson() {
+        return graphJson;
+    }
+
+    public void setGraphJson(String graphJson) {
+        this.graphJson = graphJson;
+    }
+
+    public String getInputJson() {
+        return inputJson;
+    }
+
+    public void setInputJson(String inputJson) {
+        this.inputJson = inputJson;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCancelRequestedAt() {
+        return cancelRequestedAt;
+    }
+
+    public void setCancelRequestedAt(LocalDateTime cancelRequestedAt) {
+        this.cancelRequestedAt = cancelRequestedAt;
+    }
+
     public enum RunStatus {
         PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
     }
@@ -0,0 +1,90 @@
+package com.flowforge.runner.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One entry of a run's append-only event log: the stream message exactly as it was published.
+ * Written in batches by {@code RunEventLog}; mapped here so the table is part of the schema.
+ */
+@Entity
+@Table(name = "run_events")
+@IdClass(RunEventRecord.Key.class)
+public class RunEventRecord {
+    @Id
+    @Column(name = "run_id", nullable = false)
+    private UUID runId;
+
+    @Id
+    @Column(nullable = false)
+    private Long seq;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public UUID getRunId() {
+        return runId;
+    }
+
+    public void setRunId(UUID runId) {
+        this.runId = runId;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public static class Key implements Serializable {
+        private UUID runId;
+        private Long seq;
+
+        public Key() {}
+
+        public Key(UUID runId, Long seq) {
+            this.runId = runId;
+            this.seq = seq;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(runId, key.runId) && Objects.equals(seq, key.seq);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(runId, seq);
+        }
+    }
+}
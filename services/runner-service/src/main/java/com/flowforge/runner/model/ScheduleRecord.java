@@ -0,0 +1,58 @@
+package com.flowforge.runner.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Last fire of a schedule trigger node. Written by {@code CronScheduler}; mapped here so the table is
+ * part of the schema.
+ */
+@Entity
+@Table(name = "workflow_schedules",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"workflow_id", "node_id"}))
+public class ScheduleRecord {
+    @Id
+    private UUID id;
+
+    @Column(name = "workflow_id", nullable = false)
+    private UUID workflowId;
+
+    @Column(name = "node_id", nullable = false)
+    private String nodeId;
+
+    @Column(name = "last_fired_at", nullable = false)
+    private LocalDateTime lastFiredAt;
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(UUID workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public LocalDateTime getLastFiredAt() {
+        return lastFiredAt;
+    }
+
+    public void setLastFiredAt(LocalDateTime lastFiredAt) {
+        this.lastFiredAt = lastFiredAt;
+    }
+}
@@ -1,5 +1,6 @@
 package com.flowforge.runner.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -7,8 +8,8 @@ import java.util.UUID;
 @Entity
 @Table(name = "step_runs")
 public class StepRun {
+    // Assigned by the runner when the step starts so transitions can be streamed and batched before insert
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
     @Column(name = "run_id", nullable = false)
@@ -27,6 +28,19 @@ public class StepRun {
     @Column(name = "output_json", columnDefinition = "jsonb")
     private String outputJson;
 
+    // Where a payload too large to keep inline is stored; the JSON column is null then
+    @Column(name = "input_location", length = 80)
+    private String inputLocation;
+
+    @Column(name = "output_location", length = 80)
+    private String outputLocation;
+
+    @Column(name = "input_size")
+    private Long inputSize;
+
+    @Column(name = "output_size")
+    private Long outputSize;
+
     @Column(name = "started_at")
     private LocalDateTime startedAt;
 
@@ -97,6 +111,55 @@ public class StepRun {
         this.outputJson = outputJson;
     }
 
+    @JsonIgnore
+    public String getInputLocation() {
+        return inputLocation;
+    }
+
+    public void setInputLocation(String inputLocation) {
+        this.inputLocation = inputLocation;
+    }
+
+    @JsonIgnore
+    public String getOutputLocation() {
+        return outputLocation;
+    }
+
+    public void setOutputLocation(String outputLocation) {
+        this.outputLocation = outputLocation;
+    }
+
+    public Long getInputSize() {
+        return inputSize;
+    }
+
+    public void setInputSize(Long inputSize) {
+        this.inputSize = inputSize;
+    }
+
+    public Long getOutputSize() {
+        return outputSize;
+    }
+
+    public void setOutputSize(Long outputSize) {
+        this.outputSize = outputSize;
+    }
+
+    /**
+     * URL of the input when it is stored out of line, otherwise null.
+     */
+    public String getInputRef() {
+        return inputLocation == null ? null : payloadUrl("input");
+    }
+
+    public String getOutputRef() {
+        return outputLocation == null ? null : payloadUrl("output");
+    }
+
+    private String payloadUrl(String name) {
+        return "/api/runs/" + runId + "/steps/" + id + "/" + name;
+    }
+
     public LocalDateTime getStartedAt() {
         return startedAt;
     }
@@ -0,0 +1,35 @@
+package com.flowforge.runner.model;
+
+import jakarta.persistence.*;
+import java.util.UUID;
+
+/**
+ * Limit on concurrently executing runs of a workflow, overriding the configured default. Read by
+ * {@code RunLimits}; mapped here so the table is part of the schema.
+ */
+@Entity
+@Table(name = "workflow_run_limits")
+public class WorkflowRunLimit {
+    @Id
+    @Column(name = "workflow_id")
+    private UUID workflowId;
+
+    @Column(name = "max_running")
+    private Integer maxRunning;
+
+    public UUID getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(UUID workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public Integer getMaxRunning() {
+        return maxRunning;
+    }
+
+    public void setMaxRunning(Integer maxRunning) {
+        this.maxRunning = maxRunning;
+    }
+}
@@ -0,0 +1,408 @@
+package com.flowforge.runner.nodes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.NodeExecutor;
+import com.flowforge.runner.engine.RecordStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends the node's request with the shared non-blocking {@link HttpClient}. The request is built once
+ * per plan, and no thread waits while it is in flight: the node's {@code timeout} (seconds) covers the
+ * whole exchange and aborts it when exceeded, as does cancelling the step. The output is {@code {"status", "headers", "body"}},
+ * with a JSON body parsed from the received bytes. Responses with status 400 or above fail the step.
+ * <p>
+ * With {@code stream} on, the node pages through a paginated API and streams the records instead. The
+ * records of a page are the array at {@code recordsPath}, a dotted path into the JSON body (the body
+ * itself if empty); the next page is the URL at {@code nextPath}, relative to the current one, or else
+ * the {@code next} link of the {@code Link} header. Later pages repeat the request with the next URL.
+ * The first page is fetched by the step's attempt, so its failures are retried; a later page that fails
+ * fails the step. Each page is fetched once the consumer took the one before.
+ */
+@Component
+public class HttpRequestNodeExecutor implements NodeExecutor<HttpRequest> {
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "DELETE", "PATCH");
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]*)>\\s*;.*rel=\"?next\"?");
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration defaultTimeout;
+
+    @Autowired
+    public HttpRequestNodeExecutor(
+            HttpClient httpClient,
+            ObjectMapper objectMapper,
+            @Value("${flowforge.runner.http.default-timeout-seconds:30}") long defaultTimeoutSeconds) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.defaultTimeout = Duration.ofSeconds(defaultTimeoutSeconds);
+    }
+
+    @Override
+    public String getNodeType() {
+        return "httpRequest";
+    }
+
+    @Override
+    public HttpRequest prepare(GraphNode node) {
+        String url = node.getProperty("url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("url is required");
+        }
+        URI uri;
+        try {
+            uri = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid url: " + url);
+        }
+        if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalArgumentException("url must be http or https: " + url);
+        }
+
+        String method = node.getProperty("method");
+        method = method == null || method.isBlank() ? "GET" : method.trim().toUpperCase(Locale.ROOT);
+        if (!METHODS.contains(method)) {
+            throw new IllegalArgumentException("Unsupported method: " + method);
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(timeout(node));
+        Map<String, String> headers = headers(node.getProperties().get("headers"));
+        headers.forEach(request::header);
+        String body = body(node.getProperties().get("body"));
+        if (body == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            if (headers.keySet().stream().noneMatch("Content-Type"::equalsIgnoreCase)) {
+                request.header("Content-Type", "application/json");
+            }
+            request.method(method, HttpRequest.BodyPublishers.ofString(body));
+        }
+        return request.build();
+    }
+
+    @Override
+    public Map<String, Object> execute(GraphNode node, HttpRequest request, Map<String, Object> input) throws Exception {
+        try {
+            return executeAsync(node, request, input).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @Override
+    public boolean streamsRecords(GraphNode node) {
+        return node.isEnabled("stream");
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> executeAsync(GraphNode node, HttpRequest request, Map<String, Object> input) {
+        if (!streamsRecords(node)) {
+            return exchange(request, this::toOutput);
+        }
+        String recordsPath = node.getProperty("recordsPath");
+        String nextPath = node.getProperty("nextPath");
+        return exchange(request, response -> {
+            Page first = page(request, response, recordsPath, nextPath);
+            Map<String, Object> output = new LinkedHashMap<>();
+            output.put(RecordStream.KEY, new PageStream(request, first, recordsPath, nextPath));
+            return output;
+        });
+    }
+
+    /**
+     * Sends the request and hands a successful response to {@code handler}. Cancelling the result aborts
+     * the exchange.
+     */
+    private <T> CompletableFuture<T> exchange(HttpRequest request, Function<HttpResponse<byte[]>, T> handler) {
+        Duration timeout = request.timeout().orElse(defaultTimeout);
+        CompletableFuture<HttpResponse<byte[]>> exchange =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        // The request timeout only covers the response headers, so the body is bounded here as well
+        CompletableFuture<T> result = exchange
+                .thenApply(response -> {
+                    if (response.statusCode() >= 400) {
+                        throw new HttpStatusException(request, response.statusCode());
+                    }
+                    return handler.apply(response);
+                })
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    exchange.cancel(true);
+                    throw failure(request, timeout, error);
+                });
+        // A cancelled step aborts its exchange and frees the connection's stream
+        result.whenComplete((output, error) -> {
+            if (error instanceof CancellationException) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private Map<String, Object> toOutput(HttpResponse<byte[]> response) {
+        Map<String, Object> headers = new LinkedHashMap<>();
+        response.headers().map().forEach((name, values) -> {
+            if (!name.startsWith(":")) {
+                headers.put(name, values.size() == 1 ? values.get(0) : values);
+            }
+        });
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("status", response.statusCode());
+        output.put("headers", headers);
+        output.put("body", body(response));
+        return output;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Page page(HttpRequest request, HttpResponse<byte[]> response, String recordsPath, String nextPath) {
+        Object body = body(response);
+        if (!(path(body, recordsPath) instanceof List<?> list)) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " returned no record array"
+                    + (recordsPath == null || recordsPath.isBlank() ? "" : " at " + recordsPath));
+        }
+        List<Map<String, Object>> records = new ArrayList<>(list.size());
+        for (Object record : list) {
+            if (record instanceof Map) {
+                records.add((Map<String, Object>) record);
+            } else {
+                Map<String, Object> wrapped = new LinkedHashMap<>();
+                wrapped.put("value", record);
+                records.add(wrapped);
+            }
+        }
+        String next;
+        if (nextPath != null && !nextPath.isBlank()) {
+            Object value = path(body, nextPath);
+            next = value == null ? null : value.toString();
+        } else {
+            next = response.headers().allValues("Link").stream()
+                    .flatMap(header -> Arrays.stream(header.split(",")))
+                    .map(NEXT_LINK::matcher)
+                    .filter(Matcher::find)
+                    .map(matcher -> matcher.group(1))
+                    .findFirst()
+                    .orElse(null);
+        }
+        URI nextUri = next == null || next.isBlank() ? null : request.uri().resolve(next.trim());
+        // A server that keeps returning the same page would never end the stream
+        return new Page(records, request.uri().equals(nextUri) ? null : nextUri);
+    }
+
+    private static Object path(Object value, String path) {
+        if (path == null || path.isBlank()) {
+            return value;
+        }
+        for (String segment : path.trim().split("\\.")) {
+            value = value instanceof Map<?, ?> map ? map.get(segment) : null;
+        }
+        return value;
+    }
+
+    private Object body(HttpResponse<byte[]> response) {
+        byte[] bytes = response.body();
+        if (bytes.length == 0) {
+            return null;
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse("").toLowerCase(Locale.ROOT);
+        if (contentType.contains("json")) {
+            try {
+                return objectMapper.readValue(bytes, Object.class);
+            } catch (IOException e) {
+                // Fall through and keep the body as text
+            }
+        }
+        return new String(bytes, charset(contentType));
+    }
+
+    private static Charset charset(String contentType) {
+        int index = contentType.indexOf("charset=");
+        if (index >= 0) {
+            String name = contentType.substring(index + "charset=".length()).split(";")[0].trim().replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException e) {
+                // Unknown charsets are read as UTF-8
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Timeouts, connection failures, and statuses saying the server is busy or temporarily broken.
+     */
+    @Override
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof HttpStatusException status) {
+            int code = status.getStatusCode();
+            return code == 408 || code == 425 || code == 429 || (code >= 500 && code != 501);
+        }
+        return NodeExecutor.super.isRetryable(error);
+    }
+
+    private static RuntimeException failure(HttpRequest request, Duration timeout, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String target = request.method() + " " + request.uri();
+        if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+            return new RuntimeException(target + " timed out after " + timeout.toMillis() + " ms", cause);
+        }
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new RuntimeException(target + " failed: " + cause, cause);
+    }
+
+    private Duration timeout(GraphNode node) {
+        String timeout = node.getProperty("timeout");
+        if (timeout == null || timeout.isBlank()) {
+            return defaultTimeout;
+        }
+        try {
+            double seconds = Double.parseDouble(timeout.trim());
+            if (seconds <= 0) {
+                throw new IllegalArgumentException("timeout must be positive: " + timeout);
+            }
+            return Duration.ofMillis((long) (seconds * 1000));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid timeout: " + timeout);
+        }
+    }
+
+    private Map<String, String> headers(Object value) {
+        Map<String, Object> headers;
+        if (value == null || (value instanceof String text && text.isBlank())) {
+            return Map.of();
+        }
+        if (value instanceof Map) {
+            headers = objectMapper.convertValue(value, new TypeReference<>() {});
+        } else {
+            try {
+                headers = objectMapper.readValue(value.toString(), new TypeReference<>() {});
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("headers must be a JSON object");
+            }
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        headers.forEach((name, header) -> {
+            if (header instanceof List<?> values) {
+                result.put(name, String.join(", ", values.stream().map(String::valueOf).toList()));
+            } else if (header != null) {
+                result.put(name, header.toString());
+            }
+        });
+        return result;
+    }
+
+    private String body(Object value) {
+        if (value == null || (value instanceof String text && text.isBlank())) {
+            return null;
+        }
+        if (value instanceof String text) {
+            return text;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid body: " + e.getMessage());
+        }
+    }
+
+    private static final class Page {
+        private final List<Map<String, Object>> records;
+        private final URI next;
+
+        Page(List<Map<String, Object>> records, URI next) {
+            this.records = records;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Records of a paginated API, one page per chunk.
+     */
+    private final class PageStream extends RecordStream {
+        private final HttpRequest request;
+        private final String recordsPath;
+        private final String nextPath;
+        private List<Map<String, Object>> first;
+        private URI next;
+        private volatile CompletableFuture<?> pending;
+
+        PageStream(HttpRequest request, Page first, String recordsPath, String nextPath) {
+            this.request = request;
+            this.recordsPath = recordsPath;
+            this.nextPath = nextPath;
+            this.first = first.records;
+            this.next = first.next;
+        }
+
+        @Override
+        protected CompletableFuture<List<Map<String, Object>>> fetch() {
+            if (first != null) {
+                List<Map<String, Object>> records = first;
+                first = null;
+                return CompletableFuture.completedFuture(records);
+            }
+            if (next == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            HttpRequest page = HttpRequest.newBuilder(request, (name, value) -> true).uri(next).build();
+            CompletableFuture<Page> response = exchange(page, result -> page(page, result, recordsPath, nextPath));
+            pending = response;
+            return response.thenApply(result -> {
+                next = result.next;
+                return result.records;
+            });
+        }
+
+        @Override
+        protected void close(Throwable reason) {
+            CompletableFuture<?> response = pending;
+            if (response != null) {
+                response.cancel(true);
+            }
+        }
+    }
+
+    static final class HttpStatusException extends RuntimeException {
+        private final int statusCode;
+
+        HttpStatusException(HttpRequest request, int statusCode) {
+            super(request.method() + " " + request.uri() + " returned HTTP " + statusCode);
+            this.statusCode = statusCode;
+        }
+
+        int getStatusCode() {
+            return statusCode;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.flowforge.runner.nodes;
+
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.NodeExecutor;
+import com.flowforge.runner.expression.CompiledExpression;
+import com.flowforge.runner.expression.Expressions;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evaluates the node's {@code condition}. The input is passed on as {@code data}; when the condition
+ * is false the downstream branch is skipped.
+ */
+@Component
+public class IfConditionNodeExecutor implements NodeExecutor<CompiledExpression> {
+    @Override
+    public String getNodeType() {
+        return "ifCondition";
+    }
+
+    @Override
+    public CompiledExpression prepare(GraphNode node) {
+        return Expressions.compile(node.getProperty("condition"));
+    }
+
+    @Override
+    public Map<String, Object> execute(GraphNode node, CompiledExpression condition, Map<String, Object> input) {
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("result", condition.test(input));
+        output.put("data", input);
+        return output;
+    }
+
+    @Override
+    public boolean activatesSuccessors(Map<String, Object> output) {
+        return Boolean.TRUE.equals(output.get("result"));
+    }
+}
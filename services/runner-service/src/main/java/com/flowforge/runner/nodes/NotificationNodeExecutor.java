@@ -0,0 +1,59 @@
+package com.flowforge.runner.nodes;
+
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.NodeExecutor;
+import com.flowforge.runner.notifications.NotificationDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Queues the node's {@code message} for delivery to {@code target} over {@code channel}. The step
+ * completes once the message is durably queued; the {@link NotificationDispatcher} sends it later.
+ */
+@Component
+public class NotificationNodeExecutor implements NodeExecutor<Void> {
+    private final NotificationDispatcher dispatcher;
+
+    @Autowired
+    public NotificationNodeExecutor(NotificationDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public String getNodeType() {
+        return "notification";
+    }
+
+    @Override
+    public Void prepare(GraphNode node) {
+        String channel = node.getProperty("channel");
+        if (channel == null || !dispatcher.getChannels().contains(channel)) {
+            throw new IllegalArgumentException("channel must be one of " + dispatcher.getChannels());
+        }
+        if (isBlank(node.getProperty("target"))) {
+            throw new IllegalArgumentException("target is required");
+        }
+        if (isBlank(node.getProperty("message"))) {
+            throw new IllegalArgumentException("message is required");
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> execute(GraphNode node, Void config, Map<String, Object> input) {
+        UUID id = dispatcher.enqueue(node.getId(), node.getProperty("channel"),
+                node.getProperty("target").trim(), node.getProperty("message"));
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("notificationId", id.toString());
+        output.put("status", "QUEUED");
+        return output;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,121 @@
+package com.flowforge.runner.nodes;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The SQL of a Postgres Write node with its {@code :name} parameters replaced by JDBC placeholders.
+ * A parameter name may be a dotted path into the step input, e.g. {@code :order.id}.
+ */
+final class PostgresStatement {
+    private final String connection;
+    private final String sql;
+    private final List<String> parameters;
+    private final boolean batched;
+
+    private PostgresStatement(String connection, String sql, List<String> parameters, boolean batched) {
+        this.connection = connection;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.batched = batched;
+    }
+
+    static PostgresStatement parse(String connection, String sql, boolean batched) {
+        if (sql == null || sql.isBlank()) {
+            throw new IllegalArgumentException("sql is required");
+        }
+        StringBuilder jdbcSql = new StringBuilder(sql.length());
+        List<String> parameters = new ArrayList<>();
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            int end;
+            if (c == '\'' || c == '"') {
+                end = sql.indexOf(c, i + 1);
+                end = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("--", i)) {
+                end = sql.indexOf('\n', i);
+                end = end < 0 ? sql.length() : end;
+            } else if (sql.startsWith("/*", i)) {
+                end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? sql.length() : end + 2;
+            } else if (sql.startsWith("::", i)) {
+                end = i + 2;
+            } else if (c == ':' && i + 1 < sql.length() && Character.isJavaIdentifierStart(sql.charAt(i + 1))) {
+                end = i + 1;
+                while (end < sql.length()
+                        && (Character.isJavaIdentifierPart(sql.charAt(end)) || isPathDot(sql, end))) {
+                    end++;
+                }
+                parameters.add(sql.substring(i + 1, end));
+                jdbcSql.append('?');
+                i = end;
+                continue;
+            } else {
+                end = i + 1;
+            }
+            // Quoted strings, identifiers and comments are copied verbatim; a doubled quote simply
+            // ends one literal and starts the next
+            jdbcSql.append(sql, i, end);
+            i = end;
+        }
+        String text = jdbcSql.toString().trim();
+        if (batched && returnsRows(text)) {
+            throw new IllegalArgumentException("Batched writes cannot return rows");
+        }
+        return new PostgresStatement(connection, text, List.copyOf(parameters), batched);
+    }
+
+    private static boolean isPathDot(String sql, int index) {
+        return sql.charAt(index) == '.' && index + 1 < sql.length() && Character.isJavaIdentifierStart(sql.charAt(index + 1));
+    }
+
+    private static boolean returnsRows(String sql) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        return upper.startsWith("SELECT") || upper.startsWith("WITH") || upper.contains("RETURNING");
+    }
+
+    /**
+     * Resolves the parameter values from the step input; missing values bind as null.
+     */
+    Object[] values(Map<String, Object> input) {
+        Object[] values = new Object[parameters.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = input;
+            for (String segment : parameters.get(i).split("\\.")) {
+                value = value instanceof Map<?, ?> map ? map.get(segment) : null;
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+
+    static void bind(PreparedStatement statement, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+    }
+
+    String getConnection() {
+        return connection;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    boolean isBatched() {
+        return batched;
+    }
+
+    /**
+     * Statements with the same connection string and SQL can share a batch.
+     */
+    String batchKey() {
+        return connection + '\0' + sql;
+    }
+}
@@ -0,0 +1,224 @@
+package com.flowforge.runner.nodes;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces batched Postgres writes with the same connection string and SQL. The first write opens a
+ * batch that is executed {@code batch-window-ms} later, or as soon as it holds {@code max-batch-size}
+ * rows, with one {@code executeBatch} in a single transaction; the driver rewrites batched inserts
+ * into multi-row inserts. If the batch fails, its rows are retried one by one so each write gets its
+ * own result.
+ */
+@Component
+public class PostgresWriteBatcher {
+    private final PostgresPools pools;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService writers;
+    private final DistributionSummary batchSizes;
+
+    // Guarded by itself
+    private final Map<String, Batch> open = new HashMap<>();
+
+    @Autowired
+    public PostgresWriteBatcher(
+            PostgresPools pools,
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.postgres-write.batch-window-ms:5}") long windowMillis,
+            @Value("${flowforge.runner.postgres-write.max-batch-size:200}") int maxBatchSize,
+            @Value("${flowforge.runner.postgres-write.batch-threads:4}") int batchThreads) {
+        this.pools = pools;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.timer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("postgres-batch-timer-"));
+        this.writers = Executors.newFixedThreadPool(batchThreads, new CustomizableThreadFactory("postgres-batch-"));
+        this.batchSizes = DistributionSummary.builder("flowforge.postgres.batch.rows").register(meterRegistry);
+    }
+
+    /**
+     * Queues one row and returns its update count, or null if the driver did not report one.
+     */
+    CompletableFuture<Integer> submit(PostgresStatement statement, Object[] values) {
+        String key = statement.batchKey();
+        Row row = new Row(values);
+        Batch full = null;
+        synchronized (open) {
+            Batch batch = open.get(key);
+            if (batch == null) {
+                Batch opened = new Batch(statement);
+                open.put(key, opened);
+                timer.schedule(() -> close(key, opened), windowMillis, TimeUnit.MILLISECONDS);
+                batch = opened;
+            }
+            batch.rows.add(row);
+            if (batch.rows.size() >= maxBatchSize) {
+                open.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            submit(full);
+        }
+        return row.result;
+    }
+
+    /**
+     * Writes the rows of one chunk of a record stream in a single transaction, as {@code executeBatch}
+     * calls of up to {@code max-batch-size} rows, and returns the rows affected. Unlike coalesced
+     * writes, the chunk succeeds or fails as a whole.
+     */
+    CompletableFuture<Long> writeChunk(PostgresStatement statement, List<Object[]> rows) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        try {
+            writers.execute(() -> {
+                try {
+                    result.complete(writeChunkNow(statement, rows));
+                } catch (SQLException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private long writeChunkNow(PostgresStatement statement, List<Object[]> rows) throws SQLException {
+        try (Connection connection = pools.getConnection(statement.getConnection())) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement prepared = connection.prepareStatement(statement.getSql())) {
+                long total = 0;
+                for (int from = 0; from < rows.size(); from += maxBatchSize) {
+                    List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + maxBatchSize));
+                    for (Object[] values : batch) {
+                        PostgresStatement.bind(prepared, values);
+                        prepared.addBatch();
+                    }
+                    batchSizes.record(batch.size());
+                    for (int count : prepared.executeBatch()) {
+                        total += Math.max(0, count);
+                    }
+                }
+                connection.commit();
+                return total;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void close(String key, Batch batch) {
+        synchronized (open) {
+            if (!open.remove(key, batch)) {
+                return;
+            }
+        }
+        submit(batch);
+    }
+
+    private void submit(Batch batch) {
+        try {
+            writers.execute(() -> write(batch));
+        } catch (RejectedExecutionException e) {
+            batch.rows.forEach(row -> row.result.completeExceptionally(e));
+        }
+    }
+
+    private void write(Batch batch) {
+        batchSizes.record(batch.rows.size());
+        try (Connection connection = pools.getConnection(batch.statement.getConnection())) {
+            if (batch.rows.size() == 1 || !writeBatch(connection, batch)) {
+                writeRows(connection, batch);
+            }
+        } catch (SQLException | RuntimeException e) {
+            batch.rows.forEach(row -> row.result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Writes all rows in one transaction, returning false if it was rolled back.
+     */
+    private boolean writeBatch(Connection connection, Batch batch) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(batch.statement.getSql())) {
+            for (Row row : batch.rows) {
+                PostgresStatement.bind(statement, row.values);
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            connection.commit();
+            for (int i = 0; i < batch.rows.size(); i++) {
+                int count = i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO;
+                batch.rows.get(i).result.complete(count < 0 ? null : count);
+            }
+            return true;
+        } catch (SQLException e) {
+            connection.rollback();
+            return false;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void writeRows(Connection connection, Batch batch) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(batch.statement.getSql())) {
+            for (Row row : batch.rows) {
+                try {
+                    PostgresStatement.bind(statement, row.values);
+                    row.result.complete(statement.executeUpdate());
+                } catch (SQLException e) {
+                    row.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdown();
+        writers.shutdown();
+    }
+
+    private static final class Batch {
+        private final PostgresStatement statement;
+        private final List<Row> rows = new ArrayList<>();
+
+        Batch(PostgresStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    private static final class Row {
+        private final Object[] values;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Row(Object[] values) {
+            this.values = values;
+        }
+    }
+}
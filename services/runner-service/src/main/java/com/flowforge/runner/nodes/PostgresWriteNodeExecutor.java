@@ -0,0 +1,196 @@
+package com.flowforge.runner.nodes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.NodeExecutor;
+import com.flowforge.runner.engine.RecordStream;
+import com.flowforge.runner.engine.StepCancellation;
+import org.postgresql.util.PGobject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the node's {@code sql} against the database of its {@code connection} string, binding
+ * {@code :name} parameters from the step input. Objects and arrays bind as JSON. The output is
+ * {@code {"rowsAffected": n}}, or {@code {"rows": [...], "rowCount": n}} for statements returning rows.
+ * <p>
+ * With {@code batch} set to {@code on}, concurrent writes of the same statement are coalesced by the
+ * {@link PostgresWriteBatcher}; the step then holds no thread while its batch fills. A cancelled
+ * unbatched step cancels its statement; a cancelled batched step stops waiting, but its row stays in
+ * the batch.
+ * <p>
+ * An input streaming records runs the statement once per record, binding parameters from the record.
+ * Each chunk of the stream is written as JDBC batches in its own transaction before the next one is
+ * asked for, and the output is the total {@code {"rowsAffected": n}}.
+ */
+@Component
+public class PostgresWriteNodeExecutor implements NodeExecutor<PostgresStatement> {
+    private final PostgresPools pools;
+    private final PostgresWriteBatcher batcher;
+    private final ObjectMapper objectMapper;
+    private final int maxRows;
+
+    @Autowired
+    public PostgresWriteNodeExecutor(
+            PostgresPools pools,
+            PostgresWriteBatcher batcher,
+            ObjectMapper objectMapper,
+            @Value("${flowforge.runner.postgres-write.max-rows:1000}") int maxRows) {
+        this.pools = pools;
+        this.batcher = batcher;
+        this.objectMapper = objectMapper;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public String getNodeType() {
+        return "postgresWrite";
+    }
+
+    @Override
+    public PostgresStatement prepare(GraphNode node) {
+        String connection = node.getProperty("connection");
+        PostgresPools.config(connection);
+        return PostgresStatement.parse(connection.trim(), node.getProperty("sql"), node.isEnabled("batch"));
+    }
+
+    @Override
+    public Map<String, Object> execute(GraphNode node, PostgresStatement statement, Map<String, Object> input)
+            throws SQLException {
+        try (Connection connection = pools.getConnection(statement.getConnection());
+             PreparedStatement prepared = connection.prepareStatement(statement.getSql())) {
+            PostgresStatement.bind(prepared, values(statement, input));
+            prepared.setMaxRows(maxRows);
+            Map<String, Object> output = new LinkedHashMap<>();
+            // The driver does not watch for interrupts, so a cancelled step cancels its statement on the server
+            StepCancellation.Registration cancellation = StepCancellation.onCancel(() -> cancel(prepared));
+            try {
+                if (prepared.execute()) {
+                    List<Map<String, Object>> rows = rows(prepared.getResultSet());
+                    output.put("rows", rows);
+                    output.put("rowCount", rows.size());
+                } else {
+                    output.put("rowsAffected", prepared.getUpdateCount());
+                }
+            } finally {
+                cancellation.close();
+            }
+            return output;
+        }
+    }
+
+    private static void cancel(PreparedStatement prepared) {
+        try {
+            prepared.cancel();
+        } catch (SQLException ignored) {
+            // The statement has finished or its connection is gone
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> executeAsync(GraphNode node, PostgresStatement statement,
+                                                               Map<String, Object> input) {
+        if (input.get(RecordStream.KEY) instanceof RecordStream records) {
+            return writeRecords(statement, records);
+        }
+        if (!statement.isBatched()) {
+            return NodeExecutor.super.executeAsync(node, statement, input);
+        }
+        Object[] values;
+        try {
+            values = values(statement, input);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return batcher.submit(statement, values).thenApply(count -> {
+            Map<String, Object> output = new LinkedHashMap<>();
+            output.put("rowsAffected", count);
+            return output;
+        });
+    }
+
+    private CompletableFuture<Map<String, Object>> writeRecords(PostgresStatement statement, RecordStream records) {
+        AtomicLong rowsAffected = new AtomicLong();
+        return records.forEach(chunk -> {
+            List<Object[]> rows = new ArrayList<>(chunk.size());
+            for (Map<String, Object> record : chunk) {
+                rows.add(values(statement, record));
+            }
+            return batcher.writeChunk(statement, rows).thenAccept(rowsAffected::addAndGet);
+        }).thenApply(ignored -> {
+            Map<String, Object> output = new LinkedHashMap<>();
+            output.put("rowsAffected", rowsAffected.get());
+            return output;
+        });
+    }
+
+    private Object[] values(PostgresStatement statement, Map<String, Object> input) {
+        Object[] values = statement.values(input);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof Map || values[i] instanceof List) {
+                try {
+                    values[i] = objectMapper.writeValueAsString(values[i]);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Cannot bind parameter " + (i + 1) + " as JSON", e);
+                }
+            }
+        }
+        return values;
+    }
+
+    private List<Map<String, Object>> rows(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                row.put(metaData.getColumnLabel(column), value(resultSet.getObject(column)));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Object value(Object value) throws SQLException {
+        if (value == null || value instanceof Number || value instanceof Boolean || value instanceof String) {
+            return value;
+        }
+        if (value instanceof PGobject object) {
+            if (object.getValue() != null && object.getType().startsWith("json")) {
+                try {
+                    return objectMapper.readValue(object.getValue(), Object.class);
+                } catch (JsonProcessingException e) {
+                    return object.getValue();
+                }
+            }
+            return object.getValue();
+        }
+        if (value instanceof Array array) {
+            List<Object> values = new ArrayList<>();
+            for (Object element : (Object[]) array.getArray()) {
+                values.add(value(element));
+            }
+            return values;
+        }
+        if (value instanceof byte[] bytes) {
+            return Arrays.toString(bytes);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package com.flowforge.runner.nodes;
+
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.NodeExecutor;
+import com.flowforge.runner.schedules.CronScheduler;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Starts a run fired by the scheduler with {@code {"scheduledAt", "cron", "timezone"}}.
+ */
+@Component
+public class ScheduleTriggerNodeExecutor implements NodeExecutor<Void> {
+    @Override
+    public String getNodeType() {
+        return "scheduleTrigger";
+    }
+
+    @Override
+    public Void prepare(GraphNode node) {
+        CronScheduler.cronOf(node);
+        CronScheduler.zoneOf(node);
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> execute(GraphNode node, Void config, Map<String, Object> input) {
+        return input;
+    }
+}
@@ -0,0 +1,60 @@
+package com.flowforge.runner.nodes;
+
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.NodeExecutor;
+import com.flowforge.runner.engine.RecordStream;
+import com.flowforge.runner.expression.CompiledExpression;
+import com.flowforge.runner.expression.Expressions;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evaluates the node's {@code expression} against its input. An object result becomes the output;
+ * any other result is wrapped as {@code {"value": result}}.
+ * <p>
+ * With {@code stream} on, the input must stream records and the expression is evaluated per record,
+ * with the record as input; the results are streamed on as records, and a null result drops the
+ * record.
+ */
+@Component
+public class TransformNodeExecutor implements NodeExecutor<CompiledExpression> {
+    @Override
+    public String getNodeType() {
+        return "transform";
+    }
+
+    @Override
+    public CompiledExpression prepare(GraphNode node) {
+        return Expressions.compile(node.getProperty("expression"));
+    }
+
+    @Override
+    public boolean streamsRecords(GraphNode node) {
+        return node.isEnabled("stream");
+    }
+
+    @Override
+    public Map<String, Object> execute(GraphNode node, CompiledExpression expression, Map<String, Object> input) {
+        if (streamsRecords(node)) {
+            Map<String, Object> output = new LinkedHashMap<>();
+            output.put(RecordStream.KEY, RecordStream.of(input).map(record -> {
+                Object result = expression.evaluate(record);
+                return result == null ? null : toOutput(result);
+            }));
+            return output;
+        }
+        return toOutput(expression.evaluate(input));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toOutput(Object result) {
+        if (result instanceof Map) {
+            return (Map<String, Object>) result;
+        }
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("value", result);
+        return output;
+    }
+}
@@ -0,0 +1,34 @@
+package com.flowforge.runner.nodes;
+
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.NodeExecutor;
+import com.flowforge.runner.webhooks.WebhookRoutes;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Starts a run with the webhook request that triggered it, as received by the webhook endpoint.
+ */
+@Component
+public class WebhookTriggerNodeExecutor implements NodeExecutor<Void> {
+    @Override
+    public String getNodeType() {
+        return "webhookTrigger";
+    }
+
+    @Override
+    public Void prepare(GraphNode node) {
+        WebhookRoutes.methodOf(node);
+        String url = node.getProperty("url");
+        if (url != null && !url.isBlank()) {
+            WebhookRoutes.pathOf(node, null);
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> execute(GraphNode node, Void config, Map<String, Object> input) {
+        return input;
+    }
+}
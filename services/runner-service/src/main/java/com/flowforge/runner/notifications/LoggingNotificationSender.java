@@ -0,0 +1,30 @@
+package com.flowforge.runner.notifications;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local sink for every channel that only logs what would have been sent.
+ */
+@Component
+@ConditionalOnProperty(name = "flowforge.runner.notifications.sink", havingValue = "logging", matchIfMissing = true)
+public class LoggingNotificationSender implements NotificationSender {
+    private static final Logger log = LoggerFactory.getLogger(LoggingNotificationSender.class);
+
+    @Override
+    public Set<String> getChannels() {
+        return Set.of("email", "slack");
+    }
+
+    @Override
+    public void send(String channel, String target, List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            log.info("[{}] to {}: {}", channel, target, notification.getMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.flowforge.runner.notifications;
+
+import java.util.UUID;
+
+/**
+ * A claimed outbox entry on its way to a channel.
+ */
+public final class Notification {
+    private final UUID id;
+    private final String channel;
+    private final String target;
+    private final String message;
+    private final int attempt;
+
+    public Notification(UUID id, String channel, String target, String message, int attempt) {
+        this.id = id;
+        this.channel = channel;
+        this.target = target;
+        this.message = message;
+        this.attempt = attempt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The delivery attempt this is, starting at 1.
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+}
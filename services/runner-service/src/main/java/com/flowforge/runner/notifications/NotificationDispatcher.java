@@ -0,0 +1,265 @@
+package com.flowforge.runner.notifications;
+
+import com.flowforge.runner.engine.RetryPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers notifications from the {@link NotificationOutbox} off the run's critical path: a step only
+ * enqueues its message. Claimed notifications go to a queue per channel, where messages for the same
+ * target are sent as one batch and every send waits for a token of the channel's rate limit. Failed
+ * batches are retried with exponential backoff and jitter until {@code max-attempts}.
+ */
+@Component
+public class NotificationDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final NotificationOutbox outbox;
+    private final TaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ChannelQueue> channels = new HashMap<>();
+    private final ScheduledExecutorService senders;
+    private final int claimBatchSize;
+    private final int maxQueued;
+    private final long leaseMillis;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+
+    @Autowired
+    public NotificationDispatcher(
+            NotificationOutbox outbox,
+            ObjectProvider<NotificationSender> senderBeans,
+            TaskScheduler taskScheduler,
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.notifications.threads:2}") int threads,
+            @Value("${flowforge.runner.notifications.claim-batch-size:100}") int claimBatchSize,
+            @Value("${flowforge.runner.notifications.max-queued:500}") int maxQueued,
+            @Value("${flowforge.runner.notifications.lease-ms:120000}") long leaseMillis,
+            @Value("${flowforge.runner.notifications.max-batch-size:20}") int maxBatchSize,
+            @Value("${flowforge.runner.notifications.rate-per-second:5}") double ratePerSecond,
+            @Value("${flowforge.runner.notifications.burst:10}") int burst,
+            @Value("${flowforge.runner.notifications.max-attempts:5}") int maxAttempts,
+            @Value("${flowforge.runner.notifications.backoff-ms:1000}") long backoffMillis,
+            @Value("${flowforge.runner.notifications.max-backoff-ms:300000}") long maxBackoffMillis) {
+        this.outbox = outbox;
+        this.taskScheduler = taskScheduler;
+        this.meterRegistry = meterRegistry;
+        this.senders = Executors.newScheduledThreadPool(threads, new CustomizableThreadFactory("notifications-"));
+        this.claimBatchSize = claimBatchSize;
+        this.maxQueued = maxQueued;
+        this.leaseMillis = leaseMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        senderBeans.orderedStream().forEach(sender -> {
+            for (String channel : sender.getChannels()) {
+                channels.put(channel, new ChannelQueue(channel, sender, new TokenBucket(ratePerSecond, burst)));
+            }
+        });
+    }
+
+    public Set<String> getChannels() {
+        return channels.keySet();
+    }
+
+    /**
+     * Durably queues a message; it is sent once this returns, even if the runner restarts.
+     */
+    public UUID enqueue(String nodeId, String channel, String target, String message) {
+        if (!channels.containsKey(channel)) {
+            throw new IllegalArgumentException("Unknown notification channel: " + channel);
+        }
+        UUID id = outbox.enqueue(nodeId, channel, target, message);
+        taskScheduler.schedule(this::poll, Instant.now());
+        return id;
+    }
+
+    @Scheduled(fixedDelayString = "${flowforge.runner.notifications.poll-interval-ms:1000}")
+    public void poll() {
+        // Polls requested while another poll holds the lock are folded into that poll's next pass
+        pollRequested.set(true);
+        while (pollRequested.get() && pollLock.tryLock()) {
+            try {
+                pollRequested.set(false);
+                claimBatch();
+            } finally {
+                pollLock.unlock();
+            }
+        }
+    }
+
+    private void claimBatch() {
+        try {
+            // Claimed rows wait here for rate limit tokens, so claiming stops once enough are queued
+            int capacity = Math.min(claimBatchSize, maxQueued - queued.get());
+            List<Notification> claimed = outbox.claim(capacity, leaseMillis);
+            queued.addAndGet(claimed.size());
+            for (Notification notification : claimed) {
+                ChannelQueue channel = channels.get(notification.getChannel());
+                if (channel == null) {
+                    queued.decrementAndGet();
+                    outbox.markFailed(List.of(notification), "Unknown notification channel: " + notification.getChannel());
+                } else {
+                    channel.add(notification);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to claim notifications: {}", e.getMessage());
+        }
+    }
+
+    private void deliver(ChannelQueue channel, String target, List<Notification> batch) {
+        try {
+            channel.sender.send(channel.name, target, batch);
+        } catch (Exception e) {
+            onFailure(channel.name, target, batch, e);
+            return;
+        } finally {
+            if (queued.addAndGet(-batch.size()) < maxQueued / 2) {
+                taskScheduler.schedule(this::poll, Instant.now());
+            }
+        }
+        count(channel.name, "sent", batch.size());
+        try {
+            outbox.markSent(batch);
+        } catch (RuntimeException e) {
+            // The lease expires and the notifications are sent again
+            log.warn("Failed to mark {} notifications sent: {}", channel.name, e.getMessage());
+        }
+    }
+
+    private void onFailure(String channel, String target, List<Notification> batch, Exception error) {
+        String message = error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage();
+        List<Notification> exhausted = new ArrayList<>();
+        List<Notification> retried = new ArrayList<>();
+        for (Notification notification : batch) {
+            (notification.getAttempt() >= maxAttempts ? exhausted : retried).add(notification);
+        }
+        try {
+            if (!retried.isEmpty()) {
+                long delay = backoff(retried.get(0).getAttempt());
+                outbox.retryAt(retried, LocalDateTime.now().plus(delay, ChronoUnit.MILLIS), message);
+                count(channel, "retried", retried.size());
+            }
+            if (!exhausted.isEmpty()) {
+                outbox.markFailed(exhausted, message);
+                count(channel, "failed", exhausted.size());
+                log.warn("Giving up on {} {} notification(s) to {}: {}", exhausted.size(), channel, target, message);
+            }
+        } catch (RuntimeException e) {
+            // The lease expires and the notifications are sent again
+            log.warn("Failed to record {} delivery failure: {}", channel, e.getMessage());
+        }
+    }
+
+    private long backoff(int attempt) {
+        return RetryPolicy.fullJitter(backoffMillis, maxBackoffMillis, attempt);
+    }
+
+    private void count(String channel, String result, int amount) {
+        Counter.builder("flowforge.notifications")
+                .tag("channel", channel)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment(amount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+
+    /**
+     * Queued notifications of one channel by target, drained by at most one sender thread at a time.
+     */
+    private final class ChannelQueue {
+        private final String name;
+        private final NotificationSender sender;
+        private final TokenBucket rateLimit;
+
+        // Guarded by this
+        private final Map<String, List<Notification>> byTarget = new LinkedHashMap<>();
+        private boolean draining;
+
+        ChannelQueue(String name, NotificationSender sender, TokenBucket rateLimit) {
+            this.name = name;
+            this.sender = sender;
+            this.rateLimit = rateLimit;
+        }
+
+        void add(Notification notification) {
+            synchronized (this) {
+                byTarget.computeIfAbsent(notification.getTarget(), target -> new ArrayList<>()).add(notification);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                String target;
+                List<Notification> batch;
+                synchronized (this) {
+                    if (byTarget.isEmpty()) {
+                        draining = false;
+                        return;
+                    }
+                    long waitNanos = rateLimit.tryAcquire();
+                    if (waitNanos > 0) {
+                        senders.schedule(this::drain, waitNanos, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+                    // Targets take turns; one with more than a batch queued goes to the back
+                    Map.Entry<String, List<Notification>> next = byTarget.entrySet().iterator().next();
+                    target = next.getKey();
+                    List<Notification> pending = byTarget.remove(target);
+                    if (pending.size() <= maxBatchSize) {
+                        batch = pending;
+                    } else {
+                        batch = new ArrayList<>(pending.subList(0, maxBatchSize));
+                        pending.subList(0, maxBatchSize).clear();
+                        byTarget.put(target, pending);
+                    }
+                }
+                deliver(this, target, batch);
+            }
+        }
+    }
+}
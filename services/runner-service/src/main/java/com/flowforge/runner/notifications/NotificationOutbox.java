@@ -0,0 +1,105 @@
+package com.flowforge.runner.notifications;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The {@code notifications} table as a durable delivery queue. {@code next_attempt_at} is both the
+ * retry time and the lease of a claimed row: claiming moves it past the lease, so a replica that dies
+ * mid-delivery leaves rows that become due again. Delivery is therefore at least once.
+ */
+@Component
+public class NotificationOutbox {
+    private static final String SELECT_DUE =
+            "SELECT id, channel, target, message, attempts FROM notifications " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= ? " +
+            "ORDER BY next_attempt_at " +
+            "LIMIT ? " +
+            "FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public NotificationOutbox(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public UUID enqueue(String nodeId, String channel, String target, String message) {
+        UUID id = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(
+                "INSERT INTO notifications (id, node_id, channel, target, message, status, attempts, " +
+                "next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)",
+                id, nodeId, channel, target, message, now, now);
+        return id;
+    }
+
+    /**
+     * Claims up to {@code limit} due notifications for {@code leaseMillis}, counting the attempt.
+     */
+    public List<Notification> claim(int limit, long leaseMillis) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Notification> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Notification> due = jdbcTemplate.query(SELECT_DUE,
+                    (rs, rowNum) -> new Notification(
+                            rs.getObject("id", UUID.class),
+                            rs.getString("channel"),
+                            rs.getString("target"),
+                            rs.getString("message"),
+                            rs.getInt("attempts") + 1),
+                    now, limit);
+            List<Object[]> leases = new ArrayList<>(due.size());
+            for (Notification notification : due) {
+                leases.add(new Object[]{now.plus(leaseMillis, ChronoUnit.MILLIS), notification.getId()});
+            }
+            jdbcTemplate.batchUpdate(
+                    "UPDATE notifications SET attempts = attempts + 1, next_attempt_at = ? WHERE id = ?", leases);
+            return due;
+        });
+        return claimed == null ? Collections.emptyList() : claimed;
+    }
+
+    public void markSent(Collection<Notification> notifications) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            rows.add(new Object[]{now, notification.getId()});
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE notifications SET status = 'SENT', sent_at = ?, last_error = NULL WHERE id = ?", rows);
+    }
+
+    public void retryAt(Collection<Notification> notifications, LocalDateTime nextAttemptAt, String error) {
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            rows.add(new Object[]{nextAttemptAt, error, notification.getId()});
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE notifications SET next_attempt_at = ?, last_error = ? WHERE id = ?", rows);
+    }
+
+    public void markFailed(Collection<Notification> notifications, String error) {
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            rows.add(new Object[]{error, notification.getId()});
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE notifications SET status = 'FAILED', last_error = ? WHERE id = ?", rows);
+    }
+}
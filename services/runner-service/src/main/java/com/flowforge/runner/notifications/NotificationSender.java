@@ -0,0 +1,18 @@
+package com.flowforge.runner.notifications;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Delivers notifications to a provider. Implementations are Spring beans picked up by the
+ * {@link NotificationDispatcher}; each call counts as one request against the channel's rate limit.
+ */
+public interface NotificationSender {
+    Set<String> getChannels();
+
+    /**
+     * Sends messages for the same target in one provider request. Throwing fails the whole batch,
+     * which is retried later.
+     */
+    void send(String channel, String target, List<Notification> notifications) throws Exception;
+}
@@ -0,0 +1,17 @@
+package com.flowforge.runner.payloads;
+
+import java.io.InputStream;
+
+/**
+ * Content-addressed store of payloads too large for the database. Every replica must see the same
+ * store, and a blob is never changed once written.
+ */
+public interface BlobStore {
+    /**
+     * Stores {@code data} under {@code hash}, the hex SHA-256 of the data. Storing a hash that exists
+     * does nothing.
+     */
+    void put(String hash, byte[] data);
+
+    InputStream open(String hash);
+}
@@ -0,0 +1,61 @@
+package com.flowforge.runner.payloads;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Blob store on a filesystem, a local directory in development and a volume shared by the replicas
+ * otherwise. Blobs are fanned out over subdirectories by the first two characters of their hash and
+ * written to a temporary file first, so readers never see a partial blob.
+ */
+@Component
+public class FileBlobStore implements BlobStore {
+    private final Path root;
+
+    @Autowired
+    public FileBlobStore(@Value("${flowforge.runner.payloads.blob-dir:${java.io.tmpdir}/flowforge-payloads}") String root) {
+        this.root = Paths.get(root);
+    }
+
+    @Override
+    public void put(String hash, byte[] data) {
+        Path path = path(hash);
+        if (Files.exists(path)) {
+            return;
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), hash, ".tmp");
+            try {
+                Files.write(temp, data);
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store blob " + hash, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String hash) {
+        try {
+            return Files.newInputStream(path(hash));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + hash, e);
+        }
+    }
+
+    private Path path(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
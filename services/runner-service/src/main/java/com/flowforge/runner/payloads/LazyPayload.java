@@ -0,0 +1,53 @@
+package com.flowforge.runner.payloads;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A payload stored out of line that is only read, and parsed straight from the store's stream, the
+ * first time something looks into it. Recovered outputs that no remaining node reads are never loaded.
+ */
+final class LazyPayload extends AbstractMap<String, Object> {
+    private final Supplier<Map<String, Object>> loader;
+    private volatile Map<String, Object> loaded;
+
+    LazyPayload(Supplier<Map<String, Object>> loader) {
+        this.loader = loader;
+    }
+
+    private Map<String, Object> load() {
+        Map<String, Object> map = loaded;
+        if (map == null) {
+            synchronized (this) {
+                map = loaded;
+                if (map == null) {
+                    map = loader.get();
+                    loaded = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return load().entrySet();
+    }
+
+    @Override
+    public Object get(Object key) {
+        return load().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return load().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return load().size();
+    }
+}
@@ -0,0 +1,155 @@
+package com.flowforge.runner.payloads;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Tiered storage of step input and output. Payloads up to {@code inline-max-bytes} of JSON are kept
+ * inline in the step row. Larger ones are addressed by the SHA-256 of their JSON, so a payload passed
+ * on unchanged is stored once: up to {@code compress-max-bytes} they are deflated into
+ * {@code payload_blobs}, beyond that they go to the {@link BlobStore} as they are. The step records
+ * their location, {@code deflate:<hash>} or {@code blob:<hash>}.
+ */
+@Component
+public class PayloadStore {
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final String DEFLATE = "deflate:";
+    private static final String BLOB = "blob:";
+    private static final String INSERT_SQL =
+            "INSERT INTO payload_blobs (hash, data, size, created_at) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String SELECT_SQL = "SELECT data FROM payload_blobs WHERE hash = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlobStore blobStore;
+    private final int inlineMaxBytes;
+    private final int compressMaxBytes;
+
+    @Autowired
+    public PayloadStore(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            BlobStore blobStore,
+            @Value("${flowforge.runner.payloads.inline-max-bytes:16384}") int inlineMaxBytes,
+            @Value("${flowforge.runner.payloads.compress-max-bytes:1048576}") int compressMaxBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.blobStore = blobStore;
+        this.inlineMaxBytes = inlineMaxBytes;
+        this.compressMaxBytes = compressMaxBytes;
+    }
+
+    /**
+     * Serializes {@code value} and stores it in the tier its size calls for. A payload that cannot be
+     * serialized is recorded as none, like a null one.
+     */
+    public StoredPayload store(Object value) {
+        if (value == null) {
+            return StoredPayload.NONE;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            return StoredPayload.NONE;
+        }
+        long size = json.length;
+        if (json.length <= inlineMaxBytes) {
+            return new StoredPayload(new String(json, StandardCharsets.UTF_8), null, size);
+        }
+        String hash = sha256(json);
+        if (json.length <= compressMaxBytes) {
+            jdbcTemplate.update(INSERT_SQL, hash, deflate(json), size, LocalDateTime.now());
+            return new StoredPayload(null, DEFLATE + hash, size);
+        }
+        blobStore.put(hash, json);
+        return new StoredPayload(null, BLOB + hash, size);
+    }
+
+    /**
+     * Streams the JSON of a payload given its inline JSON and location, or returns null without one.
+     */
+    public InputStream open(String json, String location) {
+        if (location == null) {
+            return json == null ? null : new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        }
+        if (location.startsWith(DEFLATE)) {
+            String hash = location.substring(DEFLATE.length());
+            byte[] data = jdbcTemplate.query(SELECT_SQL, rs -> rs.next() ? rs.getBytes(1) : null, hash);
+            if (data == null) {
+                throw new IllegalStateException("Payload " + location + " is missing");
+            }
+            return new InflaterInputStream(new ByteArrayInputStream(data));
+        }
+        if (location.startsWith(BLOB)) {
+            return blobStore.open(location.substring(BLOB.length()));
+        }
+        throw new IllegalArgumentException("Unknown payload location " + location);
+    }
+
+    /**
+     * Returns a store for the payloads of one run, which stores each payload once.
+     */
+    public RunPayloads forRun() {
+        return new RunPayloads(this);
+    }
+
+    /**
+     * Reads a payload as a map. Payloads stored out of line are loaded when first accessed.
+     */
+    Map<String, Object> read(String json, String location) throws JsonProcessingException {
+        if (location == null) {
+            return json == null ? Map.of() : objectMapper.readValue(json, MAP_TYPE);
+        }
+        return new LazyPayload(() -> {
+            try (InputStream in = open(null, location)) {
+                return objectMapper.readValue(in, MAP_TYPE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read payload " + location, e);
+            }
+        });
+    }
+
+    private static byte[] deflate(byte[] json) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(json);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String sha256(byte[] json) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.flowforge.runner.payloads;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Payloads stored for one run, remembered by the identity of the value they were stored from. The
+ * engine hands a node's output to its successors by reference, so the input of a step with one
+ * predecessor is that very object and is not serialized or stored again, and a join's input embeds
+ * the JSON its parts were stored as. Outputs recovered from an earlier attempt are remembered
+ * by location and never loaded just to be stored again.
+ */
+public final class RunPayloads {
+    private final PayloadStore payloadStore;
+    private final Map<Object, StoredPayload> stored = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    RunPayloads(PayloadStore payloadStore) {
+        this.payloadStore = payloadStore;
+    }
+
+    /**
+     * Stores a step's output unless the same object was stored before in this run.
+     */
+    public StoredPayload storeOutput(Map<String, Object> value) {
+        if (value == null) {
+            return StoredPayload.NONE;
+        }
+        StoredPayload payload = stored.get(value);
+        if (payload == null) {
+            payload = payloadStore.store(embedStored(value));
+            stored.put(value, payload);
+        }
+        return payload;
+    }
+
+    /**
+     * Stores a step's input, reusing the output it was handed if that is stored already. Inputs are
+     * not remembered: the output of a streaming step is handed on before it is complete.
+     */
+    public StoredPayload storeInput(Map<String, Object> value) {
+        if (value == null) {
+            return StoredPayload.NONE;
+        }
+        StoredPayload payload = stored.get(value);
+        return payload != null ? payload : payloadStore.store(embedStored(value));
+    }
+
+    /**
+     * Reads the recorded output of a completed step, which successors resumed in this run receive.
+     */
+    public Map<String, Object> recover(String json, String location, Long size) throws JsonProcessingException {
+        Map<String, Object> value = payloadStore.read(json, location);
+        stored.put(value, new StoredPayload(json, location, size));
+        return value;
+    }
+
+    private Map<String, Object> embedStored(Map<String, Object> value) {
+        // Top-level values stored before, such as the parts of a join's input, are written as stored
+        Map<String, Object> embedded = null;
+        for (Map.Entry<String, Object> entry : value.entrySet()) {
+            StoredPayload part = entry.getValue() == null ? null : stored.get(entry.getValue());
+            if (part != null && part.getJson() != null) {
+                if (embedded == null) {
+                    embedded = new LinkedHashMap<>(value);
+                }
+                embedded.put(entry.getKey(), new RawValue(part.getJson()));
+            }
+        }
+        return embedded == null ? value : embedded;
+    }
+}
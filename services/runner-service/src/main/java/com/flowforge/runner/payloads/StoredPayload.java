@@ -0,0 +1,33 @@
+package com.flowforge.runner.payloads;
+
+/**
+ * How a step payload was stored: either its JSON, to keep inline, or the location it was written to.
+ */
+public final class StoredPayload {
+    static final StoredPayload NONE = new StoredPayload(null, null, null);
+
+    private final String json;
+    private final String location;
+    private final Long size;
+
+    StoredPayload(String json, String location, Long size) {
+        this.json = json;
+        this.location = location;
+        this.size = size;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Bytes of the JSON, or null without a payload.
+     */
+    public Long getSize() {
+        return size;
+    }
+}
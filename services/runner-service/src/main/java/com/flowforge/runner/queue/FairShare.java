@@ -0,0 +1,70 @@
+package com.flowforge.runner.queue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Deficit round-robin over org queues. Each visit credits an org its weight in runs, it is admitted as
+ * many runs as its credit, demand and the remaining capacity allow, and unspent credit carries over
+ * while it still has demand. An org whose turn was cut short by capacity resumes it on the next
+ * allocation before the others are visited again, so small claims stay fair as well.
+ */
+final class FairShare {
+    // Orgs in round-robin order with their deficit
+    private final LinkedHashMap<UUID, Long> deficits = new LinkedHashMap<>();
+    private UUID current;
+
+    /**
+     * Splits {@code capacity} runs among the orgs of {@code demand}, which maps each org to the runs it
+     * could be admitted right now.
+     */
+    synchronized Map<UUID, Integer> allocate(Map<UUID, Integer> demand, Map<UUID, Integer> weights, int capacity) {
+        // Orgs without demand leave the rotation and forfeit their deficit
+        deficits.keySet().removeIf(org -> demand.getOrDefault(org, 0) <= 0);
+        demand.forEach((org, runs) -> {
+            if (runs > 0) {
+                deficits.putIfAbsent(org, 0L);
+            }
+        });
+        Map<UUID, Integer> allocation = new HashMap<>();
+        if (deficits.isEmpty() || capacity <= 0) {
+            return allocation;
+        }
+        List<UUID> ring = new ArrayList<>(deficits.keySet());
+        int start = current == null ? -1 : ring.indexOf(current);
+        // A turn cut short last time continues without being credited again
+        boolean resume = start >= 0 && deficits.get(current) > 0;
+        if (start < 0) {
+            start = 0;
+        }
+        Map<UUID, Integer> remaining = new HashMap<>(demand);
+        int waiting = ring.size();
+        for (int i = start; capacity > 0 && waiting > 0; i = (i + 1) % ring.size()) {
+            UUID org = ring.get(i);
+            int left = remaining.getOrDefault(org, 0);
+            if (left <= 0) {
+                resume = false;
+                continue;
+            }
+            long deficit = deficits.get(org) + (resume ? 0 : weights.getOrDefault(org, 1));
+            resume = false;
+            int admitted = (int) Math.min(Math.min(deficit, left), capacity);
+            allocation.merge(org, admitted, Integer::sum);
+            remaining.put(org, left - admitted);
+            capacity -= admitted;
+            deficit -= admitted;
+            if (left == admitted) {
+                // Demand met: classic DRR drops the credit of an emptied queue
+                deficit = 0;
+                waiting--;
+            }
+            deficits.put(org, deficit);
+            current = capacity == 0 && deficit > 0 ? org : ring.get((i + 1) % ring.size());
+        }
+        return allocation;
+    }
+}
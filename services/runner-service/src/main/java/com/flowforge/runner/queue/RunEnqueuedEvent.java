@@ -0,0 +1,19 @@
+package com.flowforge.runner.queue;
+
+import java.util.UUID;
+
+/**
+ * Published after a run row has been committed, so the local worker can claim it without waiting
+ * for its next poll.
+ */
+public class RunEnqueuedEvent {
+    private final UUID runId;
+
+    public RunEnqueuedEvent(UUID runId) {
+        this.runId = runId;
+    }
+
+    public UUID getRunId() {
+        return runId;
+    }
+}
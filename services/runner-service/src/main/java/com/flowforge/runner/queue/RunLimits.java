@@ -0,0 +1,278 @@
+package com.flowforge.runner.queue;
+
+import com.flowforge.runner.engine.RunRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limits and queue quotas of orgs and workflows. Defaults come from configuration; rows of
+ * {@code org_run_limits} and {@code workflow_run_limits} override them and are reloaded every refresh
+ * interval, together with the queue counts behind the quotas, the fair-share admission of
+ * {@link RunQueue} and the {@code flowforge.runs.org.*} metrics. Between refreshes the counts are
+ * adjusted for the runs this replica claims and finishes. Runs without an org share the limits of one org.
+ * <p>
+ * Every new run, whether from the API or a webhook, is admitted here against the same cached counts,
+ * so creating a run never counts the queue.
+ */
+@Component
+public class RunLimits {
+    private static final Logger log = LoggerFactory.getLogger(RunLimits.class);
+
+    static final UUID NO_ORG = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int defaultMaxRunning;
+    private final int defaultMaxPending;
+    private final int defaultMaxRunningPerWorkflow;
+    private final long maxPendingRuns;
+    private final MultiGauge pendingGauge;
+    private final MultiGauge runningGauge;
+    private final Map<UUID, Timer> waitTimers = new ConcurrentHashMap<>();
+
+    private volatile Map<UUID, OrgLimit> orgLimits = Map.of();
+    private volatile Map<UUID, Integer> workflowLimits = Map.of();
+    // Refreshed from the table; runs admitted here since are counted on top
+    private final Map<UUID, AtomicLong> pendingByOrg = new ConcurrentHashMap<>();
+    private final AtomicLong pendingRuns = new AtomicLong();
+    // Pending and running runs by org and workflow, as of the last refresh; guarded by itself
+    private Map<UUID, Map<UUID, long[]>> queueCounts = new HashMap<>();
+
+    @Autowired
+    public RunLimits(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.limits.max-running-per-org:100}") int defaultMaxRunning,
+            @Value("${flowforge.runner.limits.max-pending-per-org:5000}") int defaultMaxPending,
+            @Value("${flowforge.runner.limits.max-running-per-workflow:0}") int defaultMaxRunningPerWorkflow,
+            @Value("${flowforge.runner.queue.max-pending:10000}") long maxPendingRuns) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.defaultMaxRunning = defaultMaxRunning;
+        this.defaultMaxPending = defaultMaxPending;
+        this.defaultMaxRunningPerWorkflow = defaultMaxRunningPerWorkflow;
+        this.maxPendingRuns = maxPendingRuns;
+        this.pendingGauge = MultiGauge.builder("flowforge.runs.org.pending")
+                .description("Runs of the org waiting to be admitted, across all replicas")
+                .register(meterRegistry);
+        this.runningGauge = MultiGauge.builder("flowforge.runs.org.running")
+                .description("Runs of the org executing, across all replicas")
+                .register(meterRegistry);
+    }
+
+    static UUID orgKey(UUID orgId) {
+        return orgId == null ? NO_ORG : orgId;
+    }
+
+    /**
+     * Counts a new run against the pending runs of all orgs and the pending quota of its own, or throws
+     * {@link RunRejectedException} if either is used up.
+     */
+    public void admit(UUID orgId, UUID workflowId) {
+        UUID org = orgKey(orgId);
+        if (maxPendingRuns > 0 && pendingRuns.incrementAndGet() > maxPendingRuns) {
+            pendingRuns.decrementAndGet();
+            throw new RunRejectedException("Run queue is full (" + maxPendingRuns + " pending)");
+        }
+        int max = maxPending(org);
+        if (max > 0) {
+            AtomicLong pending = pendingByOrg.computeIfAbsent(org, key -> new AtomicLong());
+            if (pending.incrementAndGet() > max) {
+                pending.decrementAndGet();
+                if (maxPendingRuns > 0) {
+                    pendingRuns.decrementAndGet();
+                }
+                throw new RunRejectedException("Org " + tag(org) + " has " + max + " pending runs");
+            }
+        }
+        // So this replica admits the run without waiting for the next refresh
+        adjust(org, workflowId, 1, 0);
+    }
+
+    /**
+     * Runs of the org allowed to execute at once, or 0 for no limit.
+     */
+    int maxRunning(UUID org) {
+        OrgLimit limit = orgLimits.get(org);
+        return limit == null || limit.maxRunning == null ? defaultMaxRunning : limit.maxRunning;
+    }
+
+    int maxPending(UUID org) {
+        OrgLimit limit = orgLimits.get(org);
+        return limit == null || limit.maxPending == null ? defaultMaxPending : limit.maxPending;
+    }
+
+    int weight(UUID org) {
+        OrgLimit limit = orgLimits.get(org);
+        return limit == null || limit.weight == null ? 1 : Math.max(1, limit.weight);
+    }
+
+    /**
+     * Runs of the workflow allowed to execute at once, or 0 for no limit.
+     */
+    int maxRunningOfWorkflow(UUID workflowId) {
+        return workflowLimits.getOrDefault(workflowId, defaultMaxRunningPerWorkflow);
+    }
+
+    /**
+     * Whether every workflow without a row of its own has a running limit.
+     */
+    boolean limitsEveryWorkflow() {
+        return defaultMaxRunningPerWorkflow > 0;
+    }
+
+    /**
+     * Workflows whose row sets a running limit.
+     */
+    Set<UUID> limitedWorkflows() {
+        Set<UUID> limited = new HashSet<>();
+        workflowLimits.forEach((workflowId, max) -> {
+            if (max > 0) {
+                limited.add(workflowId);
+            }
+        });
+        return limited;
+    }
+
+    /**
+     * Pending and running runs (in that order) by org and workflow, a copy the caller may change.
+     */
+    Map<UUID, Map<UUID, long[]>> queueCounts() {
+        Map<UUID, Map<UUID, long[]>> copy = new HashMap<>();
+        synchronized (this) {
+            queueCounts.forEach((org, workflows) -> {
+                Map<UUID, long[]> workflowsCopy = new HashMap<>();
+                workflows.forEach((workflowId, counts) -> workflowsCopy.put(workflowId, counts.clone()));
+                copy.put(org, workflowsCopy);
+            });
+        }
+        return copy;
+    }
+
+    /**
+     * Counts a pending run of the workflow as running.
+     */
+    void claimed(UUID org, UUID workflowId) {
+        adjust(org, workflowId, -1, 1);
+        AtomicLong pending = pendingByOrg.get(org);
+        if (pending != null) {
+            pending.updateAndGet(count -> Math.max(0, count - 1));
+        }
+        pendingRuns.updateAndGet(count -> Math.max(0, count - 1));
+    }
+
+    void finished(UUID org, UUID workflowId) {
+        adjust(org, workflowId, 0, -1);
+    }
+
+    void released(UUID org, UUID workflowId) {
+        adjust(org, workflowId, 1, -1);
+    }
+
+    private synchronized void adjust(UUID org, UUID workflowId, long pending, long running) {
+        long[] counts = queueCounts.computeIfAbsent(org, key -> new HashMap<>())
+                .computeIfAbsent(workflowId, key -> new long[2]);
+        counts[0] = Math.max(0, counts[0] + pending);
+        counts[1] = Math.max(0, counts[1] + running);
+    }
+
+    void recordWait(UUID org, Duration wait) {
+        waitTimers.computeIfAbsent(org, key -> Timer.builder("flowforge.runs.org.wait")
+                .description("Time a run waited in the queue before it was admitted")
+                .tag("org", tag(key))
+                .register(meterRegistry)).record(wait);
+    }
+
+    @Scheduled(fixedDelayString = "${flowforge.runner.limits.refresh-interval-ms:1000}")
+    public void refresh() {
+        try {
+            Map<UUID, OrgLimit> orgs = new HashMap<>();
+            jdbcTemplate.query("SELECT org_id, max_running, max_pending, weight FROM org_run_limits", row -> {
+                orgs.put(row.getObject(1, UUID.class), new OrgLimit(
+                        row.getObject(2, Integer.class), row.getObject(3, Integer.class), row.getObject(4, Integer.class)));
+            });
+            Map<UUID, Integer> workflows = new HashMap<>();
+            jdbcTemplate.query("SELECT workflow_id, max_running FROM workflow_run_limits", row -> {
+                Integer max = row.getObject(2, Integer.class);
+                if (max != null) {
+                    workflows.put(row.getObject(1, UUID.class), max);
+                }
+            });
+            orgLimits = orgs;
+            workflowLimits = workflows;
+
+            Map<UUID, Map<UUID, long[]>> counts = new HashMap<>();
+            jdbcTemplate.query(
+                    "SELECT org_id, workflow_id, status, COUNT(*) FROM runs WHERE status IN ('PENDING', 'RUNNING') " +
+                    "GROUP BY org_id, workflow_id, status",
+                    row -> {
+                        long[] workflow = counts
+                                .computeIfAbsent(orgKey(row.getObject(1, UUID.class)), org -> new HashMap<>())
+                                .computeIfAbsent(row.getObject(2, UUID.class), id -> new long[2]);
+                        workflow["PENDING".equals(row.getString(3)) ? 0 : 1] = row.getLong(4);
+                    });
+            synchronized (this) {
+                queueCounts = counts;
+            }
+
+            Map<UUID, Long> pending = new HashMap<>();
+            List<MultiGauge.Row<?>> pendingRows = new ArrayList<>();
+            List<MultiGauge.Row<?>> runningRows = new ArrayList<>();
+            counts.forEach((org, byWorkflow) -> {
+                long orgPending = byWorkflow.values().stream().mapToLong(workflow -> workflow[0]).sum();
+                long orgRunning = byWorkflow.values().stream().mapToLong(workflow -> workflow[1]).sum();
+                pending.put(org, orgPending);
+                if (orgPending > 0) {
+                    pendingRows.add(MultiGauge.Row.of(Tags.of("org", tag(org)), orgPending));
+                }
+                if (orgRunning > 0) {
+                    runningRows.add(MultiGauge.Row.of(Tags.of("org", tag(org)), orgRunning));
+                }
+            });
+            pendingByOrg.forEach((org, count) -> count.set(pending.getOrDefault(org, 0L)));
+            pending.forEach((org, count) -> pendingByOrg.computeIfAbsent(org, key -> new AtomicLong()).set(count));
+            pendingRuns.set(pending.values().stream().mapToLong(Long::longValue).sum());
+            pendingGauge.register(pendingRows, true);
+            runningGauge.register(runningRows, true);
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh run limits: {}", e.getMessage());
+        }
+    }
+
+    private static String tag(UUID org) {
+        return NO_ORG.equals(org) ? "none" : org.toString();
+    }
+
+    private static final class OrgLimit {
+        // Null where the row keeps the default
+        private final Integer maxRunning;
+        private final Integer maxPending;
+        private final Integer weight;
+
+        OrgLimit(Integer maxRunning, Integer maxPending, Integer weight) {
+            this.maxRunning = maxRunning;
+            this.maxPending = maxPending;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.flowforge.runner.queue;
+
+import com.flowforge.runner.model.Run;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code runs} table doubles as a durable work queue. A worker owns a run while its lease is
+ * live; leases are extended by heartbeats and an expired lease makes the run claimable again, so
+ * runs survive runner restarts and any number of replicas can drain the same table.
+ * Lease times come from the replica clocks, which are assumed to be NTP-synced well within a lease.
+ * <p>
+ * Pending runs are admitted fairly across orgs (see {@link FairShare}) and only while their org and
+ * workflow are below the running limits of {@link RunLimits}. Shares are split on the queue counts
+ * {@link RunLimits} refreshes; an org's runs are then admitted under a transaction-scoped advisory lock
+ * of that org, against its exact running counts, so replicas admitting different orgs never wait on
+ * each other and the running limits hold.
+ */
+@Component
+public class RunQueue {
+    private static final String SELECT_EXPIRED =
+            "SELECT id, org_id, workflow_id FROM runs " +
+            "WHERE status = 'RUNNING' AND lease_expires_at < ? " +
+            "ORDER BY started_at " +
+            "LIMIT ? " +
+            "FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RunLimits limits;
+    private final FairShare fairShare = new FairShare();
+    private final int claimLockId;
+    // Runs claimed here, with the org and workflow they count against until they finish
+    private final Map<UUID, Claim> owned = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RunQueue(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            RunLimits limits,
+            @Value("${flowforge.runner.queue.claim-lock-id:7271002}") int claimLockId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.limits = limits;
+        this.claimLockId = claimLockId;
+    }
+
+    /**
+     * Claims up to {@code limit} runs for {@code owner}: first runs whose owner died, which already
+     * count as running, then pending runs chosen by fair share within the running limits.
+     */
+    public List<UUID> claim(String owner, int limit, long leaseMillis) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Claim> admitted = new ArrayList<>();
+        List<Claim> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Claim> claims = new ArrayList<>(jdbcTemplate.query(SELECT_EXPIRED, (row, rowNum) -> new Claim(
+                    row.getObject(1, UUID.class), RunLimits.orgKey(row.getObject(2, UUID.class)),
+                    row.getObject(3, UUID.class)), now, limit));
+            if (claims.size() < limit) {
+                admitted.addAll(admit(limit - claims.size(), now));
+                claims.addAll(admitted);
+            }
+            List<Object[]> leases = new ArrayList<>(claims.size());
+            for (Claim claim : claims) {
+                leases.add(new Object[]{owner, now.plus(leaseMillis, ChronoUnit.MILLIS), claim.runId});
+            }
+            jdbcTemplate.batchUpdate(
+                    "UPDATE runs SET status = 'RUNNING', lease_owner = ?, attempts = attempts + 1, " +
+                    "lease_expires_at = ? WHERE id = ?",
+                    leases);
+            return claims;
+        });
+        if (claimed == null) {
+            return Collections.emptyList();
+        }
+        List<UUID> ids = new ArrayList<>(claimed.size());
+        for (Claim claim : claimed) {
+            owned.put(claim.runId, claim);
+            ids.add(claim.runId);
+        }
+        for (Claim claim : admitted) {
+            limits.claimed(claim.org, claim.workflowId);
+        }
+        return ids;
+    }
+
+    /**
+     * Chooses up to {@code capacity} pending runs and locks them.
+     */
+    private List<Claim> admit(int capacity, LocalDateTime now) {
+        Map<UUID, Map<UUID, long[]>> counts = limits.queueCounts();
+        Map<UUID, Integer> demand = new HashMap<>();
+        Map<UUID, Integer> weights = new HashMap<>();
+        counts.forEach((org, workflows) -> {
+            long pending = 0;
+            long running = 0;
+            for (long[] workflow : workflows.values()) {
+                pending += workflow[0];
+                running += workflow[1];
+            }
+            int max = limits.maxRunning(org);
+            long admissible = max > 0 ? Math.min(pending, Math.max(0, max - running)) : pending;
+            if (admissible > 0) {
+                demand.put(org, (int) Math.min(admissible, Integer.MAX_VALUE));
+                weights.put(org, limits.weight(org));
+            }
+        });
+
+        List<Claim> admitted = new ArrayList<>();
+        fairShare.allocate(demand, weights, capacity).forEach((org, runs) -> {
+            // Another replica admitting the org now gets its share; the org is back in the next claim
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, lockKey(org)))) {
+                return;
+            }
+            for (Candidate candidate : candidates(org, counts.get(org).keySet(), runs)) {
+                admitted.add(new Claim(candidate.id, org, candidate.workflowId));
+                limits.recordWait(org, Duration.between(candidate.startedAt, now));
+            }
+        });
+        return admitted;
+    }
+
+    /**
+     * The advisory lock of an org: its UUID folded to 64 bits and mixed with {@code claim-lock-id}.
+     * Two orgs sharing a key is unlikely, and would only make one wait for the next claim.
+     */
+    private long lockKey(UUID org) {
+        return org.getMostSignificantBits() ^ org.getLeastSignificantBits() ^ (claimLockId * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * The oldest pending runs of the org, up to {@code runs}, that fit the running limits of the org and
+     * of its workflows. {@code workflows} are those the org had runs of at the last refresh.
+     */
+    private List<Candidate> candidates(UUID org, Set<UUID> workflows, int runs) {
+        String orgFilter = RunLimits.NO_ORG.equals(org) ? "org_id IS NULL" : "org_id = ?";
+        Object[] orgArgs = RunLimits.NO_ORG.equals(org) ? new Object[0] : new Object[]{org};
+        Map<UUID, Long> running = new HashMap<>();
+        jdbcTemplate.query("SELECT workflow_id, COUNT(*) FROM runs WHERE status = 'RUNNING' AND " + orgFilter +
+                " GROUP BY workflow_id", row -> {
+            running.put(row.getObject(1, UUID.class), row.getLong(2));
+        }, orgArgs);
+        int max = limits.maxRunning(org);
+        if (max > 0) {
+            long total = running.values().stream().mapToLong(Long::longValue).sum();
+            runs = (int) Math.min(runs, Math.max(0, max - total));
+        }
+        if (runs <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        // Workflows with a limit are read apart, each up to its headroom
+        Set<UUID> limited = limits.limitedWorkflows();
+        for (UUID workflowId : workflows) {
+            int workflowMax = limits.maxRunningOfWorkflow(workflowId);
+            if (workflowMax > 0) {
+                limited.add(workflowId);
+                long headroom = workflowMax - running.getOrDefault(workflowId, 0L);
+                if (headroom > 0) {
+                    candidates.addAll(selectPending(orgFilter + " AND workflow_id = ?",
+                            append(orgArgs, workflowId), (int) Math.min(runs, headroom)));
+                }
+            }
+        }
+        // With a default limit, workflows new since the last refresh wait for it to learn their counts
+        if (!limits.limitsEveryWorkflow()) {
+            String filter = orgFilter;
+            Object[] args = orgArgs;
+            if (!limited.isEmpty()) {
+                filter += " AND workflow_id NOT IN (" + String.join(", ", Collections.nCopies(limited.size(), "?")) + ")";
+                for (UUID workflowId : limited) {
+                    args = append(args, workflowId);
+                }
+            }
+            candidates.addAll(selectPending(filter, args, runs));
+        }
+        candidates.sort(Comparator.comparing(candidate -> candidate.startedAt));
+        return candidates.size() > runs ? candidates.subList(0, runs) : candidates;
+    }
+
+    private List<Candidate> selectPending(String filter, Object[] args, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, workflow_id, started_at FROM runs WHERE status = 'PENDING' AND " + filter +
+                " ORDER BY started_at LIMIT ? FOR UPDATE SKIP LOCKED",
+                (row, rowNum) -> new Candidate(row.getObject(1, UUID.class), row.getObject(2, UUID.class),
+                        row.getObject(3, LocalDateTime.class)),
+                append(args, limit));
+    }
+
+    private static Object[] append(Object[] args, Object arg) {
+        Object[] result = Arrays.copyOf(args, args.length + 1);
+        result[args.length] = arg;
+        return result;
+    }
+
+    public int heartbeat(String owner, long leaseMillis) {
+        return jdbcTemplate.update(
+                "UPDATE runs SET lease_expires_at = ? WHERE lease_owner = ? AND status = 'RUNNING'",
+                LocalDateTime.now().plus(leaseMillis, ChronoUnit.MILLIS), owner);
+    }
+
+    /**
+     * Hands a claimed run back to the queue, e.g. when the local executor turned it away.
+     */
+    public void release(UUID runId, String owner) {
+        int released = jdbcTemplate.update(
+                "UPDATE runs SET status = 'PENDING', lease_owner = NULL, lease_expires_at = NULL, " +
+                "attempts = attempts - 1 WHERE id = ? AND lease_owner = ?",
+                runId, owner);
+        Claim claim = owned.remove(runId);
+        if (released == 1 && claim != null) {
+            limits.released(claim.org, claim.workflowId);
+        }
+    }
+
+    /**
+     * Cancels a run no worker has claimed yet. Returns false if the run is not pending.
+     */
+    public boolean cancelPending(UUID runId, String reason) {
+        return jdbcTemplate.update(
+                "UPDATE runs SET status = 'CANCELLED', error_message = ?, finished_at = ? " +
+                "WHERE id = ? AND status = 'PENDING'",
+                reason, LocalDateTime.now(), runId) == 1;
+    }
+
+    /**
+     * Flags a running run for cancellation by the worker that owns it. Returns false if the run is not
+     * running.
+     */
+    public boolean requestCancel(UUID runId) {
+        return jdbcTemplate.update(
+                "UPDATE runs SET cancel_requested_at = COALESCE(cancel_requested_at, ?) " +
+                "WHERE id = ? AND status = 'RUNNING'",
+                LocalDateTime.now(), runId) == 1;
+    }
+
+    /**
+     * Runs owned by {@code owner} that were flagged for cancellation.
+     */
+    public List<UUID> findCancelRequested(String owner) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM runs WHERE lease_owner = ? AND cancel_requested_at IS NOT NULL AND status = 'RUNNING'",
+                UUID.class, owner);
+    }
+
+    /**
+     * Records the terminal state of a run. The update only applies while {@code owner} still holds the
+     * lease, so a worker that lost its lease cannot overwrite the outcome of the run's new owner.
+     */
+    public boolean finish(UUID runId, String owner, Run.RunStatus status, String errorMessage) {
+        boolean finished = jdbcTemplate.update(
+                "UPDATE runs SET status = ?, error_message = ?, finished_at = ?, " +
+                "lease_owner = NULL, lease_expires_at = NULL WHERE id = ? AND lease_owner = ?",
+                status.name(), errorMessage, LocalDateTime.now(), runId, owner) == 1;
+        Claim claim = owned.remove(runId);
+        if (finished && claim != null) {
+            limits.finished(claim.org, claim.workflowId);
+        }
+        return finished;
+    }
+
+    private static final class Candidate {
+        private final UUID id;
+        private final UUID workflowId;
+        private final LocalDateTime startedAt;
+
+        Candidate(UUID id, UUID workflowId, LocalDateTime startedAt) {
+            this.id = id;
+            this.workflowId = workflowId;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private static final class Claim {
+        private final UUID runId;
+        private final UUID org;
+        private final UUID workflowId;
+
+        Claim(UUID runId, UUID org, UUID workflowId) {
+            this.runId = runId;
+            this.org = org;
+            this.workflowId = workflowId;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.flowforge.runner.queue;
+
+import com.flowforge.runner.engine.RunExecutor;
+import com.flowforge.runner.engine.RunRejectedException;
+import com.flowforge.runner.service.RunService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Claims runs from {@link RunQueue} in batches sized to the idle workers of the local
+ * {@link RunExecutor}, keeps the leases of runs it owns alive while they execute and stops those
+ * flagged for cancellation.
+ */
+@Component
+public class RunQueueWorker {
+    private static final Logger log = LoggerFactory.getLogger(RunQueueWorker.class);
+
+    private final RunQueue runQueue;
+    private final RunExecutor runExecutor;
+    private final RunService runService;
+    private final TaskScheduler taskScheduler;
+    private final String instanceId;
+    private final int batchSize;
+    private final long leaseMillis;
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+
+    @Autowired
+    public RunQueueWorker(
+            RunQueue runQueue,
+            RunExecutor runExecutor,
+            RunService runService,
+            TaskScheduler taskScheduler,
+            @Value("${flowforge.runner.instance-id}") String instanceId,
+            @Value("${flowforge.runner.queue.batch-size:32}") int batchSize,
+            @Value("${flowforge.runner.queue.lease-ms:30000}") long leaseMillis) {
+        this.runQueue = runQueue;
+        this.runExecutor = runExecutor;
+        this.runService = runService;
+        this.taskScheduler = taskScheduler;
+        this.instanceId = instanceId;
+        this.batchSize = batchSize;
+        this.leaseMillis = leaseMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${flowforge.runner.queue.poll-interval-ms:500}")
+    public void poll() {
+        // Polls requested while another poll holds the lock are folded into that poll's next pass
+        pollRequested.set(true);
+        while (pollRequested.get() && pollLock.tryLock()) {
+            try {
+                pollRequested.set(false);
+                claimBatch();
+            } finally {
+                pollLock.unlock();
+            }
+        }
+    }
+
+    private void claimBatch() {
+        try {
+            // Only idle workers are filled: waiting runs stay in the table, where admission is fair across
+            // orgs, rather than in the executor's FIFO queue
+            int capacity = Math.min(batchSize, runExecutor.idleWorkers());
+            List<UUID> claimed = runQueue.claim(instanceId, capacity, leaseMillis);
+            for (UUID runId : claimed) {
+                try {
+                    runExecutor.submit(() -> {
+                        try {
+                            runService.executeRun(runId, instanceId);
+                        } finally {
+                            // The freed worker takes the next admitted run without waiting for the poll
+                            taskScheduler.schedule(this::poll, Instant.now());
+                        }
+                    });
+                } catch (RunRejectedException e) {
+                    runQueue.release(runId, instanceId);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to claim runs: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onRunEnqueued(RunEnqueuedEvent event) {
+        taskScheduler.schedule(this::poll, Instant.now());
+    }
+
+    /**
+     * Stops runs of this replica that were cancelled through another replica.
+     */
+    @Scheduled(fixedDelayString = "${flowforge.runner.queue.cancel-poll-interval-ms:1000}")
+    public void pollCancellations() {
+        if (!runService.hasActiveRuns()) {
+            return;
+        }
+        try {
+            for (UUID runId : runQueue.findCancelRequested(instanceId)) {
+                runService.cancelLocal(runId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to poll run cancellations: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flowforge.runner.queue.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        try {
+            runQueue.heartbeat(instanceId, leaseMillis);
+        } catch (RuntimeException e) {
+            log.warn("Failed to extend run leases: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.flowforge.runner.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the JSON Patches (RFC 6902) workflow-service stores versions as: {@code add}, {@code remove}
+ * and {@code replace}.
+ */
+final class JsonPatch {
+    private JsonPatch() {
+    }
+
+    /**
+     * Returns {@code document} with {@code patch} applied, leaving {@code document} unchanged.
+     */
+    static JsonNode apply(JsonNode document, JsonNode patch) {
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            String op = operation.path("op").asText();
+            List<String> path = parse(operation.path("path").asText());
+            JsonNode value = operation.get("value");
+            if (path.isEmpty()) {
+                if (!op.equals("add") && !op.equals("replace")) {
+                    throw new IllegalArgumentException("Cannot " + op + " the whole document");
+                }
+                result = value.deepCopy();
+                continue;
+            }
+            JsonNode parent = result;
+            for (String segment : path.subList(0, path.size() - 1)) {
+                parent = child(parent, segment);
+            }
+            String last = path.get(path.size() - 1);
+            switch (op) {
+                case "add" -> add(parent, last, value.deepCopy());
+                case "remove" -> remove(parent, last);
+                case "replace" -> {
+                    // Objects keep the member in its place
+                    if (parent instanceof ObjectNode object && object.has(last)) {
+                        object.set(last, value.deepCopy());
+                    } else {
+                        remove(parent, last);
+                        add(parent, last, value.deepCopy());
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unsupported patch operation: " + op);
+            }
+        }
+        return result;
+    }
+
+    private static JsonNode child(JsonNode parent, String segment) {
+        JsonNode child = parent.isArray() ? parent.get(index(parent, segment, false)) : parent.get(segment);
+        if (child == null) {
+            throw new IllegalArgumentException("Patch path not found: " + segment);
+        }
+        return child;
+    }
+
+    private static void add(JsonNode parent, String name, JsonNode value) {
+        if (parent instanceof ObjectNode object) {
+            object.set(name, value);
+        } else if (parent instanceof ArrayNode array) {
+            array.insert(name.equals("-") ? array.size() : index(array, name, true), value);
+        } else {
+            throw new IllegalArgumentException("Patch path not found: " + name);
+        }
+    }
+
+    private static void remove(JsonNode parent, String name) {
+        if (parent instanceof ObjectNode object && object.has(name)) {
+            object.remove(name);
+        } else if (parent instanceof ArrayNode array) {
+            array.remove(index(array, name, false));
+        } else {
+            throw new IllegalArgumentException("Patch path not found: " + name);
+        }
+    }
+
+    private static int index(JsonNode array, String segment, boolean end) {
+        int index;
+        try {
+            index = Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid array index: " + segment);
+        }
+        if (index < 0 || index > array.size() || (index == array.size() && !end)) {
+            throw new IllegalArgumentException("Array index out of range: " + segment);
+        }
+        return index;
+    }
+
+    private static List<String> parse(String pointer) {
+        List<String> segments = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return segments;
+        }
+        if (!pointer.startsWith("/")) {
+            throw new IllegalArgumentException("Invalid patch path: " + pointer);
+        }
+        for (String segment : pointer.substring(1).split("/", -1)) {
+            segments.add(segment.replace("~1", "/").replace("~0", "~"));
+        }
+        return segments;
+    }
+}
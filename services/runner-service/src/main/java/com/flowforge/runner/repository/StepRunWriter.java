@@ -0,0 +1,296 @@
+package com.flowforge.runner.repository;
+
+import com.flowforge.runner.model.StepRun;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for step transitions. In {@code group-commit} mode transitions are
+ * buffered and flushed every {@code flush-interval-ms} as JDBC batches in one transaction; several
+ * transitions of the same step within a window collapse into a single row write. In {@code sync}
+ * mode every transition is written before the caller continues.
+ * <p>
+ * A batch that fails on its data, i.e. with a {@link DataIntegrityViolationException}, is split until
+ * the failing rows are isolated; each of those is retried up to {@code max-attempts} times and then
+ * dropped, so one bad row never holds back the transitions of other runs. Any other error retries the
+ * whole batch.
+ */
+@Repository
+public class StepRunWriter {
+    private static final Logger log = LoggerFactory.getLogger(StepRunWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO step_runs (id, run_id, node_id, status, input_json, output_json, input_location, " +
+            "output_location, input_size, output_size, started_at, finished_at, error, retry_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE step_runs SET status = ?, input_json = ?, output_json = ?, input_location = ?, " +
+            "output_location = ?, input_size = ?, output_size = ?, started_at = ?, finished_at = ?, " +
+            "error = ?, retry_count = ? WHERE id = ?";
+
+    public enum DurabilityMode {
+        SYNC, GROUP_COMMIT
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DurabilityMode mode;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by this; insertion order is preserved so a batch replays transitions in arrival order
+    private Map<UUID, PendingWrite> pending = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+
+    @Autowired
+    public StepRunWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${flowforge.runner.persistence.mode:group-commit}") String mode,
+            @Value("${flowforge.runner.persistence.flush-interval-ms:20}") long flushIntervalMillis,
+            @Value("${flowforge.runner.persistence.max-batch-size:500}") int maxBatchSize,
+            @Value("${flowforge.runner.persistence.max-attempts:3}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mode = DurabilityMode.valueOf(mode.trim().toUpperCase().replace('-', '_'));
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        if (this.mode == DurabilityMode.GROUP_COMMIT) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("step-writer-"));
+            this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Records a step that has not been written before. The id must already be assigned.
+     */
+    public void insert(StepRun stepRun) {
+        enqueue(new PendingWrite(stepRun, true));
+    }
+
+    public void update(StepRun stepRun) {
+        enqueue(new PendingWrite(stepRun, false));
+    }
+
+    private void enqueue(PendingWrite write) {
+        if (mode == DurabilityMode.SYNC) {
+            apply(List.of(write));
+            return;
+        }
+        int size;
+        synchronized (this) {
+            PendingWrite previous = pending.get(write.id);
+            // A step inserted and updated within one window is inserted once with its latest state
+            pending.put(write.id, previous != null && previous.insert ? write.asInsert() : write);
+            size = pending.size();
+        }
+        if (size >= maxBatchSize) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Writes every buffered transition before returning. Called before a run is marked finished so
+     * readers never see a terminal run with steps still in flight.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<PendingWrite> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending = new LinkedHashMap<>();
+            }
+            List<PendingWrite> failed = new ArrayList<>();
+            RuntimeException error = write(batch, failed);
+            if (!failed.isEmpty()) {
+                requeue(failed);
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Writes a batch, splitting it in halves when it fails on its data. Writes left to retry are added
+     * to {@code failed}; returns the error that left them there, or null.
+     */
+    private RuntimeException write(List<PendingWrite> batch, List<PendingWrite> failed) {
+        try {
+            apply(batch);
+            return null;
+        } catch (RuntimeException e) {
+            if (!failsOnData(e)) {
+                failed.addAll(batch);
+                return e;
+            }
+            if (batch.size() > 1) {
+                int half = batch.size() / 2;
+                RuntimeException first = write(batch.subList(0, half), failed);
+                RuntimeException second = write(batch.subList(half, batch.size()), failed);
+                return second != null ? second : first;
+            }
+            PendingWrite write = batch.get(0);
+            if (write.attempts + 1 >= maxAttempts) {
+                log.error("Dropping {} of step {} ({}) of run {} after {} attempts: {}", write.status,
+                        write.id, write.nodeId, write.runId, write.attempts + 1, e.getMessage());
+                return null;
+            }
+            failed.add(write.retried());
+            return e;
+        }
+    }
+
+    private static boolean failsOnData(RuntimeException e) {
+        // Constraint violations and bad values fail the same rows every time; a lost connection, a schema
+        // out of date or missing privileges fail any batch, which is kept whole until they are fixed
+        return e instanceof DataIntegrityViolationException;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush step transitions, will retry: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void requeue(List<PendingWrite> batch) {
+        Map<UUID, PendingWrite> merged = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            merged.put(write.id, write);
+        }
+        // Transitions that arrived during the failed flush are newer and win
+        pending.forEach((id, write) -> {
+            PendingWrite previous = merged.get(id);
+            merged.put(id, previous != null && previous.insert ? write.asInsert() : write);
+        });
+        pending = merged;
+    }
+
+    private void apply(List<PendingWrite> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (PendingWrite write : batch) {
+            if (write.insert) {
+                inserts.add(new Object[]{write.id, write.runId, write.nodeId, write.status.name(), write.inputJson,
+                        write.outputJson, write.inputLocation, write.outputLocation, write.inputSize,
+                        write.outputSize, write.startedAt, write.finishedAt, write.error, write.retryCount});
+            } else {
+                updates.add(new Object[]{write.status.name(), write.inputJson, write.outputJson, write.inputLocation,
+                        write.outputLocation, write.inputSize, write.outputSize, write.startedAt,
+                        write.finishedAt, write.error, write.retryCount, write.id});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flushQuietly();
+        }
+    }
+
+    /**
+     * Immutable snapshot of a step at the time of the transition; the live entity keeps changing on
+     * the step thread while the snapshot waits for the flusher.
+     */
+    private static final class PendingWrite {
+        private final UUID id;
+        private final UUID runId;
+        private final String nodeId;
+        private final StepRun.StepStatus status;
+        private final String inputJson;
+        private final String outputJson;
+        private final String inputLocation;
+        private final String outputLocation;
+        private final Long inputSize;
+        private final Long outputSize;
+        private final LocalDateTime startedAt;
+        private final LocalDateTime finishedAt;
+        private final String error;
+        private final int retryCount;
+        private final boolean insert;
+        // Failed attempts to write this transition on its own
+        private final int attempts;
+
+        PendingWrite(StepRun stepRun, boolean insert) {
+            this.id = stepRun.getId();
+            this.runId = stepRun.getRunId();
+            this.nodeId = stepRun.getNodeId();
+            this.status = stepRun.getStatus() == null ? StepRun.StepStatus.PENDING : stepRun.getStatus();
+            this.inputJson = stepRun.getInputJson();
+            this.outputJson = stepRun.getOutputJson();
+            this.inputLocation = stepRun.getInputLocation();
+            this.outputLocation = stepRun.getOutputLocation();
+            this.inputSize = stepRun.getInputSize();
+            this.outputSize = stepRun.getOutputSize();
+            this.startedAt = stepRun.getStartedAt();
+            this.finishedAt = stepRun.getFinishedAt();
+            this.error = stepRun.getError();
+            this.retryCount = stepRun.getRetryCount() == null ? 0 : stepRun.getRetryCount();
+            this.insert = insert;
+            this.attempts = 0;
+        }
+
+        private PendingWrite(PendingWrite source, boolean insert, int attempts) {
+            this.id = source.id;
+            this.runId = source.runId;
+            this.nodeId = source.nodeId;
+            this.status = source.status;
+            this.inputJson = source.inputJson;
+            this.outputJson = source.outputJson;
+            this.inputLocation = source.inputLocation;
+            this.outputLocation = source.outputLocation;
+            this.inputSize = source.inputSize;
+            this.outputSize = source.outputSize;
+            this.startedAt = source.startedAt;
+            this.finishedAt = source.finishedAt;
+            this.error = source.error;
+            this.retryCount = source.retryCount;
+            this.insert = insert;
+            this.attempts = attempts;
+        }
+
+        PendingWrite asInsert() {
+            return insert ? this : new PendingWrite(this, true, attempts);
+        }
+
+        PendingWrite retried() {
+            return new PendingWrite(this, insert, attempts + 1);
+        }
+    }
+}
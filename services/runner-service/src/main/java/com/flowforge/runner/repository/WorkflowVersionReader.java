@@ -0,0 +1,133 @@
+package com.flowforge.runner.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reads saved workflow versions from the {@code workflow_versions} table owned by workflow-service.
+ * Only checkpoint versions hold their full graph; the others hold a JSON Patch against the version
+ * before, and are rebuilt from their checkpoint ({@code base_version}) in one query.
+ */
+@Repository
+public class WorkflowVersionReader {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowVersionReader.class);
+
+    private static final String SELECT_CHAIN =
+            "SELECT v.graph_json, v.patch_json FROM workflow_versions t " +
+            "JOIN workflow_versions v ON v.workflow_id = t.workflow_id " +
+            "AND v.version BETWEEN COALESCE(t.base_version, t.version) AND t.version " +
+            "WHERE t.workflow_id = ? AND t.version = ? ORDER BY v.version";
+    private static final String SELECT_CURRENT_CHAINS =
+            "SELECT w.id AS workflow_id, w.org_id, w.version, v.graph_json, v.patch_json FROM workflows w " +
+            "JOIN workflow_versions c ON c.workflow_id = w.id AND c.version = w.version " +
+            "JOIN workflow_versions v ON v.workflow_id = w.id " +
+            "AND v.version BETWEEN COALESCE(c.base_version, c.version) AND c.version " +
+            "WHERE %s ORDER BY w.id, v.version";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public WorkflowVersionReader(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public Optional<UUID> findOrgId(UUID workflowId) {
+        List<UUID> orgs = jdbcTemplate.queryForList(
+                "SELECT org_id FROM workflows WHERE id = ? AND org_id IS NOT NULL", UUID.class, workflowId);
+        return orgs.stream().findFirst();
+    }
+
+    public Optional<String> findGraphJson(UUID workflowId, int version) {
+        List<String[]> chain = jdbcTemplate.query(SELECT_CHAIN,
+                (rs, rowNum) -> new String[] {rs.getString("graph_json"), rs.getString("patch_json")},
+                workflowId, version);
+        if (chain.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(rebuild(chain));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Workflow " + workflowId + " version " + version
+                    + " has an unreadable graph", e);
+        }
+    }
+
+    /**
+     * Calls {@code handler} with the current version of every workflow matching {@code condition}, an
+     * SQL condition on {@code workflows w}. Only graphs that may contain {@code containing} are rebuilt;
+     * the others, and graphs that cannot be rebuilt, are skipped.
+     */
+    public void forEachCurrentVersion(String condition, String containing, CurrentVersionHandler handler,
+                                      Object... args) {
+        Chain[] current = new Chain[1];
+        jdbcTemplate.query(String.format(SELECT_CURRENT_CHAINS, condition), rs -> {
+            UUID workflowId = rs.getObject("workflow_id", UUID.class);
+            if (current[0] == null || !current[0].workflowId.equals(workflowId)) {
+                handle(current[0], containing, handler);
+                current[0] = new Chain(workflowId, rs.getObject("org_id", UUID.class), rs.getInt("version"));
+            }
+            current[0].rows.add(new String[] {rs.getString("graph_json"), rs.getString("patch_json")});
+        }, args);
+        handle(current[0], containing, handler);
+    }
+
+    private void handle(Chain chain, String containing, CurrentVersionHandler handler) {
+        // Patches only add what a graph contains, so a graph can only contain text that one of its rows does
+        if (chain == null || chain.rows.stream().noneMatch(row -> row[0] != null && row[0].contains(containing)
+                || row[1] != null && row[1].contains(containing))) {
+            return;
+        }
+        String graphJson;
+        try {
+            graphJson = rebuild(chain.rows);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.debug("Skipping workflow {} version {}: {}", chain.workflowId, chain.version, e.getMessage());
+            return;
+        }
+        handler.handle(chain.workflowId, chain.orgId, chain.version, graphJson);
+    }
+
+    private String rebuild(List<String[]> chain) throws JsonProcessingException {
+        if (chain.get(0)[0] == null) {
+            throw new IllegalArgumentException("The version's checkpoint has no graph");
+        }
+        if (chain.size() == 1) {
+            return chain.get(0)[0];
+        }
+        JsonNode graph = objectMapper.readTree(chain.get(0)[0]);
+        for (String[] row : chain.subList(1, chain.size())) {
+            graph = JsonPatch.apply(graph, objectMapper.readTree(row[1]));
+        }
+        return objectMapper.writeValueAsString(graph);
+    }
+
+    private static final class Chain {
+        private final UUID workflowId;
+        private final UUID orgId;
+        private final int version;
+        private final List<String[]> rows = new ArrayList<>();
+
+        Chain(UUID workflowId, UUID orgId, int version) {
+            this.workflowId = workflowId;
+            this.orgId = orgId;
+            this.version = version;
+        }
+    }
+
+    public interface CurrentVersionHandler {
+        void handle(UUID workflowId, UUID orgId, int version, String graphJson);
+    }
+}
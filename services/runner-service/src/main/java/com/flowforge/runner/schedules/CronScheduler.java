@@ -0,0 +1,462 @@
+package com.flowforge.runner.schedules;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.WorkflowGraph;
+import com.flowforge.runner.queue.RunEnqueuedEvent;
+import com.flowforge.runner.repository.WorkflowVersionReader;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts runs of workflows whose current version has a schedule trigger. One replica at a time leads,
+ * holding a Postgres advisory lock on a dedicated connection; the others retry every
+ * {@code leader-retry-ms} and take over when its session ends. The leader keeps every schedule in a
+ * {@link TimingWheel}, so a tick only touches the schedules that fire in it.
+ *
+ * <p>Each fire moves the schedule's {@code last_fired_at} forward in the transaction that inserts its
+ * run, and only if it has not been moved past that fire already, so a fire starts at most one run even
+ * if two replicas briefly both lead. A new leader resumes every schedule from {@code last_fired_at},
+ * catching up on up to {@code max-catch-up} fires missed while no replica was leading.
+ */
+@Component
+public class CronScheduler {
+    private static final Logger log = LoggerFactory.getLogger(CronScheduler.class);
+
+    private static final String SCHEDULE_TRIGGER = "scheduleTrigger";
+    private static final String ACTIVE = "w.status = 'ACTIVE'";
+    private static final String INSERT_STATE_SQL =
+            "INSERT INTO workflow_schedules (id, workflow_id, node_id, last_fired_at) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT DO NOTHING";
+    private static final String UPDATE_FIRED_SQL =
+            "UPDATE workflow_schedules SET last_fired_at = ? " +
+            "WHERE workflow_id = ? AND node_id = ? AND last_fired_at < ?";
+    // Runs are scheduled under the org of their workflow
+    private static final String INSERT_RUN_SQL =
+            "INSERT INTO runs (id, workflow_id, workflow_version, status, started_at, attempts, input_json, org_id) " +
+            "SELECT ?, id, ?, 'PENDING', ?, 0, ?, org_id FROM workflows WHERE id = ?";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkflowVersionReader workflowVersionReader;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer lagTimer;
+    private final boolean enabled;
+    private final long lockId;
+    private final boolean listen;
+    private final String channel;
+    private final long tickMillis;
+    private final long refreshIntervalMillis;
+    private final long leaderRetryMillis;
+    private final int maxCatchUp;
+    private final int maxBatchSize;
+
+    // Owned by the leader thread
+    private final Map<UUID, List<Schedule>> schedules = new HashMap<>();
+    private TimingWheel<Schedule> wheel;
+
+    private volatile boolean leading;
+    private volatile int active;
+    private volatile boolean running = true;
+    private Thread leader;
+
+    @Autowired
+    public CronScheduler(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            WorkflowVersionReader workflowVersionReader,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.runner.schedules.enabled:true}") boolean enabled,
+            @Value("${flowforge.runner.schedules.lock-id:7271001}") long lockId,
+            @Value("${flowforge.runner.schedules.listen:true}") boolean listen,
+            @Value("${flowforge.runner.webhooks.channel:workflow_changes}") String channel,
+            @Value("${flowforge.runner.schedules.tick-ms:1000}") long tickMillis,
+            @Value("${flowforge.runner.schedules.refresh-interval-ms:60000}") long refreshIntervalMillis,
+            @Value("${flowforge.runner.schedules.leader-retry-ms:5000}") long leaderRetryMillis,
+            @Value("${flowforge.runner.schedules.max-catch-up:10}") int maxCatchUp,
+            @Value("${flowforge.runner.schedules.max-batch-size:1000}") int maxBatchSize) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.workflowVersionReader = workflowVersionReader;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.lockId = lockId;
+        this.listen = listen;
+        this.channel = channel;
+        this.tickMillis = tickMillis;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.leaderRetryMillis = leaderRetryMillis;
+        this.maxCatchUp = Math.max(1, maxCatchUp);
+        this.maxBatchSize = maxBatchSize;
+        this.lagTimer = Timer.builder("flowforge.schedules.lag")
+                .description("Time between a schedule's fire time and the commit of its run")
+                .register(meterRegistry);
+        Gauge.builder("flowforge.schedules.active", this, scheduler -> scheduler.active).register(meterRegistry);
+        Gauge.builder("flowforge.schedules.leader", this, scheduler -> scheduler.leading ? 1 : 0).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            leader = new Thread(this::leaderLoop, "schedule-leader");
+            leader.setDaemon(true);
+            leader.start();
+        }
+    }
+
+    /**
+     * The cron expression of a schedule trigger node. Five-field expressions are taken as standard
+     * cron and fire at second zero.
+     */
+    public static CronExpression cronOf(GraphNode node) {
+        String cron = node.getProperty("cron");
+        if (cron == null || cron.isBlank()) {
+            throw new IllegalArgumentException("Schedule needs a cron expression");
+        }
+        String expression = cron.trim();
+        if (!expression.startsWith("@") && expression.split("\\s+").length == 5) {
+            expression = "0 " + expression;
+        }
+        try {
+            return CronExpression.parse(expression);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cron expression: " + cron);
+        }
+    }
+
+    public static ZoneId zoneOf(GraphNode node) {
+        String timezone = node.getProperty("timezone");
+        if (timezone == null || timezone.isBlank()) {
+            return ZoneId.of("UTC");
+        }
+        try {
+            return ZoneId.of(timezone.trim());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid timezone: " + timezone);
+        }
+    }
+
+    private void leaderLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (tryLock(connection)) {
+                    try {
+                        lead(connection);
+                    } finally {
+                        resign(connection);
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Schedule leader lost its connection or failed, stepping down: {}", e.getMessage());
+            }
+            try {
+                Thread.sleep(leaderRetryMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void lead(Connection connection) throws SQLException {
+        if (listen) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + channel);
+            }
+        }
+        PGConnection pgConnection = listen ? connection.unwrap(PGConnection.class) : null;
+        leading = true;
+        wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        loadAll(loadLastFired());
+        log.info("Leading schedules: {} active", wheel.size());
+        long nextRefresh = System.currentTimeMillis() + refreshIntervalMillis;
+        while (running) {
+            long now = System.currentTimeMillis();
+            List<Schedule> due = new ArrayList<>();
+            wheel.advance(now, due::add);
+            if (!due.isEmpty()) {
+                fire(due, Instant.ofEpochMilli(now));
+            }
+            if (now >= nextRefresh) {
+                // Without LISTEN nothing else would notice that the session holding the lock is gone
+                if (!connection.isValid(5)) {
+                    throw new SQLException("Leader connection is no longer valid");
+                }
+                loadAll(Map.of());
+                nextRefresh = now + refreshIntervalMillis;
+            }
+            active = wheel.size();
+            long wait = Math.max(1, tickMillis - System.currentTimeMillis() % tickMillis);
+            if (pgConnection == null) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            PGNotification[] notifications = pgConnection.getNotifications((int) wait);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    UUID workflowId = UUID.fromString(notification.getParameter());
+                    Instant from = Instant.now();
+                    insertState(update(workflowId, load(ACTIVE + " AND w.id = ?", workflowId), Map.of(), from), from);
+                }
+            }
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, lockId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void resign(Connection connection) {
+        leading = false;
+        active = 0;
+        schedules.clear();
+        wheel = null;
+        // The connection goes back to the pool, so the session-level lock has to be released explicitly
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, lockId);
+            statement.execute();
+        } catch (SQLException e) {
+            log.debug("Failed to release schedule leader lock: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Instant> loadLastFired() {
+        Map<String, Instant> lastFired = new HashMap<>();
+        jdbcTemplate.query("SELECT workflow_id, node_id, last_fired_at FROM workflow_schedules", rs -> {
+            LocalDateTime firedAt = rs.getObject("last_fired_at", LocalDateTime.class);
+            if (firedAt != null) {
+                lastFired.put(rs.getObject("workflow_id", UUID.class) + "/" + rs.getString("node_id"),
+                        firedAt.atZone(ZoneId.systemDefault()).toInstant());
+            }
+        });
+        return lastFired;
+    }
+
+    private void loadAll(Map<String, Instant> lastFired) {
+        Map<UUID, List<Schedule>> loaded = new HashMap<>();
+        for (Schedule schedule : load(ACTIVE)) {
+            loaded.computeIfAbsent(schedule.getWorkflowId(), id -> new ArrayList<>()).add(schedule);
+        }
+        Set<UUID> workflowIds = new HashSet<>(schedules.keySet());
+        workflowIds.addAll(loaded.keySet());
+        Instant now = Instant.now();
+        List<Schedule> added = new ArrayList<>();
+        for (UUID workflowId : workflowIds) {
+            added.addAll(update(workflowId, loaded.getOrDefault(workflowId, List.of()), lastFired, now));
+        }
+        insertState(added, now);
+    }
+
+    /**
+     * Replaces the schedules of a workflow with those loaded from its current version. Unchanged
+     * schedules keep their place in the wheel; new or changed ones start from their last fire in
+     * {@code lastFired}, or from {@code now}. Returns the schedules that were started.
+     */
+    private List<Schedule> update(UUID workflowId, List<Schedule> loaded, Map<String, Instant> lastFired, Instant now) {
+        Map<String, Schedule> previous = new HashMap<>();
+        for (Schedule schedule : schedules.getOrDefault(workflowId, List.of())) {
+            previous.put(schedule.getNodeId(), schedule);
+        }
+        List<Schedule> current = new ArrayList<>(loaded.size());
+        List<Schedule> started = new ArrayList<>();
+        for (Schedule schedule : loaded) {
+            Schedule existing = previous.remove(schedule.getNodeId());
+            if (existing != null && existing.sameTrigger(schedule)) {
+                existing.setVersion(schedule.getVersion());
+                current.add(existing);
+                continue;
+            }
+            if (existing != null) {
+                wheel.cancel(existing);
+            }
+            Instant next = schedule.nextAfter(lastFired.getOrDefault(schedule.key(), now));
+            if (next != null) {
+                schedule.setNextFire(next);
+                wheel.schedule(schedule, next.toEpochMilli());
+            }
+            current.add(schedule);
+            started.add(schedule);
+        }
+        previous.values().forEach(wheel::cancel);
+        if (current.isEmpty()) {
+            schedules.remove(workflowId);
+        } else {
+            schedules.put(workflowId, current);
+        }
+        return started;
+    }
+
+    private List<Schedule> load(String condition, Object... args) {
+        List<Schedule> loaded = new ArrayList<>();
+        workflowVersionReader.forEachCurrentVersion(condition, SCHEDULE_TRIGGER, (workflowId, orgId, version, graphJson) -> {
+            try {
+                WorkflowGraph graph = WorkflowGraph.parse(objectMapper.readValue(graphJson, MAP_TYPE));
+                for (String nodeId : graph.getTopologicalOrder()) {
+                    GraphNode node = graph.getNode(nodeId);
+                    if (SCHEDULE_TRIGGER.equals(node.getType())) {
+                        loaded.add(new Schedule(workflowId, nodeId, version,
+                                node.getProperty("cron").trim(), cronOf(node), zoneOf(node)));
+                    }
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                log.debug("Skipping schedules of workflow {} version {}: {}", workflowId, version, e.getMessage());
+            }
+        }, args);
+        return loaded;
+    }
+
+    private void insertState(Collection<Schedule> started, Instant now) {
+        // Existing rows keep their last fire; a schedule seen for the first time has nothing to catch up on
+        LocalDateTime firedAt = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+        List<Object[]> rows = new ArrayList<>(started.size());
+        for (Schedule schedule : started) {
+            rows.add(new Object[]{UUID.randomUUID(), schedule.getWorkflowId(), schedule.getNodeId(), firedAt});
+        }
+        for (int from = 0; from < rows.size(); from += maxBatchSize) {
+            jdbcTemplate.batchUpdate(INSERT_STATE_SQL, rows.subList(from, Math.min(rows.size(), from + maxBatchSize)));
+        }
+    }
+
+    private void fire(List<Schedule> due, Instant now) {
+        List<Fire> fires = new ArrayList<>(due.size());
+        for (Schedule schedule : due) {
+            Instant next = schedule.getNextFire();
+            int fired = 0;
+            while (next != null && !next.isAfter(now) && fired < maxCatchUp) {
+                fires.add(new Fire(schedule, next));
+                next = schedule.nextAfter(next);
+                fired++;
+            }
+            if (next != null && !next.isAfter(now)) {
+                log.warn("Schedule {} of workflow {} missed more than {} fires, skipping to the next one after {}",
+                        schedule.getNodeId(), schedule.getWorkflowId(), maxCatchUp, now);
+                next = schedule.nextAfter(now);
+            }
+            schedule.setNextFire(next);
+            if (next != null) {
+                wheel.schedule(schedule, next.toEpochMilli());
+            }
+        }
+        for (int from = 0; from < fires.size(); from += maxBatchSize) {
+            write(fires.subList(from, Math.min(fires.size(), from + maxBatchSize)));
+        }
+    }
+
+    /**
+     * Inserts the runs of the given fires along with their {@code last_fired_at}. A failure propagates
+     * and ends this replica's leadership, so the fires are retried from the database by the next leader.
+     */
+    private void write(List<Fire> fires) {
+        List<Object[]> firedRows = new ArrayList<>(fires.size());
+        for (Fire fire : fires) {
+            LocalDateTime firedAt = LocalDateTime.ofInstant(fire.time, ZoneId.systemDefault());
+            firedRows.add(new Object[]{firedAt, fire.schedule.getWorkflowId(), fire.schedule.getNodeId(), firedAt});
+        }
+        List<UUID> runIds = transactionTemplate.execute(status -> {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_FIRED_SQL, firedRows);
+            LocalDateTime now = LocalDateTime.now();
+            List<UUID> ids = new ArrayList<>();
+            List<Object[]> runs = new ArrayList<>();
+            for (int i = 0; i < fires.size(); i++) {
+                // Zero rows means another leader has already fired this schedule at this time
+                if (updated[i] == 0) {
+                    continue;
+                }
+                Fire fire = fires.get(i);
+                UUID id = UUID.randomUUID();
+                ids.add(id);
+                runs.add(new Object[]{id, fire.schedule.getVersion(), now, input(fire), fire.schedule.getWorkflowId()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_RUN_SQL, runs);
+            return ids;
+        });
+        if (runIds == null || runIds.isEmpty()) {
+            return;
+        }
+        long committedAt = System.currentTimeMillis();
+        for (Fire fire : fires) {
+            lagTimer.record(Math.max(0, committedAt - fire.time.toEpochMilli()), TimeUnit.MILLISECONDS);
+        }
+        eventPublisher.publishEvent(new RunEnqueuedEvent(runIds.get(runIds.size() - 1)));
+    }
+
+    private String input(Fire fire) {
+        return objectMapper.createObjectNode()
+                .put("scheduledAt", fire.time.toString())
+                .put("cron", fire.schedule.getCronText())
+                .put("timezone", fire.schedule.getZone().getId())
+                .toString();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    private static final class Fire {
+        private final Schedule schedule;
+        private final Instant time;
+
+        Fire(Schedule schedule, Instant time) {
+            this.schedule = schedule;
+            this.time = time;
+        }
+    }
+}
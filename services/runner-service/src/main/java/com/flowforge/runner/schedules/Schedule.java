@@ -0,0 +1,79 @@
+package com.flowforge.runner.schedules;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * A schedule trigger node of the current version of a workflow, waiting in the timing wheel for its
+ * next fire time.
+ */
+final class Schedule extends TimingWheel.Entry {
+    private final UUID workflowId;
+    private final String nodeId;
+    private final String cronText;
+    private final CronExpression cron;
+    private final ZoneId zone;
+    private int version;
+    private Instant nextFire;
+
+    Schedule(UUID workflowId, String nodeId, int version, String cronText, CronExpression cron, ZoneId zone) {
+        this.workflowId = workflowId;
+        this.nodeId = nodeId;
+        this.version = version;
+        this.cronText = cronText;
+        this.cron = cron;
+        this.zone = zone;
+    }
+
+    UUID getWorkflowId() {
+        return workflowId;
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    void setVersion(int version) {
+        this.version = version;
+    }
+
+    String getCronText() {
+        return cronText;
+    }
+
+    ZoneId getZone() {
+        return zone;
+    }
+
+    Instant getNextFire() {
+        return nextFire;
+    }
+
+    void setNextFire(Instant nextFire) {
+        this.nextFire = nextFire;
+    }
+
+    /**
+     * The first fire time after {@code after}, or null if the expression never fires again.
+     */
+    Instant nextAfter(Instant after) {
+        ZonedDateTime next = cron.next(after.atZone(zone));
+        return next == null ? null : next.toInstant();
+    }
+
+    boolean sameTrigger(Schedule other) {
+        return cronText.equals(other.cronText) && zone.equals(other.zone);
+    }
+
+    String key() {
+        return workflowId + "/" + nodeId;
+    }
+}
@@ -0,0 +1,140 @@
+package com.flowforge.runner.schedules;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: {@code LEVELS} wheels of {@code SLOTS} slots, where a slot of level
+ * {@code n} spans {@code SLOTS^n} ticks. An entry sits in the lowest level whose range covers its
+ * deadline and moves down a level each time the wheel above reaches its slot, so scheduling,
+ * cancelling and each tick cost O(1) regardless of how many entries are waiting. Six levels of 64
+ * one-second ticks reach further than any cron expression fires.
+ *
+ * <p>Not thread-safe; entries are linked into their slot directly and can be in one wheel only.
+ */
+final class TimingWheel<E extends TimingWheel.Entry> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+
+    private final long tickMillis;
+    private final Entry[][] slots = new Entry[LEVELS][SLOTS];
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the entry to expire on the first tick at or after {@code deadlineMillis}, replacing any
+     * earlier deadline. A deadline that has passed expires on the next tick.
+     */
+    void schedule(E entry, long deadlineMillis) {
+        cancel(entry);
+        long tick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        entry.deadlineTick = Math.max(tick, currentTick + 1);
+        insert(entry);
+        size++;
+    }
+
+    void cancel(E entry) {
+        if (entry.level < 0) {
+            return;
+        }
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            slots[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.level = -1;
+        size--;
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis}, handing every entry whose deadline was reached to
+     * {@code expired} tick by tick. Expired entries are no longer scheduled.
+     */
+    @SuppressWarnings("unchecked")
+    void advance(long nowMillis, Consumer<E> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            // Higher levels first, so entries cascading from them into this tick's slots are not missed
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (level * SLOT_BITS)) - 1)) == 0) {
+                    Entry entry = detach(level, (int) (currentTick >>> (level * SLOT_BITS)) & MASK);
+                    while (entry != null) {
+                        Entry next = entry.next;
+                        entry.prev = null;
+                        entry.next = null;
+                        insert(entry);
+                        entry = next;
+                    }
+                }
+            }
+            Entry entry = detach(0, (int) currentTick & MASK);
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.prev = null;
+                entry.next = null;
+                entry.level = -1;
+                size--;
+                expired.accept((E) entry);
+                entry = next;
+            }
+        }
+    }
+
+    private Entry detach(int level, int slot) {
+        Entry head = slots[level][slot];
+        slots[level][slot] = null;
+        return head;
+    }
+
+    private void insert(Entry entry) {
+        long deadline = entry.deadlineTick;
+        int level = 0;
+        while (level < LEVELS
+                && (deadline >>> (level * SLOT_BITS)) - (currentTick >>> (level * SLOT_BITS)) >= SLOTS) {
+            level++;
+        }
+        int slot;
+        if (level < LEVELS) {
+            slot = (int) (Math.max(deadline, currentTick) >>> (level * SLOT_BITS)) & MASK;
+        } else {
+            // Beyond the top wheel: park in its furthest slot and place again once that slot is reached
+            level = LEVELS - 1;
+            slot = (int) ((currentTick >>> (level * SLOT_BITS)) + MASK) & MASK;
+        }
+        Entry head = slots[level][slot];
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        slots[level][slot] = entry;
+        entry.level = level;
+        entry.slot = slot;
+    }
+
+    /**
+     * Intrusive list node of a wheel slot.
+     */
+    static class Entry {
+        Entry prev;
+        Entry next;
+        long deadlineTick;
+        int level = -1;
+        int slot;
+    }
+}
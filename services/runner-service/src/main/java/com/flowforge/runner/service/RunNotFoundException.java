@@ -0,0 +1,9 @@
+package com.flowforge.runner.service;
+
+import java.util.UUID;
+
+public class RunNotFoundException extends RuntimeException {
+    public RunNotFoundException(UUID runId) {
+        super("Run " + runId + " not found");
+    }
+}
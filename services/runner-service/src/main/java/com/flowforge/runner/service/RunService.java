@@ -1,55 +1,134 @@
 package com.flowforge.runner.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flowforge.runner.dto.CreateRunRequest;
 import com.flowforge.runner.dto.RunResponse;
 import com.flowforge.runner.dto.StepUpdate;
+import com.flowforge.runner.engine.DagExecutor;
+import com.flowforge.runner.engine.ExecutionPlan;
+import com.flowforge.runner.engine.ExecutionPlanCache;
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.RunCancelledException;
+import com.flowforge.runner.engine.RunExecution;
+import com.flowforge.runner.engine.RunRejectedException;
+import com.flowforge.runner.engine.StepListener;
+import com.flowforge.runner.events.RunEvent;
+import com.flowforge.runner.events.RunEventLog;
+import com.flowforge.runner.events.RunEventPublisher;
 import com.flowforge.runner.model.Run;
 import com.flowforge.runner.model.StepRun;
+import com.flowforge.runner.payloads.PayloadStore;
+import com.flowforge.runner.payloads.RunPayloads;
+import com.flowforge.runner.payloads.StoredPayload;
+import com.flowforge.runner.queue.RunEnqueuedEvent;
+import com.flowforge.runner.queue.RunLimits;
+import com.flowforge.runner.queue.RunQueue;
 import com.flowforge.runner.repository.RunRepository;
 import com.flowforge.runner.repository.StepRunRepository;
+import com.flowforge.runner.repository.StepRunWriter;
+import com.flowforge.runner.repository.WorkflowVersionReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class RunService {
+    private static final Logger log = LoggerFactory.getLogger(RunService.class);
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final String CANCELLED = "Run cancelled";
+
     private final RunRepository runRepository;
     private final StepRunRepository stepRunRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RunEventPublisher runEventPublisher;
+    private final RunEventLog runEventLog;
     private final ObjectMapper objectMapper;
+    private final DagExecutor dagExecutor;
+    private final ExecutionPlanCache planCache;
+    private final WorkflowVersionReader workflowVersionReader;
+    private final RunQueue runQueue;
+    private final RunLimits runLimits;
+    private final StepRunWriter stepRunWriter;
+    private final PayloadStore payloadStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxAttempts;
+    // Runs executing on this replica, so cancel requests can reach them
+    private final Map<UUID, RunExecution> executions = new ConcurrentHashMap<>();
 
     @Autowired
     public RunService(
             RunRepository runRepository,
             StepRunRepository stepRunRepository,
-            SimpMessagingTemplate messagingTemplate,
-            ObjectMapper objectMapper) {
+            RunEventPublisher runEventPublisher,
+            RunEventLog runEventLog,
+            ObjectMapper objectMapper,
+            DagExecutor dagExecutor,
+            ExecutionPlanCache planCache,
+            WorkflowVersionReader workflowVersionReader,
+            RunQueue runQueue,
+            RunLimits runLimits,
+            StepRunWriter stepRunWriter,
+            PayloadStore payloadStore,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${flowforge.runner.queue.max-attempts:3}") int maxAttempts) {
         this.runRepository = runRepository;
         this.stepRunRepository = stepRunRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.runEventPublisher = runEventPublisher;
+        this.runEventLog = runEventLog;
         this.objectMapper = objectMapper;
+        this.dagExecutor = dagExecutor;
+        this.planCache = planCache;
+        this.workflowVersionReader = workflowVersionReader;
+        this.runQueue = runQueue;
+        this.runLimits = runLimits;
+        this.stepRunWriter = stepRunWriter;
+        this.payloadStore = payloadStore;
+        this.eventPublisher = eventPublisher;
+        this.maxAttempts = maxAttempts;
     }
 
-    @Transactional
-    public RunResponse createRun(CreateRunRequest request) {
+    /**
+     * Queues a run under the org of its workflow, or {@code callerOrgId} for a workflow not saved yet.
+     * Throws {@link RunRejectedException} when the run queue or the org's pending quota is full.
+     */
+    public RunResponse createRun(CreateRunRequest request, UUID callerOrgId) {
         Run run = new Run();
         run.setWorkflowId(request.getWorkflowId());
+        run.setOrgId(workflowVersionReader.findOrgId(request.getWorkflowId()).orElse(callerOrgId));
         run.setStatus(Run.RunStatus.PENDING);
         run.setTriggeredBy(request.getTriggeredBy());
+        if (request.getVersion() != null) {
+            // Compiles and caches the plan now, so the version is known to exist and be valid
+            planFor(request.getWorkflowId(), request.getVersion());
+            run.setWorkflowVersion(request.getVersion());
+        } else {
+            planCache.compile(request.getGraph());
+            run.setGraphJson(toJson(request.getGraph()));
+        }
+        if (request.getInput() != null) {
+            run.setInputJson(toJson(request.getInput()));
+        }
+        runLimits.admit(run.getOrgId(), run.getWorkflowId());
         run = runRepository.save(run);
 
-        // Stub execution - in real implementation, this would execute the workflow graph
-        final UUID runId = run.getId();
-        CompletableFuture.runAsync(() -> executeWorkflow(runId, request.getGraph()));
+        // The run is durably queued at this point; any replica may pick it up
+        eventPublisher.publishEvent(new RunEnqueuedEvent(run.getId()));
 
         List<StepRun> steps = stepRunRepository.findByRunIdOrderByStartedAtAsc(run.getId());
         return new RunResponse(run, steps);
@@ -57,59 +136,279 @@ public class RunService {
 
     public RunResponse getRun(UUID runId) {
         Run run = runRepository.findById(runId)
-                .orElseThrow(() -> new RuntimeException("Run not found"));
+                .orElseThrow(() -> new RunNotFoundException(runId));
         List<StepRun> steps = stepRunRepository.findByRunIdOrderByStartedAtAsc(runId);
         return new RunResponse(run, steps);
     }
 
-    private void executeWorkflow(UUID runId, Map<String, Object> graph) {
+    /**
+     * Cancels a run. A pending run is cancelled right away; a running one is flagged for the replica
+     * that owns it and stopped by that replica, here at once or on its next cancellation poll.
+     * Throws {@link RunNotFoundException} for an unknown run and {@link IllegalStateException} if the
+     * run has already finished.
+     */
+    public RunResponse cancelRun(UUID runId) {
+        if (!runRepository.existsById(runId)) {
+            throw new RunNotFoundException(runId);
+        }
+        boolean accepted = runQueue.cancelPending(runId, CANCELLED) || runQueue.requestCancel(runId);
+        RunResponse response = getRun(runId);
+        if (!accepted) {
+            throw new IllegalStateException("Run " + runId + " has already finished");
+        }
+        cancelLocal(runId);
+        return response;
+    }
+
+    /**
+     * Stops a run if it executes on this replica.
+     */
+    public boolean cancelLocal(UUID runId) {
+        RunExecution execution = executions.get(runId);
+        if (execution == null) {
+            return false;
+        }
+        execution.cancel(new RunCancelledException(CANCELLED));
+        return true;
+    }
+
+    public boolean hasActiveRuns() {
+        return !executions.isEmpty();
+    }
+
+    /**
+     * Returns the run's stream events from sequence number {@code fromSeq} on as a JSON array, so
+     * clients can catch up without reloading the run and all of its steps.
+     */
+    public String getRunEvents(UUID runId, long fromSeq) {
+        StringBuilder json = new StringBuilder("[");
+        for (RunEvent event : runEventLog.replay(runId, fromSeq)) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(event.getPayload());
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Streams the raw input or output JSON of a step, which the run stream references instead of
+     * inlining when it is large, from whichever tier of the payload store holds it.
+     */
+    public InputStream getStepPayload(UUID runId, UUID stepId, boolean input) {
+        return stepRunRepository.findById(stepId)
+                .filter(stepRun -> stepRun.getRunId().equals(runId))
+                .map(stepRun -> input
+                        ? payloadStore.open(stepRun.getInputJson(), stepRun.getInputLocation())
+                        : payloadStore.open(stepRun.getOutputJson(), stepRun.getOutputLocation()))
+                .orElse(null);
+    }
+
+    /**
+     * Executes a run claimed from the queue by {@code owner}. If the run was claimed before by a worker
+     * that died, steps it completed are not executed again.
+     */
+    public void executeRun(UUID runId, String owner) {
+        Run run = runRepository.findById(runId).orElse(null);
+        if (run == null) {
+            return;
+        }
+        if (run.getCancelRequestedAt() != null) {
+            // Cancelled while its previous owner was dying
+            runQueue.finish(runId, owner, Run.RunStatus.CANCELLED, CANCELLED);
+            return;
+        }
         try {
-            Run run = runRepository.findById(runId)
-                    .orElseThrow(() -> new RuntimeException("Run not found"));
-            run.setStatus(Run.RunStatus.RUNNING);
-            runRepository.save(run);
+            if (run.getAttempts() > maxAttempts) {
+                throw new IllegalStateException("Run abandoned after " + maxAttempts + " attempts");
+            }
+            ExecutionPlan plan = run.getWorkflowVersion() != null
+                    ? planFor(run.getWorkflowId(), run.getWorkflowVersion())
+                    : planCache.compile(readGraph(run.getGraphJson()));
+            Set<String> skippedNodes = new HashSet<>();
+            RunPayloads payloads = payloadStore.forRun();
+            Map<String, Map<String, Object>> completedOutputs = recoverSteps(runId, skippedNodes, payloads);
+            Map<String, Object> triggerInput = run.getInputJson() == null
+                    ? Map.of()
+                    : objectMapper.readValue(run.getInputJson(), MAP_TYPE);
+            RunExecution execution = dagExecutor.execute(
+                    plan, triggerInput, completedOutputs, new RunStepListener(runId, skippedNodes, payloads));
+            executions.put(runId, execution);
+            try {
+                execution.completion().join();
+            } finally {
+                executions.remove(runId);
+            }
 
-            // Stub: Create a sample step run
-            StepRun stepRun = new StepRun();
-            stepRun.setRunId(runId);
-            stepRun.setNodeId("stub-node-1");
-            stepRun.setStatus(StepRun.StepStatus.RUNNING);
-            stepRun.setStartedAt(LocalDateTime.now());
-            stepRun = stepRunRepository.save(stepRun);
+            flushSteps(runId);
+            runQueue.finish(runId, owner, Run.RunStatus.COMPLETED, null);
 
-            // Send update via WebSocket
-            sendStepUpdate(runId, stepRun);
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            flushSteps(runId);
+            runQueue.finish(runId, owner,
+                    cause instanceof RunCancelledException ? Run.RunStatus.CANCELLED : Run.RunStatus.FAILED,
+                    cause.getMessage());
+        }
+    }
 
-            // Simulate execution delay
-            Thread.sleep(1000);
+    private void flushSteps(UUID runId) {
+        try {
+            stepRunWriter.flush();
+        } catch (RuntimeException e) {
+            // The writer keeps what it could not write and retries it; the run still has to finish
+            log.warn("Failed to write the steps of run {} before finishing it: {}", runId, e.getMessage());
+        }
+    }
 
-            stepRun.setStatus(StepRun.StepStatus.COMPLETED);
-            stepRun.setFinishedAt(LocalDateTime.now());
+    private Map<String, Map<String, Object>> recoverSteps(UUID runId, Set<String> skippedNodes, RunPayloads payloads)
+            throws JsonProcessingException {
+        Map<String, Map<String, Object>> completedOutputs = new HashMap<>();
+        for (StepRun stepRun : stepRunRepository.findByRunIdOrderByStartedAtAsc(runId)) {
+            if (stepRun.getStatus() == StepRun.StepStatus.COMPLETED) {
+                completedOutputs.put(stepRun.getNodeId(), payloads.recover(
+                        stepRun.getOutputJson(), stepRun.getOutputLocation(), stepRun.getOutputSize()));
+            } else if (stepRun.getStatus() == StepRun.StepStatus.SKIPPED) {
+                skippedNodes.add(stepRun.getNodeId());
+            } else if (stepRun.getStatus() == StepRun.StepStatus.RUNNING) {
+                stepRun.setStatus(StepRun.StepStatus.FAILED);
+                stepRun.setFinishedAt(LocalDateTime.now());
+                stepRun.setError("Interrupted: runner lease expired");
+                stepRunWriter.update(stepRun);
+            }
+        }
+        return completedOutputs;
+    }
+
+    private ExecutionPlan planFor(UUID workflowId, int version) {
+        return planCache.get(workflowId, version, () -> {
+            String graphJson = workflowVersionReader.findGraphJson(workflowId, version)
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "Workflow " + workflowId + " has no version " + version));
             try {
-                stepRun.setOutputJson(objectMapper.writeValueAsString(Map.of("result", "success")));
+                return readGraph(graphJson);
             } catch (JsonProcessingException e) {
-                // Ignore
+                throw new IllegalArgumentException("Workflow " + workflowId + " version " + version
+                        + " has an unreadable graph", e);
             }
-            stepRunRepository.save(stepRun);
-            sendStepUpdate(runId, stepRun);
+        });
+    }
+
+    private Map<String, Object> readGraph(String graphJson) throws JsonProcessingException {
+        if (graphJson == null) {
+            throw new IllegalArgumentException("Workflow graph is required");
+        }
+        return objectMapper.readValue(graphJson, MAP_TYPE);
+    }
 
-            run.setStatus(Run.RunStatus.COMPLETED);
-            run.setFinishedAt(LocalDateTime.now());
-            runRepository.save(run);
+    private void sendStepUpdate(StepRun stepRun) {
+        runEventPublisher.publish(new StepUpdate(stepRun));
+    }
 
-        } catch (Exception e) {
-            Run run = runRepository.findById(runId)
-                    .orElseThrow(() -> new RuntimeException("Run not found"));
-            run.setStatus(Run.RunStatus.FAILED);
-            run.setErrorMessage(e.getMessage());
-            run.setFinishedAt(LocalDateTime.now());
-            runRepository.save(run);
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return null;
         }
     }
 
-    private void sendStepUpdate(UUID runId, StepRun stepRun) {
-        StepUpdate update = new StepUpdate(stepRun);
-        messagingTemplate.convertAndSend("/topic/runs/" + runId + "/stream", update);
+    /**
+     * Persists and streams step transitions for one run. Steps of parallel branches report concurrently.
+     */
+    private class RunStepListener implements StepListener {
+        private final UUID runId;
+        // Skips recorded by an earlier attempt; the scheduler reports them again on resume
+        private final Set<String> recordedSkips;
+        private final Map<String, StepRun> steps = new ConcurrentHashMap<>();
+        private final RunPayloads payloads;
+
+        RunStepListener(UUID runId, Set<String> recordedSkips, RunPayloads payloads) {
+            this.runId = runId;
+            this.recordedSkips = recordedSkips;
+            this.payloads = payloads;
+        }
+
+        @Override
+        public void onStepStarted(GraphNode node, Map<String, Object> input) {
+            StepRun stepRun = new StepRun();
+            stepRun.setId(UUID.randomUUID());
+            stepRun.setRunId(runId);
+            stepRun.setNodeId(node.getId());
+            stepRun.setStatus(StepRun.StepStatus.RUNNING);
+            stepRun.setStartedAt(LocalDateTime.now());
+            StoredPayload stored = payloads.storeInput(input);
+            stepRun.setInputJson(stored.getJson());
+            stepRun.setInputLocation(stored.getLocation());
+            stepRun.setInputSize(stored.getSize());
+            stepRun.setRetryCount(0);
+            steps.put(node.getId(), stepRun);
+            stepRunWriter.insert(stepRun);
+            sendStepUpdate(stepRun);
+        }
+
+        @Override
+        public void onStepCompleted(GraphNode node, Map<String, Object> output) {
+            StepRun stepRun = steps.get(node.getId());
+            if (stepRun == null) {
+                return;
+            }
+            stepRun.setStatus(StepRun.StepStatus.COMPLETED);
+            stepRun.setFinishedAt(LocalDateTime.now());
+            StoredPayload stored = payloads.storeOutput(output);
+            stepRun.setOutputJson(stored.getJson());
+            stepRun.setOutputLocation(stored.getLocation());
+            stepRun.setOutputSize(stored.getSize());
+            // Errors of earlier attempts are not kept once an attempt succeeds
+            stepRun.setError(null);
+            stepRunWriter.update(stepRun);
+            sendStepUpdate(stepRun);
+        }
+
+        @Override
+        public void onStepFailed(GraphNode node, Throwable error) {
+            StepRun stepRun = steps.get(node.getId());
+            if (stepRun == null) {
+                return;
+            }
+            stepRun.setStatus(StepRun.StepStatus.FAILED);
+            stepRun.setFinishedAt(LocalDateTime.now());
+            stepRun.setError(error.getMessage());
+            stepRunWriter.update(stepRun);
+            sendStepUpdate(stepRun);
+        }
+
+        @Override
+        public void onStepRetrying(GraphNode node, Throwable error, int retryCount, long delayMillis) {
+            StepRun stepRun = steps.get(node.getId());
+            if (stepRun == null) {
+                return;
+            }
+            // The step stays RUNNING; the error of the failed attempt shows until the next one finishes
+            stepRun.setRetryCount(retryCount);
+            stepRun.setError(error.getMessage());
+            stepRunWriter.update(stepRun);
+            sendStepUpdate(stepRun);
+        }
+
+        @Override
+        public void onStepSkipped(GraphNode node) {
+            if (recordedSkips.contains(node.getId())) {
+                return;
+            }
+            StepRun stepRun = new StepRun();
+            stepRun.setId(UUID.randomUUID());
+            stepRun.setRunId(runId);
+            stepRun.setNodeId(node.getId());
+            stepRun.setStatus(StepRun.StepStatus.SKIPPED);
+            stepRun.setFinishedAt(LocalDateTime.now());
+            stepRun.setRetryCount(0);
+            steps.put(node.getId(), stepRun);
+            stepRunWriter.insert(stepRun);
+            sendStepUpdate(stepRun);
+        }
     }
 }
-
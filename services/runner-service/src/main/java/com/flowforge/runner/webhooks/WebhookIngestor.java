@@ -0,0 +1,155 @@
+package com.flowforge.runner.webhooks;
+
+import com.flowforge.runner.engine.RunRejectedException;
+import com.flowforge.runner.queue.RunEnqueuedEvent;
+import com.flowforge.runner.queue.RunLimits;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durably enqueues webhook-triggered runs with group commit: requests queue their run row and writer
+ * threads insert everything queued since their last write in one batch, so throughput grows with load
+ * while an idle writer commits a lone request immediately. Rows are written with plain JDBC, a batch
+ * commits in one transaction or not at all, and the future of a request completes only once its row
+ * is committed.
+ */
+@Component
+public class WebhookIngestor {
+    private static final Logger log = LoggerFactory.getLogger(WebhookIngestor.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO runs (id, workflow_id, org_id, workflow_version, status, started_at, attempts, input_json) " +
+            "VALUES (?, ?, ?, ?, 'PENDING', ?, 0, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RunLimits runLimits;
+    private final BlockingQueue<PendingRun> queue;
+    private final int writerThreads;
+    private final int maxBatchSize;
+
+    private volatile boolean running = true;
+    private final List<Thread> writers = new ArrayList<>();
+
+    @Autowired
+    public WebhookIngestor(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            RunLimits runLimits,
+            @Value("${flowforge.runner.webhooks.queue-capacity:10000}") int queueCapacity,
+            @Value("${flowforge.runner.webhooks.writer-threads:2}") int writerThreads,
+            @Value("${flowforge.runner.webhooks.max-batch-size:500}") int maxBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.runLimits = runLimits;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThreads = writerThreads;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < writerThreads; i++) {
+            Thread writer = new Thread(this::writeLoop, "webhook-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    /**
+     * Queues a run of the route's workflow version. The future completes with the run id once the run
+     * is committed, or exceptionally with {@link RunRejectedException} when the run queue or the
+     * pending quota of the workflow's org is full.
+     */
+    public CompletableFuture<UUID> enqueue(WebhookRoute route, String inputJson) {
+        try {
+            runLimits.admit(route.getOrgId(), route.getWorkflowId());
+        } catch (RunRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        PendingRun run = new PendingRun(route, inputJson);
+        if (!queue.offer(run)) {
+            return CompletableFuture.failedFuture(new RunRejectedException("Webhook ingestion queue is full"));
+        }
+        return run.result;
+    }
+
+    private void writeLoop() {
+        List<PendingRun> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingRun first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingRun> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (PendingRun run : batch) {
+            rows.add(new Object[]{run.id, run.route.getWorkflowId(), run.route.getOrgId(), run.route.getVersion(), now, run.inputJson});
+        }
+        try {
+            // Every request of the batch is failed on error, so none of its rows may be committed
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+        } catch (RuntimeException e) {
+            log.warn("Failed to enqueue {} webhook runs: {}", batch.size(), e.getMessage());
+            batch.forEach(run -> run.result.completeExceptionally(e));
+            return;
+        }
+        batch.forEach(run -> run.result.complete(run.id));
+        // One event wakes the local worker for the whole batch
+        eventPublisher.publishEvent(new RunEnqueuedEvent(batch.get(batch.size() - 1).id));
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        writers.forEach(Thread::interrupt);
+    }
+
+    private static final class PendingRun {
+        private final UUID id = UUID.randomUUID();
+        private final WebhookRoute route;
+        private final String inputJson;
+        private final CompletableFuture<UUID> result = new CompletableFuture<>();
+
+        PendingRun(WebhookRoute route, String inputJson) {
+            this.route = route;
+            this.inputJson = inputJson;
+        }
+    }
+}
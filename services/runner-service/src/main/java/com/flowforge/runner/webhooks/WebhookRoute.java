@@ -0,0 +1,53 @@
+package com.flowforge.runner.webhooks;
+
+import java.util.UUID;
+
+/**
+ * A webhook trigger node of the current version of a workflow, reachable at
+ * {@code /hooks{path}} with {@code method}.
+ */
+public final class WebhookRoute {
+    private final String method;
+    private final String path;
+    private final UUID workflowId;
+    private final UUID orgId;
+    private final int version;
+    private final String nodeId;
+
+    public WebhookRoute(String method, String path, UUID workflowId, UUID orgId, int version, String nodeId) {
+        this.method = method;
+        this.path = path;
+        this.workflowId = workflowId;
+        this.orgId = orgId;
+        this.version = version;
+        this.nodeId = nodeId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public UUID getWorkflowId() {
+        return workflowId;
+    }
+
+    public UUID getOrgId() {
+        return orgId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    String key() {
+        return method + " " + path;
+    }
+}
@@ -0,0 +1,233 @@
+package com.flowforge.runner.webhooks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flowforge.runner.engine.GraphNode;
+import com.flowforge.runner.engine.WorkflowGraph;
+import com.flowforge.runner.repository.WorkflowVersionReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory routing table from webhook method and path to the trigger node of a workflow's current
+ * version. Lookups read an immutable snapshot without locking; changes build a new snapshot. A
+ * workflow is reloaded when Postgres notifies that it changed, and the whole table is rebuilt every
+ * {@code refresh-interval-ms} in case a notification was missed.
+ */
+@Component
+public class WebhookRoutes {
+    private static final Logger log = LoggerFactory.getLogger(WebhookRoutes.class);
+
+    private static final String WEBHOOK_TRIGGER = "webhookTrigger";
+    private static final String NOT_ARCHIVED = "w.status <> 'ARCHIVED'";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final DataSource dataSource;
+    private final WorkflowVersionReader workflowVersionReader;
+    private final ObjectMapper objectMapper;
+    private final boolean listen;
+    private final String channel;
+
+    private volatile Map<String, WebhookRoute> routes = Map.of();
+    private final Object updateLock = new Object();
+    private volatile boolean running = true;
+    private Thread listener;
+
+    @Autowired
+    public WebhookRoutes(
+            DataSource dataSource,
+            WorkflowVersionReader workflowVersionReader,
+            ObjectMapper objectMapper,
+            @Value("${flowforge.runner.webhooks.listen:true}") boolean listen,
+            @Value("${flowforge.runner.webhooks.channel:workflow_changes}") String channel) {
+        this.dataSource = dataSource;
+        this.workflowVersionReader = workflowVersionReader;
+        this.objectMapper = objectMapper;
+        this.listen = listen;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (listen) {
+            listener = new Thread(this::listenLoop, "webhook-routes-listen");
+            listener.setDaemon(true);
+            listener.start();
+        }
+    }
+
+    public WebhookRoute resolve(String method, String path) {
+        return routes.get(method.toUpperCase(Locale.ROOT) + " " + normalizePath(path));
+    }
+
+    @Scheduled(fixedDelayString = "${flowforge.runner.webhooks.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            Map<String, WebhookRoute> loaded = new HashMap<>();
+            for (WebhookRoute route : load(NOT_ARCHIVED)) {
+                add(loaded, route);
+            }
+            synchronized (updateLock) {
+                routes = Map.copyOf(loaded);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to load webhook routes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the routes of one workflow with those of its current version.
+     */
+    public void reload(UUID workflowId) {
+        List<WebhookRoute> current = load(NOT_ARCHIVED + " AND w.id = ?", workflowId);
+        synchronized (updateLock) {
+            Map<String, WebhookRoute> updated = new HashMap<>(routes);
+            updated.values().removeIf(route -> route.getWorkflowId().equals(workflowId));
+            for (WebhookRoute route : current) {
+                add(updated, route);
+            }
+            routes = Map.copyOf(updated);
+        }
+    }
+
+    private static void add(Map<String, WebhookRoute> routes, WebhookRoute route) {
+        WebhookRoute existing = routes.putIfAbsent(route.key(), route);
+        if (existing != null && !existing.getWorkflowId().equals(route.getWorkflowId())) {
+            log.warn("Webhook {} of workflow {} is already taken by workflow {}",
+                    route.key(), route.getWorkflowId(), existing.getWorkflowId());
+        }
+    }
+
+    private List<WebhookRoute> load(String condition, Object... args) {
+        List<WebhookRoute> loaded = new ArrayList<>();
+        workflowVersionReader.forEachCurrentVersion(condition, WEBHOOK_TRIGGER, (workflowId, orgId, version, graphJson) -> {
+            try {
+                WorkflowGraph graph = WorkflowGraph.parse(objectMapper.readValue(graphJson, MAP_TYPE));
+                for (String nodeId : graph.getTopologicalOrder()) {
+                    GraphNode node = graph.getNode(nodeId);
+                    if (WEBHOOK_TRIGGER.equals(node.getType())) {
+                        loaded.add(new WebhookRoute(methodOf(node), pathOf(node, workflowId), workflowId, orgId, version, nodeId));
+                    }
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                log.debug("Skipping webhooks of workflow {} version {}: {}", workflowId, version, e.getMessage());
+            }
+        }, args);
+        return loaded;
+    }
+
+    /**
+     * The method a webhook trigger node accepts, POST unless configured otherwise.
+     */
+    public static String methodOf(GraphNode node) {
+        String method = node.getProperty("method");
+        method = method == null || method.isBlank() ? "POST" : method.trim().toUpperCase(Locale.ROOT);
+        if (!method.equals("POST") && !method.equals("GET")) {
+            throw new IllegalArgumentException("Webhook method must be POST or GET");
+        }
+        return method;
+    }
+
+    /**
+     * The path below {@code /hooks} a webhook trigger node listens on. The node's {@code url} may be a
+     * full URL or a path; without one the node listens on {@code /{workflowId}/{nodeId}}.
+     */
+    public static String pathOf(GraphNode node, UUID workflowId) {
+        String url = node.getProperty("url");
+        if (url == null || url.isBlank()) {
+            return "/" + workflowId + "/" + node.getId();
+        }
+        String path = url.trim();
+        if (path.contains("://")) {
+            try {
+                path = URI.create(path).getRawPath();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid webhook url: " + url);
+            }
+        }
+        path = normalizePath(path);
+        if (path.equals("/")) {
+            throw new IllegalArgumentException("Webhook url needs a path");
+        }
+        return path;
+    }
+
+    private static String normalizePath(String path) {
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        if (!path.startsWith("/")) {
+            path = "/" + path;
+        }
+        if (path.equals("/hooks") || path.startsWith("/hooks/")) {
+            path = path.substring("/hooks".length());
+        }
+        while (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path.isEmpty() ? "/" : path;
+    }
+
+    private void listenLoop() {
+        // Loads the table once connected, so changes made while the listener was down are picked up
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                refresh();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        try {
+                            reload(UUID.fromString(notification.getParameter()));
+                        } catch (RuntimeException e) {
+                            log.warn("Failed to reload webhooks of workflow {}: {}", notification.getParameter(), e.getMessage());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Webhook route listener lost its connection, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+}
@@ -2,19 +2,28 @@ package com.flowforge.workflow.controller;
 
 import com.flowforge.workflow.dto.CreateWorkflowRequest;
 import com.flowforge.workflow.dto.SaveVersionRequest;
+import com.flowforge.workflow.dto.WorkflowPage;
 import com.flowforge.workflow.dto.WorkflowResponse;
-import com.flowforge.workflow.model.WorkflowVersion;
+import com.flowforge.workflow.dto.WorkflowVersionResponse;
+import com.flowforge.workflow.model.Workflow;
+import com.flowforge.workflow.repository.WorkflowSummaryQuery;
 import com.flowforge.workflow.service.AuthorizationService;
 import com.flowforge.workflow.service.AuditService;
 import com.flowforge.workflow.service.WorkflowService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -64,13 +73,52 @@ public class WorkflowController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<WorkflowResponse> getWorkflow(@PathVariable UUID id) {
-        return workflowService.getWorkflow(id)
-                .map(ResponseEntity::ok)
+    /**
+     * Tagged with the workflow's id and version, so an editor reloading an unchanged canvas gets a 304
+     * without its graph being read.
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getWorkflow(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<Integer> version = workflowService.getCurrentVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (matches(ifNoneMatch, etag(id, version.get()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag(id, version.get()))
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+        }
+        return workflowService.getWorkflowJson(id)
+                .map(json -> ResponseEntity.ok()
+                        .eTag(etag(id, json.getVersion()))
+                        .cacheControl(CacheControl.noCache())
+                        .body(json.getJson()))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private static String etag(UUID id, int version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            // Proxies that compress the response weaken its tag
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @PostMapping("/{id}/versions")
     public ResponseEntity<WorkflowResponse> saveVersion(
             @PathVariable UUID id,
@@ -106,8 +154,8 @@ public class WorkflowController {
     }
 
     @GetMapping("/{id}/versions")
-    public ResponseEntity<List<WorkflowVersion>> getVersions(@PathVariable UUID id) {
-        List<WorkflowVersion> versions = workflowService.getVersions(id);
+    public ResponseEntity<List<WorkflowVersionResponse>> getVersions(@PathVariable UUID id) {
+        List<WorkflowVersionResponse> versions = workflowService.getVersions(id);
         return ResponseEntity.ok(versions);
     }
 
@@ -117,5 +165,32 @@ public class WorkflowController {
         List<WorkflowResponse> workflows = workflowService.getAllWorkflows(workspaceId);
         return ResponseEntity.ok(workflows);
     }
+
+    /**
+     * Lists workflows without their graphs, newest first by default; fetch one with {@code GET /{id}}
+     * for its graph. Pass the returned {@code nextCursor} as {@code cursor} for the next page.
+     */
+    @GetMapping("/summaries")
+    public ResponseEntity<WorkflowPage> listWorkflows(
+            @RequestParam(required = false, defaultValue = "00000000-0000-0000-0000-000000000000") UUID workspaceId,
+            @RequestParam(required = false) Workflow.WorkflowStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedBefore,
+            @RequestParam(defaultValue = "updatedAt") String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        if (!order.equals("asc") && !order.equals("desc")) {
+            throw new IllegalArgumentException("order must be asc or desc");
+        }
+        WorkflowSummaryQuery query = new WorkflowSummaryQuery(workspaceId);
+        query.setStatus(status);
+        query.setUpdatedSince(updatedSince);
+        query.setUpdatedBefore(updatedBefore);
+        query.setSort(WorkflowSummaryQuery.Sort.fromAttribute(sort));
+        query.setDescending(order.equals("desc"));
+        query.setLimit(limit);
+        return ResponseEntity.ok(workflowService.listWorkflows(query, cursor));
+    }
 }
 
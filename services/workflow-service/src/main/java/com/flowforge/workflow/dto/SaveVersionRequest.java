@@ -11,6 +11,9 @@ public class SaveVersionRequest {
     @NotNull
     private Map<String, Object> graph;
 
+    // The version the graph was edited from; the save is rejected if the workflow has moved past it
+    private Integer baseVersion;
+
     public UUID getWorkflowId() {
         return workflowId;
     }
@@ -26,6 +29,14 @@ public class SaveVersionRequest {
     public void setGraph(Map<String, Object> graph) {
         this.graph = graph;
     }
+
+    public Integer getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(Integer baseVersion) {
+        this.baseVersion = baseVersion;
+    }
 }
 
 
@@ -0,0 +1,34 @@
+package com.flowforge.workflow.dto;
+
+import java.util.List;
+
+/**
+ * One page of a workflow listing. {@code nextCursor} fetches the page after it and is null on the last.
+ */
+public class WorkflowPage {
+    private List<WorkflowSummary> items;
+    private String nextCursor;
+
+    public WorkflowPage() {}
+
+    public WorkflowPage(List<WorkflowSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<WorkflowSummary> getItems() {
+        return items;
+    }
+
+    public void setItems(List<WorkflowSummary> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,8 +1,8 @@
 package com.flowforge.workflow.dto;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.flowforge.workflow.model.Workflow;
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.UUID;
 
 public class WorkflowResponse {
@@ -13,11 +13,11 @@ public class WorkflowResponse {
     private Integer version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
-    private Map<String, Object> graph;
+    private JsonNode graph;
 
     public WorkflowResponse() {}
 
-    public WorkflowResponse(Workflow workflow, Map<String, Object> graph) {
+    public WorkflowResponse(Workflow workflow, JsonNode graph) {
         this.id = workflow.getId();
         this.workspaceId = workflow.getWorkspaceId();
         this.name = workflow.getName();
@@ -84,11 +84,11 @@ public class WorkflowResponse {
         this.updatedAt = updatedAt;
     }
 
-    public Map<String, Object> getGraph() {
+    public JsonNode getGraph() {
         return graph;
     }
 
-    public void setGraph(Map<String, Object> graph) {
+    public void setGraph(JsonNode graph) {
         this.graph = graph;
     }
 }
@@ -0,0 +1,87 @@
+package com.flowforge.workflow.dto;
+
+import com.flowforge.workflow.model.Workflow;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A workflow as listed, without its graph.
+ */
+public class WorkflowSummary {
+    private UUID id;
+    private UUID workspaceId;
+    private String name;
+    private Workflow.WorkflowStatus status;
+    private Integer version;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public WorkflowSummary() {}
+
+    public WorkflowSummary(UUID id, UUID workspaceId, String name, Workflow.WorkflowStatus status, Integer version,
+                           LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.workspaceId = workspaceId;
+        this.name = name;
+        this.status = status;
+        this.version = version;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId(UUID workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Workflow.WorkflowStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Workflow.WorkflowStatus status) {
+        this.status = status;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,76 @@
+package com.flowforge.workflow.dto;
+
+import com.flowforge.workflow.model.WorkflowVersion;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A saved version with its full graph, however it is stored.
+ */
+public class WorkflowVersionResponse {
+    private UUID id;
+    private UUID workflowId;
+    private UUID orgId;
+    private Integer version;
+    private String graphJson;
+    private LocalDateTime createdAt;
+
+    public WorkflowVersionResponse() {}
+
+    public WorkflowVersionResponse(WorkflowVersion workflowVersion, String graphJson) {
+        this.id = workflowVersion.getId();
+        this.workflowId = workflowVersion.getWorkflowId();
+        this.orgId = workflowVersion.getOrgId();
+        this.version = workflowVersion.getVersion();
+        this.graphJson = graphJson;
+        this.createdAt = workflowVersion.getCreatedAt();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(UUID workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public UUID getOrgId() {
+        return orgId;
+    }
+
+    public void setOrgId(UUID orgId) {
+        this.orgId = orgId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public String getGraphJson() {
+        return graphJson;
+    }
+
+    public void setGraphJson(String graphJson) {
+        this.graphJson = graphJson;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
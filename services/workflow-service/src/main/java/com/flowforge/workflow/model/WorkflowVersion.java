@@ -5,7 +5,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "workflow_versions")
+@Table(name = "workflow_versions", uniqueConstraints = @UniqueConstraint(
+        name = "ux_workflow_versions_workflow_version", columnNames = {"workflow_id", "version"}))
 public class WorkflowVersion {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -20,9 +21,17 @@ public class WorkflowVersion {
     @Column(nullable = false)
     private Integer version;
 
+    // The full graph on checkpoints; other versions only hold the patch from the version before
     @Column(name = "graph_json", columnDefinition = "CLOB")
     private String graphJson;
 
+    @Column(name = "patch_json", columnDefinition = "CLOB")
+    private String patchJson;
+
+    // The checkpoint this version is rebuilt from, its own version on checkpoints
+    @Column(name = "base_version")
+    private Integer baseVersion;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -71,6 +80,22 @@ public class WorkflowVersion {
         this.graphJson = graphJson;
     }
 
+    public String getPatchJson() {
+        return patchJson;
+    }
+
+    public void setPatchJson(String patchJson) {
+        this.patchJson = patchJson;
+    }
+
+    public Integer getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(Integer baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -2,14 +2,36 @@ package com.flowforge.workflow.repository;
 
 import com.flowforge.workflow.model.Workflow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface WorkflowRepository extends JpaRepository<Workflow, UUID> {
+public interface WorkflowRepository extends JpaRepository<Workflow, UUID>, WorkflowRepositoryCustom {
     List<Workflow> findByWorkspaceId(UUID workspaceId);
-}
 
+    @Query("SELECT w.version FROM Workflow w WHERE w.id = :id")
+    Optional<Integer> findVersionById(@Param("id") UUID id);
 
+    /**
+     * Advances a workflow to the next version if it is still at {@code version}. Returns the rows updated.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Workflow w SET w.version = w.version + 1, w.updatedAt = :updatedAt " +
+           "WHERE w.id = :id AND w.version = :version")
+    int advanceVersion(@Param("id") UUID id, @Param("version") Integer version,
+                       @Param("updatedAt") LocalDateTime updatedAt);
 
+    /**
+     * Advances a workflow to the next version, whichever it is at. The row stays locked until the
+     * transaction ends, so concurrent saves each get their own version.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Workflow w SET w.version = w.version + 1, w.updatedAt = :updatedAt WHERE w.id = :id")
+    int advanceVersion(@Param("id") UUID id, @Param("updatedAt") LocalDateTime updatedAt);
+}
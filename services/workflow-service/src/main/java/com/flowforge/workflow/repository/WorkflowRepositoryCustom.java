@@ -0,0 +1,11 @@
+package com.flowforge.workflow.repository;
+
+import com.flowforge.workflow.dto.WorkflowSummary;
+import java.util.List;
+
+public interface WorkflowRepositoryCustom {
+    /**
+     * Selects one page of summaries in a single query, reading only the workflows table.
+     */
+    List<WorkflowSummary> findSummaries(WorkflowSummaryQuery query);
+}
@@ -0,0 +1,72 @@
+package com.flowforge.workflow.repository;
+
+import com.flowforge.workflow.dto.WorkflowSummary;
+import com.flowforge.workflow.model.Workflow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class WorkflowRepositoryImpl implements WorkflowRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<WorkflowSummary> findSummaries(WorkflowSummaryQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<WorkflowSummary> select = cb.createQuery(WorkflowSummary.class);
+        Root<Workflow> workflow = select.from(Workflow.class);
+        select.select(cb.construct(WorkflowSummary.class,
+                workflow.get("id"), workflow.get("workspaceId"), workflow.get("name"), workflow.get("status"),
+                workflow.get("version"), workflow.get("createdAt"), workflow.get("updatedAt")));
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(workflow.get("workspaceId"), query.getWorkspaceId()));
+        if (query.getStatus() != null) {
+            where.add(cb.equal(workflow.get("status"), query.getStatus()));
+        }
+        Path<LocalDateTime> updatedAt = workflow.get("updatedAt");
+        if (query.getUpdatedSince() != null) {
+            where.add(cb.greaterThanOrEqualTo(updatedAt, query.getUpdatedSince()));
+        }
+        if (query.getUpdatedBefore() != null) {
+            where.add(cb.lessThan(updatedAt, query.getUpdatedBefore()));
+        }
+
+        WorkflowSummaryQuery.Sort sort = query.getSort();
+        Path<UUID> id = workflow.get("id");
+        if (query.getAfterId() != null) {
+            Comparable<?> key = sort.parseKey(query.getAfterKey());
+            where.add(sort == WorkflowSummaryQuery.Sort.NAME
+                    ? after(cb, workflow.get("name"), (String) key, id, query)
+                    : after(cb, workflow.get(sort.getAttribute()), (LocalDateTime) key, id, query));
+        }
+        select.where(where.toArray(new Predicate[0]));
+
+        Path<?> key = workflow.get(sort.getAttribute());
+        select.orderBy(query.isDescending()
+                ? List.of(cb.desc(key), cb.desc(id))
+                : List.of(cb.asc(key), cb.asc(id)));
+        return entityManager.createQuery(select).setMaxResults(query.getLimit()).getResultList();
+    }
+
+    /**
+     * Rows past ({@code value}, {@code id}) in the query's order, so the page starts where the last one
+     * ended however many rows were added or removed in between.
+     */
+    private static <Y extends Comparable<? super Y>> Predicate after(
+            CriteriaBuilder cb, Expression<Y> key, Y value, Path<UUID> id, WorkflowSummaryQuery query) {
+        UUID afterId = query.getAfterId();
+        return query.isDescending()
+                ? cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(id, afterId)))
+                : cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, afterId)));
+    }
+}
@@ -0,0 +1,142 @@
+package com.flowforge.workflow.repository;
+
+import com.flowforge.workflow.dto.WorkflowSummary;
+import com.flowforge.workflow.model.Workflow;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Filters, order and position of a page of workflow summaries. Pages are ordered by the sort key and
+ * then by id, and a page after another starts past the key and id of that page's last workflow.
+ */
+public class WorkflowSummaryQuery {
+    public enum Sort {
+        UPDATED_AT("updatedAt"),
+        CREATED_AT("createdAt"),
+        NAME("name");
+
+        private final String attribute;
+
+        Sort(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public static Sort fromAttribute(String attribute) {
+            for (Sort sort : values()) {
+                if (sort.attribute.equals(attribute)) {
+                    return sort;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sort: " + attribute);
+        }
+
+        /**
+         * The sort key of a workflow, as written into cursors.
+         */
+        public String keyOf(WorkflowSummary workflow) {
+            return switch (this) {
+                case UPDATED_AT -> workflow.getUpdatedAt().toString();
+                case CREATED_AT -> workflow.getCreatedAt().toString();
+                case NAME -> workflow.getName();
+            };
+        }
+
+        Comparable<?> parseKey(String key) {
+            if (this == NAME) {
+                return key;
+            }
+            try {
+                return LocalDateTime.parse(key);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+
+    private final UUID workspaceId;
+    private Workflow.WorkflowStatus status;
+    private LocalDateTime updatedSince;
+    private LocalDateTime updatedBefore;
+    private Sort sort = Sort.UPDATED_AT;
+    private boolean descending = true;
+    private String afterKey;
+    private UUID afterId;
+    private int limit = 50;
+
+    public WorkflowSummaryQuery(UUID workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    public UUID getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public Workflow.WorkflowStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Workflow.WorkflowStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getUpdatedSince() {
+        return updatedSince;
+    }
+
+    public void setUpdatedSince(LocalDateTime updatedSince) {
+        this.updatedSince = updatedSince;
+    }
+
+    public LocalDateTime getUpdatedBefore() {
+        return updatedBefore;
+    }
+
+    public void setUpdatedBefore(LocalDateTime updatedBefore) {
+        this.updatedBefore = updatedBefore;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public void setSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public void setDescending(boolean descending) {
+        this.descending = descending;
+    }
+
+    public String getAfterKey() {
+        return afterKey;
+    }
+
+    public UUID getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * Starts the page past the workflow with sort key {@code key} and id {@code id}.
+     */
+    public void setAfter(String key, UUID id) {
+        this.afterKey = key;
+        this.afterId = id;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
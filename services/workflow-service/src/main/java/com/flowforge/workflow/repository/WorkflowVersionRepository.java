@@ -2,6 +2,8 @@ package com.flowforge.workflow.repository;
 
 import com.flowforge.workflow.model.WorkflowVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -11,6 +13,23 @@ import java.util.UUID;
 public interface WorkflowVersionRepository extends JpaRepository<WorkflowVersion, UUID> {
     List<WorkflowVersion> findByWorkflowIdOrderByVersionDesc(UUID workflowId);
     Optional<WorkflowVersion> findByWorkflowIdAndVersion(UUID workflowId, Integer version);
+
+    /**
+     * The rows a version is rebuilt from: its checkpoint and every version after it up to this one.
+     */
+    @Query("SELECT v FROM WorkflowVersion v, WorkflowVersion t " +
+           "WHERE t.workflowId = :workflowId AND t.version = :version AND v.workflowId = t.workflowId " +
+           "AND v.version BETWEEN COALESCE(t.baseVersion, t.version) AND t.version ORDER BY v.version")
+    List<WorkflowVersion> findChain(@Param("workflowId") UUID workflowId, @Param("version") Integer version);
+
+    /**
+     * The rows the current versions of a workspace's workflows are rebuilt from, by workflow and version.
+     */
+    @Query("SELECT v FROM WorkflowVersion v, WorkflowVersion c, Workflow w " +
+           "WHERE w.workspaceId = :workspaceId AND c.workflowId = w.id AND c.version = w.version " +
+           "AND v.workflowId = w.id AND v.version BETWEEN COALESCE(c.baseVersion, c.version) AND c.version " +
+           "ORDER BY v.workflowId, v.version")
+    List<WorkflowVersion> findCurrentChainsByWorkspaceId(@Param("workspaceId") UUID workspaceId);
 }
 
 
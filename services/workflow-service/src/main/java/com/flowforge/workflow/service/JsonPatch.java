@@ -0,0 +1,186 @@
+package com.flowforge.workflow.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes and applies JSON Patches (RFC 6902). Diffs use {@code add}, {@code remove} and
+ * {@code replace} only; arrays are compared after dropping their common head and tail, so inserting or
+ * deleting a node costs one operation rather than one per node after it.
+ */
+final class JsonPatch {
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private JsonPatch() {
+    }
+
+    static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = NODES.arrayNode();
+        diff(source, target, "", patch);
+        return patch;
+    }
+
+    private static void diff(JsonNode source, JsonNode target, String path, ArrayNode patch) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            Iterator<String> names = source.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!target.has(name)) {
+                    patch.add(operation("remove", path + "/" + escape(name), null));
+                }
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> fields = target.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String fieldPath = path + "/" + escape(field.getKey());
+                JsonNode previous = source.get(field.getKey());
+                if (previous == null) {
+                    patch.add(operation("add", fieldPath, field.getValue()));
+                } else {
+                    diff(previous, field.getValue(), fieldPath, patch);
+                }
+            }
+        } else if (source.isArray() && target.isArray()) {
+            int head = 0;
+            while (head < source.size() && head < target.size() && source.get(head).equals(target.get(head))) {
+                head++;
+            }
+            int tail = 0;
+            while (tail < source.size() - head && tail < target.size() - head
+                    && source.get(source.size() - 1 - tail).equals(target.get(target.size() - 1 - tail))) {
+                tail++;
+            }
+            int removed = source.size() - head - tail;
+            int added = target.size() - head - tail;
+            int common = Math.min(removed, added);
+            for (int i = head; i < head + common; i++) {
+                diff(source.get(i), target.get(i), path + "/" + i, patch);
+            }
+            for (int i = common; i < removed; i++) {
+                patch.add(operation("remove", path + "/" + (head + common), null));
+            }
+            for (int i = common; i < added; i++) {
+                patch.add(operation("add", path + "/" + (head + i), target.get(head + i)));
+            }
+        } else {
+            patch.add(operation("replace", path, target));
+        }
+    }
+
+    /**
+     * Returns {@code document} with {@code patch} applied, leaving {@code document} unchanged.
+     */
+    static JsonNode apply(JsonNode document, JsonNode patch) {
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            String op = operation.path("op").asText();
+            List<String> path = parse(operation.path("path").asText());
+            JsonNode value = operation.get("value");
+            if (path.isEmpty()) {
+                if (!op.equals("add") && !op.equals("replace")) {
+                    throw new IllegalArgumentException("Cannot " + op + " the whole document");
+                }
+                result = value.deepCopy();
+                continue;
+            }
+            JsonNode parent = result;
+            for (String segment : path.subList(0, path.size() - 1)) {
+                parent = child(parent, segment);
+            }
+            String last = path.get(path.size() - 1);
+            switch (op) {
+                case "add" -> add(parent, last, value.deepCopy());
+                case "remove" -> remove(parent, last);
+                case "replace" -> {
+                    // Objects keep the member in its place
+                    if (parent instanceof ObjectNode object && object.has(last)) {
+                        object.set(last, value.deepCopy());
+                    } else {
+                        remove(parent, last);
+                        add(parent, last, value.deepCopy());
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unsupported patch operation: " + op);
+            }
+        }
+        return result;
+    }
+
+    private static JsonNode child(JsonNode parent, String segment) {
+        JsonNode child = parent.isArray() ? parent.get(index(parent, segment, false)) : parent.get(segment);
+        if (child == null) {
+            throw new IllegalArgumentException("Patch path not found: " + segment);
+        }
+        return child;
+    }
+
+    private static void add(JsonNode parent, String name, JsonNode value) {
+        if (parent instanceof ObjectNode object) {
+            object.set(name, value);
+        } else if (parent instanceof ArrayNode array) {
+            array.insert(name.equals("-") ? array.size() : index(array, name, true), value);
+        } else {
+            throw new IllegalArgumentException("Patch path not found: " + name);
+        }
+    }
+
+    private static void remove(JsonNode parent, String name) {
+        if (parent instanceof ObjectNode object && object.has(name)) {
+            object.remove(name);
+        } else if (parent instanceof ArrayNode array) {
+            array.remove(index(array, name, false));
+        } else {
+            throw new IllegalArgumentException("Patch path not found: " + name);
+        }
+    }
+
+    private static int index(JsonNode array, String segment, boolean end) {
+        int index;
+        try {
+            index = Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid array index: " + segment);
+        }
+        if (index < 0 || index > array.size() || (index == array.size() && !end)) {
+            throw new IllegalArgumentException("Array index out of range: " + segment);
+        }
+        return index;
+    }
+
+    private static ObjectNode operation(String op, String path, JsonNode value) {
+        ObjectNode operation = NODES.objectNode();
+        operation.put("op", op);
+        operation.put("path", path);
+        if (value != null) {
+            operation.set("value", value);
+        }
+        return operation;
+    }
+
+    private static String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static List<String> parse(String pointer) {
+        List<String> segments = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return segments;
+        }
+        if (!pointer.startsWith("/")) {
+            throw new IllegalArgumentException("Invalid patch path: " + pointer);
+        }
+        for (String segment : pointer.substring(1).split("/", -1)) {
+            segments.add(segment.replace("~1", "/").replace("~0", "~"));
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,42 @@
+package com.flowforge.workflow.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.UUID;
+
+/**
+ * A version was saved on top of a version that is no longer the workflow's current one.
+ */
+public class VersionConflictException extends RuntimeException {
+    private final UUID workflowId;
+    private final int baseVersion;
+    private final int currentVersion;
+    private final JsonNode changes;
+
+    public VersionConflictException(UUID workflowId, int baseVersion, int currentVersion, JsonNode changes) {
+        super("Workflow " + workflowId + " is at version " + currentVersion + ", not " + baseVersion);
+        this.workflowId = workflowId;
+        this.baseVersion = baseVersion;
+        this.currentVersion = currentVersion;
+        this.changes = changes;
+    }
+
+    public UUID getWorkflowId() {
+        return workflowId;
+    }
+
+    public int getBaseVersion() {
+        return baseVersion;
+    }
+
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * The JSON Patch from the base version's graph to the current one's, null if either cannot be read.
+     */
+    public JsonNode getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,239 @@
+package com.flowforge.workflow.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Keeps the serialized responses of recently read workflows, keyed by workflow and version, in a
+ * size-bounded LRU cache whose entries expire after {@code ttl-seconds}. Each workflow points at the
+ * entry of its current version; saving a version, or changing its status, drops that pointer on every
+ * replica: locally once the change commits, elsewhere when Postgres notifies {@code channel}, which the
+ * {@code workflows} trigger does on every such change. The TTL bounds what a missed notification can
+ * leave stale, and the whole cache is dropped whenever the listener (re)connects.
+ */
+@Component
+public class WorkflowCache {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowCache.class);
+
+    private final DataSource dataSource;
+    private final long ttlMillis;
+    private final boolean listen;
+    private final String channel;
+    private final Map<Key, Entry> entries;
+    private final Map<UUID, Integer> current = new HashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+    // Bumped by every invalidation, so a response read before one is not cached after it
+    private long generation;
+    private volatile boolean running = true;
+    private Thread listener;
+
+    @Autowired
+    public WorkflowCache(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${flowforge.workflow.cache.max-entries:1000}") int maxEntries,
+            @Value("${flowforge.workflow.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${flowforge.workflow.cache.listen:true}") boolean listen,
+            @Value("${flowforge.workflow.cache.channel:workflow_changes}") String channel) {
+        this.dataSource = dataSource;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.listen = listen;
+        this.channel = channel;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                current.remove(eldest.getKey().workflowId, eldest.getKey().version);
+                return true;
+            }
+        };
+        this.hits = Counter.builder("flowforge.workflows.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("flowforge.workflows.cache").tag("result", "miss").register(meterRegistry);
+        this.invalidations = Counter.builder("flowforge.workflows.cache.invalidations").register(meterRegistry);
+        Gauge.builder("flowforge.workflows.cached", this, cache -> cache.size()).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (listen) {
+            listener = new Thread(this::listenLoop, "workflow-cache-listen");
+            listener.setDaemon(true);
+            listener.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * The cached response of a workflow's current version, or null on a miss.
+     */
+    public WorkflowService.WorkflowJson get(UUID workflowId) {
+        synchronized (this) {
+            Integer version = current.get(workflowId);
+            Entry entry = version == null ? null : entries.get(new Key(workflowId, version));
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.json;
+            }
+            if (entry != null) {
+                entries.remove(new Key(workflowId, version));
+                current.remove(workflowId);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * The version of a workflow's cached response, or null if none is cached. Not counted as a hit or miss.
+     */
+    public synchronized Integer version(UUID workflowId) {
+        Integer version = current.get(workflowId);
+        Entry entry = version == null ? null : entries.get(new Key(workflowId, version));
+        return entry != null && entry.expiresAt > System.currentTimeMillis() ? version : null;
+    }
+
+    /**
+     * The generation to pass to {@link #put}, taken before reading what is put.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches the response of a workflow's current version, unless the cache was invalidated since
+     * {@code generation} and the response may already be stale.
+     */
+    public synchronized void put(UUID workflowId, WorkflowService.WorkflowJson json, long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        entries.put(new Key(workflowId, json.getVersion()), new Entry(json, System.currentTimeMillis() + ttlMillis));
+        current.put(workflowId, json.getVersion());
+    }
+
+    public void invalidate(UUID workflowId) {
+        synchronized (this) {
+            generation++;
+            Integer version = current.remove(workflowId);
+            if (version != null) {
+                entries.remove(new Key(workflowId, version));
+            }
+        }
+        invalidations.increment();
+    }
+
+    private synchronized void clear() {
+        generation++;
+        entries.clear();
+        current.clear();
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    log.info("Workflow cache invalidation across replicas needs Postgres; relying on the TTL");
+                    return;
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                // Changes made while no listener was connected were missed
+                clear();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        try {
+                            invalidate(UUID.fromString(notification.getParameter()));
+                        } catch (IllegalArgumentException e) {
+                            log.warn("Ignoring workflow change notification {}", notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Workflow cache listener lost its connection, reconnecting: {}", e.getMessage());
+                clear();
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final WorkflowService.WorkflowJson json;
+        private final long expiresAt;
+
+        Entry(WorkflowService.WorkflowJson json, long expiresAt) {
+            this.json = json;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Key {
+        private final UUID workflowId;
+        private final int version;
+
+        Key(UUID workflowId, int version) {
+            this.workflowId = workflowId;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return version == key.version && workflowId.equals(key.workflowId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(workflowId, version);
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.flowforge.workflow.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flowforge.workflow.dto.CreateWorkflowRequest;
 import com.flowforge.workflow.dto.SaveVersionRequest;
+import com.flowforge.workflow.dto.WorkflowPage;
 import com.flowforge.workflow.dto.WorkflowResponse;
+import com.flowforge.workflow.dto.WorkflowSummary;
+import com.flowforge.workflow.dto.WorkflowVersionResponse;
 import com.flowforge.workflow.model.Workflow;
-import com.flowforge.workflow.model.WorkflowVersion;
 import com.flowforge.workflow.repository.WorkflowRepository;
-import com.flowforge.workflow.repository.WorkflowVersionRepository;
+import com.flowforge.workflow.repository.WorkflowSummaryQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,17 +30,22 @@ import java.util.stream.Collectors;
 
 @Service
 public class WorkflowService {
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final WorkflowRepository workflowRepository;
-    private final WorkflowVersionRepository workflowVersionRepository;
+    private final WorkflowVersionStore workflowVersionStore;
+    private final WorkflowCache workflowCache;
     private final ObjectMapper objectMapper;
 
     @Autowired
     public WorkflowService(
             WorkflowRepository workflowRepository,
-            WorkflowVersionRepository workflowVersionRepository,
+            WorkflowVersionStore workflowVersionStore,
+            WorkflowCache workflowCache,
             ObjectMapper objectMapper) {
         this.workflowRepository = workflowRepository;
-        this.workflowVersionRepository = workflowVersionRepository;
+        this.workflowVersionStore = workflowVersionStore;
+        this.workflowCache = workflowCache;
         this.objectMapper = objectMapper;
     }
 
@@ -52,67 +66,185 @@ public class WorkflowService {
         return getWorkflowResponse(workflow);
     }
 
-    public Optional<WorkflowResponse> getWorkflow(UUID id) {
-        return workflowRepository.findById(id)
-                .map(this::getWorkflowResponse);
+    /**
+     * The workflow with the graph of its current version, as JSON. Read through the {@link WorkflowCache}.
+     */
+    public Optional<WorkflowJson> getWorkflowJson(UUID id) {
+        WorkflowJson cached = workflowCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = workflowCache.generation();
+        Optional<Workflow> workflow = workflowRepository.findById(id);
+        if (workflow.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            WorkflowJson json = new WorkflowJson(workflow.get().getVersion(),
+                    objectMapper.writeValueAsBytes(getWorkflowResponse(workflow.get())));
+            workflowCache.put(id, json, generation);
+            return Optional.of(json);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize workflow", e);
+        }
     }
 
+    /**
+     * The current version of a workflow, read without its graph.
+     */
+    public Optional<Integer> getCurrentVersion(UUID id) {
+        Integer cached = workflowCache.version(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return workflowRepository.findById(id).map(Workflow::getVersion);
+    }
+
+    /**
+     * Saves the next version of a workflow. With a {@code baseVersion}, the save only succeeds if that
+     * is still the current version, and otherwise throws a {@link VersionConflictException} carrying
+     * what changed since; without one, it is saved on top of whatever version is current.
+     */
     @Transactional
     public WorkflowResponse saveVersion(SaveVersionRequest request) {
-        Workflow workflow = workflowRepository.findById(request.getWorkflowId())
+        UUID id = request.getWorkflowId();
+        Integer baseVersion = request.getBaseVersion();
+        int updated = baseVersion != null
+                ? workflowRepository.advanceVersion(id, baseVersion, LocalDateTime.now())
+                : workflowRepository.advanceVersion(id, LocalDateTime.now());
+        if (updated == 0) {
+            Integer currentVersion = workflowRepository.findVersionById(id)
+                    .orElseThrow(() -> new RuntimeException("Workflow not found"));
+            throw conflict(id, baseVersion, currentVersion);
+        }
+        Workflow workflow = workflowRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Workflow not found"));
 
-        Integer newVersion = workflow.getVersion() + 1;
-        workflow.setVersion(newVersion);
-        workflow = workflowRepository.save(workflow);
-
-        saveWorkflowVersion(workflow.getId(), newVersion, request.getGraph(), workflow.getOrgId());
+        saveWorkflowVersion(workflow.getId(), workflow.getVersion(), request.getGraph(), workflow.getOrgId());
+        invalidateAfterCommit(workflow.getId());
 
         return getWorkflowResponse(workflow);
     }
 
-    public List<WorkflowVersion> getVersions(UUID workflowId) {
-        return workflowVersionRepository.findByWorkflowIdOrderByVersionDesc(workflowId);
+    private RuntimeException conflict(UUID id, Integer baseVersion, Integer currentVersion) {
+        if (baseVersion < 1 || baseVersion > currentVersion) {
+            return new IllegalArgumentException("Workflow " + id + " has no version " + baseVersion);
+        }
+        Optional<JsonNode> base = workflowVersionStore.load(id, baseVersion);
+        Optional<JsonNode> current = workflowVersionStore.load(id, currentVersion);
+        JsonNode changes = base.isPresent() && current.isPresent()
+                ? JsonPatch.diff(base.get(), current.get())
+                : null;
+        return new VersionConflictException(id, baseVersion, currentVersion, changes);
+    }
+
+    public List<WorkflowVersionResponse> getVersions(UUID workflowId) {
+        return workflowVersionStore.loadAll(workflowId).stream()
+                .map(version -> new WorkflowVersionResponse(version.getVersion(),
+                        version.getGraph() == null ? null : version.getGraph().toString()))
+                .collect(Collectors.toList());
     }
 
     public List<WorkflowResponse> getAllWorkflows(UUID workspaceId) {
         List<Workflow> workflows = workflowRepository.findByWorkspaceId(workspaceId);
+        // Current versions of the whole workspace in one query rather than one per workflow
+        Map<UUID, JsonNode> graphs = workflowVersionStore.loadCurrent(workspaceId);
         return workflows.stream()
-                .map(this::getWorkflowResponse)
+                .map(workflow -> new WorkflowResponse(workflow, graphs.get(workflow.getId())))
                 .collect(Collectors.toList());
     }
 
-    private void saveWorkflowVersion(UUID workflowId, Integer version, Map<String, Object> graph, UUID orgId) {
+    /**
+     * Lists workflows without their graphs, one page per call. {@code cursor} is the {@code nextCursor}
+     * of the previous page, or null for the first; it only continues a listing with the same sort.
+     */
+    public WorkflowPage listWorkflows(WorkflowSummaryQuery query, String cursor) {
+        if (query.getLimit() < 1 || query.getLimit() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            applyCursor(query, cursor);
+        }
+        int limit = query.getLimit();
+        // One row past the page tells whether there is a next one
+        query.setLimit(limit + 1);
+        List<WorkflowSummary> items = workflowRepository.findSummaries(query);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            nextCursor = cursor(query, items.get(limit - 1));
+        }
+        return new WorkflowPage(items, nextCursor);
+    }
+
+    private String cursor(WorkflowSummaryQuery query, WorkflowSummary last) {
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("sort", query.getSort().getAttribute());
+        position.put("desc", query.isDescending());
+        position.put("key", query.getSort().keyOf(last));
+        position.put("id", last.getId().toString());
         try {
-            String graphJson = objectMapper.writeValueAsString(graph);
-            WorkflowVersion workflowVersion = new WorkflowVersion();
-            workflowVersion.setWorkflowId(workflowId);
-            workflowVersion.setOrgId(orgId);
-            workflowVersion.setVersion(version);
-            workflowVersion.setGraphJson(graphJson);
-            workflowVersionRepository.save(workflowVersion);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(position));
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to serialize graph JSON", e);
+            throw new RuntimeException("Failed to write cursor", e);
         }
     }
 
-    private WorkflowResponse getWorkflowResponse(Workflow workflow) {
-        Map<String, Object> graph = null;
-        Optional<WorkflowVersion> latestVersion = workflowVersionRepository
-                .findByWorkflowIdAndVersion(workflow.getId(), workflow.getVersion());
-
-        if (latestVersion.isPresent()) {
-            try {
-                graph = objectMapper.readValue(
-                        latestVersion.get().getGraphJson(),
-                        Map.class
-                );
-            } catch (JsonProcessingException e) {
-                // Log error but don't fail
+    private void applyCursor(WorkflowSummaryQuery query, String cursor) {
+        Map<?, ?> position;
+        try {
+            position = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), Map.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!query.getSort().getAttribute().equals(position.get("sort"))
+                || !Boolean.valueOf(query.isDescending()).equals(position.get("desc"))) {
+            throw new IllegalArgumentException("Cursor belongs to a listing with a different sort");
+        }
+        if (!(position.get("key") instanceof String key) || !(position.get("id") instanceof String id)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        query.setAfter(key, UUID.fromString(id));
+    }
+
+    private void invalidateAfterCommit(UUID workflowId) {
+        // Other replicas are notified by the workflows trigger once the change commits
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                workflowCache.invalidate(workflowId);
             }
+        });
+    }
+
+    private void saveWorkflowVersion(UUID workflowId, Integer version, Map<String, Object> graph, UUID orgId) {
+        workflowVersionStore.save(workflowId, orgId, version, graph);
+    }
+
+    private WorkflowResponse getWorkflowResponse(Workflow workflow) {
+        Optional<JsonNode> latestVersion = workflowVersionStore.loadRaw(workflow.getId(), workflow.getVersion());
+        return new WorkflowResponse(workflow, latestVersion.orElse(null));
+    }
+
+    /**
+     * A workflow serialized as JSON, with the version it was serialized at.
+     */
+    public static class WorkflowJson {
+        private final int version;
+        private final byte[] json;
+
+        WorkflowJson(int version, byte[] json) {
+            this.version = version;
+            this.json = json;
         }
 
-        return new WorkflowResponse(workflow, graph);
+        public int getVersion() {
+            return version;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
     }
 }
 
@@ -0,0 +1,223 @@
+package com.flowforge.workflow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.flowforge.workflow.model.WorkflowVersion;
+import com.flowforge.workflow.repository.WorkflowVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores each workflow version as a JSON Patch against the version before it, with the full graph
+ * written every {@code checkpoint-interval} versions, so a save writes what changed rather than the
+ * whole graph. A version is rebuilt from its checkpoint by applying the patches after it; the last
+ * {@code cache-size} graphs saved or rebuilt are kept, so saving the next version of a workflow being
+ * edited reads nothing but the previous row. Graphs are cached once the transaction that saved or read
+ * them commits; versions never change after that, so the cache needs no invalidation.
+ */
+@Component
+public class WorkflowVersionStore {
+    private final WorkflowVersionRepository workflowVersionRepository;
+    private final ObjectMapper objectMapper;
+    private final int checkpointInterval;
+    private final Map<String, JsonNode> graphs;
+
+    @Autowired
+    public WorkflowVersionStore(
+            WorkflowVersionRepository workflowVersionRepository,
+            ObjectMapper objectMapper,
+            @Value("${flowforge.workflow.versions.checkpoint-interval:20}") int checkpointInterval,
+            @Value("${flowforge.workflow.versions.cache-size:500}") int cacheSize) {
+        this.workflowVersionRepository = workflowVersionRepository;
+        this.objectMapper = objectMapper;
+        this.checkpointInterval = checkpointInterval;
+        this.graphs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JsonNode> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public void save(UUID workflowId, UUID orgId, Integer version, Map<String, Object> graph) {
+        JsonNode tree = objectMapper.valueToTree(graph);
+        WorkflowVersion workflowVersion = new WorkflowVersion();
+        workflowVersion.setWorkflowId(workflowId);
+        workflowVersion.setOrgId(orgId);
+        workflowVersion.setVersion(version);
+        try {
+            String graphJson = objectMapper.writeValueAsString(tree);
+            Optional<WorkflowVersion> previous = workflowVersionRepository.findByWorkflowIdAndVersion(workflowId, version - 1);
+            int base = version;
+            if (previous.isPresent() && version - baseOf(previous.get()) < checkpointInterval) {
+                JsonNode before = load(previous.get().getWorkflowId(), previous.get().getVersion()).orElse(null);
+                if (before != null) {
+                    String patchJson = objectMapper.writeValueAsString(JsonPatch.diff(before, tree));
+                    // A rewrite of most of the graph is cheaper to store, and to read, in full
+                    if (patchJson.length() < graphJson.length()) {
+                        workflowVersion.setPatchJson(patchJson);
+                        base = baseOf(previous.get());
+                    }
+                }
+            }
+            if (base == version) {
+                workflowVersion.setGraphJson(graphJson);
+            }
+            workflowVersion.setBaseVersion(base);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize graph JSON", e);
+        }
+        workflowVersionRepository.save(workflowVersion);
+        cache(workflowId, version, tree);
+    }
+
+    /**
+     * The graph of a version, or empty if there is no such version or it cannot be read.
+     */
+    public Optional<JsonNode> load(UUID workflowId, Integer version) {
+        JsonNode cached = cached(workflowId, version);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return rebuild(workflowVersionRepository.findChain(workflowId, version));
+    }
+
+    /**
+     * Like {@link #load}, but a graph stored in full is returned as its stored text, to be written out
+     * as is rather than parsed and serialized again.
+     */
+    public Optional<JsonNode> loadRaw(UUID workflowId, Integer version) {
+        JsonNode cached = cached(workflowId, version);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return rebuildRaw(workflowVersionRepository.findChain(workflowId, version));
+    }
+
+    /**
+     * The graphs of the current versions of a workspace's workflows, by workflow id, rebuilt in one query.
+     */
+    public Map<UUID, JsonNode> loadCurrent(UUID workspaceId) {
+        Map<UUID, List<WorkflowVersion>> chains = new LinkedHashMap<>();
+        for (WorkflowVersion row : workflowVersionRepository.findCurrentChainsByWorkspaceId(workspaceId)) {
+            chains.computeIfAbsent(row.getWorkflowId(), id -> new ArrayList<>()).add(row);
+        }
+        Map<UUID, JsonNode> current = new HashMap<>();
+        chains.forEach((workflowId, chain) -> rebuildRaw(chain).ifPresent(graph -> current.put(workflowId, graph)));
+        return current;
+    }
+
+    /**
+     * Every version of a workflow with its graph, newest first. Each is rebuilt from the one before.
+     */
+    public List<VersionGraph> loadAll(UUID workflowId) {
+        List<WorkflowVersion> rows = new ArrayList<>(workflowVersionRepository.findByWorkflowIdOrderByVersionDesc(workflowId));
+        Map<Integer, JsonNode> rebuilt = new HashMap<>();
+        List<VersionGraph> versions = new ArrayList<>();
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            WorkflowVersion row = rows.get(i);
+            JsonNode graph;
+            try {
+                JsonNode previous = rebuilt.get(row.getVersion() - 1);
+                graph = row.getPatchJson() != null && previous != null
+                        ? JsonPatch.apply(previous, objectMapper.readTree(row.getPatchJson()))
+                        : load(workflowId, row.getVersion()).orElse(null);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                graph = null;
+            }
+            rebuilt.put(row.getVersion(), graph);
+            versions.add(0, new VersionGraph(row, graph));
+        }
+        return versions;
+    }
+
+    private Optional<JsonNode> rebuildRaw(List<WorkflowVersion> chain) {
+        if (chain.size() == 1 && chain.get(0).getGraphJson() != null) {
+            return Optional.of(JsonNodeFactory.instance.rawValueNode(new RawValue(chain.get(0).getGraphJson())));
+        }
+        return rebuild(chain);
+    }
+
+    private Optional<JsonNode> rebuild(List<WorkflowVersion> chain) {
+        if (chain.isEmpty() || chain.get(0).getGraphJson() == null) {
+            return Optional.empty();
+        }
+        WorkflowVersion target = chain.get(chain.size() - 1);
+        try {
+            JsonNode graph = objectMapper.readTree(chain.get(0).getGraphJson());
+            for (WorkflowVersion row : chain.subList(1, chain.size())) {
+                graph = JsonPatch.apply(graph, objectMapper.readTree(row.getPatchJson()));
+            }
+            cache(target.getWorkflowId(), target.getVersion(), graph);
+            return Optional.of(graph);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static int baseOf(WorkflowVersion version) {
+        // Versions saved before patches were stored are all full graphs
+        return version.getBaseVersion() != null ? version.getBaseVersion() : version.getVersion();
+    }
+
+    private JsonNode cached(UUID workflowId, Integer version) {
+        synchronized (graphs) {
+            return graphs.get(workflowId + ":" + version);
+        }
+    }
+
+    private void cache(UUID workflowId, Integer version, JsonNode graph) {
+        // A save that rolls back leaves its version number to the next one, which must not diff against it
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(workflowId, version, graph);
+                }
+            });
+        } else {
+            put(workflowId, version, graph);
+        }
+    }
+
+    private void put(UUID workflowId, Integer version, JsonNode graph) {
+        synchronized (graphs) {
+            graphs.put(workflowId + ":" + version, graph);
+        }
+    }
+
+    /**
+     * A stored version and its rebuilt graph, null if it cannot be read.
+     */
+    public static class VersionGraph {
+        private final WorkflowVersion version;
+        private final JsonNode graph;
+
+        VersionGraph(WorkflowVersion version, JsonNode graph) {
+            this.version = version;
+            this.graph = graph;
+        }
+
+        public WorkflowVersion getVersion() {
+            return version;
+        }
+
+        public JsonNode getGraph() {
+            return graph;
+        }
+    }
+}